@@ -0,0 +1,809 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary alternative to users.json, read and written through a memory mapped file.
+ * <p>
+ *     The file holds a header, blocks of fixed width score records and a string table holding
+ *     usernames, passwords, permissions, groups and mastered question bitmaps. Each record points into the string
+ *     table, and permissions and groups are stored once. A changed password or mastery bitmap is appended and the
+ *     record pointed at it, the old copy stays behind as dead space until the file is rewritten with
+ *     UserStoreTool compact while no game is running. Loading reads the mapped records directly instead of
+ *     parsing text, and a score change overwrites the four score fields of one record in place without touching
+ *     any other user.
+ * </p>
+ * <p>
+ *     Several game instances can share the file. Every save holds the same {@link UserFileLock} as the json stores
+ *     and first reads the header again, so a user another instance added is updated instead of added twice, and new
+ *     records and strings go after the ones the other instance wrote. The file grows in place: when every record
+ *     slot is taken, a block with twice as many slots as the previous one is appended after the string table and
+ *     the header points at it. Nothing already written moves, so other instances keep using their mapping and
+ *     map the larger file the next time they read the header. Each save increases the version of the records it
+ *     writes and the save count in the header, so a reload skips the file when only this instance saved and
+ *     otherwise reads just the records whose version changed.
+ * </p>
+ * <p>
+ *     A stored record is merged with the profile being saved by the rules of {@link UserMerge}: a record another
+ *     instance saved with a newer version is kept unless this instance changed the user too, in which case the save
+ *     wins, keeps the questions mastered in both and counts a conflict. A full save only writes the users whose
+ *     profile differs from their record.
+ * </p>
+ * <pre>
+ *     header : magic, format version, record count, slots in the first block, data end, block count,
+ *              save count, offset of every record block (128 bytes)
+ *     record : username, password, permission offsets, total, middlesex, natural sciences, talbot scores, version,
+ *              group offset, mastered bitmap offset (40 bytes)
+ *     string : length in bytes followed by UTF-8 bytes, or by the bytes of a {@link MasteryBitmap}
+ * </pre>
+ */
+public class BinaryUserStore implements RandomAccessUserStore {
+    /** "HONK" marks a binary user file */
+    private static final int MAGIC = 0x484F4E4B;
+    /** version of the file layout */
+    private static final int FORMAT_VERSION = 1;
+    /** size of the header */
+    private static final int HEADER_BYTES = 128;
+    /** size of one record */
+    private static final int RECORD_BYTES = 40;
+    /** smallest number of record slots reserved in a new file */
+    private static final int MIN_CAPACITY = 64;
+    /** most number of record blocks, each one twice as large as the one before */
+    private static final int MAX_BLOCKS = 24;
+    /** extra bytes mapped past the end of the string table so new users rarely need a remap */
+    private static final int HEADROOM_BYTES = 1 << 16;
+
+    /** header position of the record count */
+    private static final int COUNT_OFFSET = 8;
+    /** header position of the number of record slots in the first block */
+    private static final int CAPACITY_OFFSET = 12;
+    /** header position of the end of the data, new strings and record blocks are written here */
+    private static final int STRINGS_END_OFFSET = 16;
+    /** header position of the number of record blocks */
+    private static final int BLOCK_COUNT_OFFSET = 20;
+    /** header position of the number of saves made to the file by every game instance */
+    private static final int SAVE_COUNT_OFFSET = 24;
+    /** header position of the offset of the first record block, the others follow */
+    private static final int BLOCKS_OFFSET = 32;
+
+    /** record position of the username offset */
+    private static final int USERNAME = 0;
+    /** record position of the password offset */
+    private static final int PASSWORD = 4;
+    /** record position of the permission offset */
+    private static final int PERMISSION = 8;
+    /** record position of the total score */
+    private static final int TOTAL_SCORE = 12;
+    /** record position of the middlesex score */
+    private static final int MIDDLESEX_SCORE = 16;
+    /** record position of the natural sciences score */
+    private static final int NATURAL_SCIENCES_SCORE = 20;
+    /** record position of the talbot score */
+    private static final int TALBOT_SCORE = 24;
+    /** record position of the profile version */
+    private static final int VERSION = 28;
+    /** record position of the group offset */
+    private static final int GROUP = 32;
+    /** record position of the mastered bitmap offset */
+    private static final int MASTERED = 36;
+
+    /** binary user file */
+    private final File file;
+    /** lock shared with other game instances writing the same file */
+    private final UserFileLock lock;
+    /** channel of the open file */
+    private FileChannel channel;
+    /** mapped contents of the file */
+    private MappedByteBuffer buffer;
+    /** number of records in use, as last read from the header */
+    private int count;
+    /** number of record slots in the first block */
+    private int capacity;
+    /** number of record blocks */
+    private int blockCount;
+    /** file position of every record block */
+    private final int[] blockOffsets = new int[MAX_BLOCKS];
+    /** end of the data, new strings and record blocks are written here */
+    private int stringsEnd;
+    /** number of records written */
+    private long recordsWritten;
+    /** number of users this and another game instance changed at the same time */
+    private int conflicts;
+    /** version of every record when this store last read or wrote it */
+    private int[] knownVersions = new int[0];
+    /** save count of the file when this store last read every change, reload skips the file while it is unchanged */
+    private long knownSaves;
+    /** record slot of every username */
+    private final Map<String, Integer> recordIndex = new HashMap<>();
+    /** string table offset of every stored permission, so each permission is written once */
+    private final Map<String, Integer> permissionOffsets = new HashMap<>();
+    /** string table offset of every stored group, so each group is written once */
+    private final Map<String, Integer> groupOffsets = new HashMap<>();
+
+    /**
+     * Opens a binary user file, creating an empty one if it does not exist
+     * @param file binary user file
+     * @throws IOException when the file cannot be opened or is not a binary user file
+     */
+    public BinaryUserStore(File file) throws IOException {
+        this.file = file;
+        this.lock = new UserFileLock(new File(file.getPath() + ".lock"));
+        if (!file.exists()) {
+            // two instances starting on a missing file must not both create it
+            UserFileLock.Held held = lock.acquire();
+            try {
+                if (!file.exists()) {
+                    writeEmpty(file, MIN_CAPACITY);
+                }
+            } finally {
+                held.close();
+            }
+        }
+        open();
+    }
+
+    /**
+     * Writes a new binary user file holding the given profiles, replacing any existing file.
+     * Game instances that have the old file open keep reading the old file, so only replace it while none runs.
+     * @param file binary user file to write
+     * @param profiles profiles to store
+     * @throws IOException when the file cannot be written
+     */
+    public static void create(File file, Collection<UserProfile> profiles) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        writeEmpty(tempFile, Math.max(MIN_CAPACITY, profiles.size() + profiles.size() / 4));
+        try (BinaryUserStore store = new BinaryUserStore(tempFile)) {
+            store.save(profiles);
+        }
+        Files.deleteIfExists(Paths.get(tempFile.getPath() + ".lock"));
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads every profile in the file
+     * @return map of username to profile
+     */
+    @Override
+    public synchronized Map<String, UserProfile> loadAll() {
+        Map<String, UserProfile> userProfileMap = new HashMap<>(count * 4 / 3 + 16);
+        // equal strings share one offset, so reading each offset once also shares the String objects
+        Map<Integer, String> stringCache = new HashMap<>();
+        for (int slot = 0; slot < count; slot++) {
+            UserProfile userProfile = readRecord(slot, stringCache);
+            knownVersions[slot] = userProfile.getVersion();
+            userProfileMap.put(userProfile.getUsername(), userProfile);
+        }
+        return userProfileMap;
+    }
+
+    /**
+     * Hands every record to the consumer through one reused view of the mapped record,
+     * so no profile, password or mastery bitmap is read
+     * @param consumer called once per stored user
+     */
+    @Override
+    public synchronized void scanScores(Consumer<UserScores> consumer) {
+        Map<Integer, String> stringCache = new HashMap<>();
+        RecordScores record = new RecordScores(stringCache);
+        for (int slot = 0; slot < count; slot++) {
+            record.position = recordPosition(slot);
+            record.username = null;
+            consumer.accept(record);
+        }
+    }
+
+    /**
+     * Reads one profile
+     * @param username username of the profile
+     * @return the profile, or null if there is no such user
+     */
+    @Override
+    public synchronized UserProfile load(String username) {
+        Integer slot = recordIndex.get(username);
+        return slot == null ? null : readRecord(slot, null);
+    }
+
+    /**
+     * Checks whether a user is stored without reading the record
+     * @param username username to look for
+     * @return true if the user is stored
+     */
+    @Override
+    public synchronized boolean contains(String username) {
+        return recordIndex.containsKey(username);
+    }
+
+    /**
+     * Gets every username in the file
+     * @return copy of the usernames
+     */
+    @Override
+    public synchronized List<String> usernames() {
+        return new ArrayList<>(recordIndex.keySet());
+    }
+
+    /**
+     * Saves one profile and forces it to the disk
+     * @param userProfile profile to save
+     * @throws IOException when the file cannot be locked or grown
+     */
+    public void save(UserProfile userProfile) throws IOException {
+        save(Collections.singletonList(userProfile));
+    }
+
+    /**
+     * Writes a profile, merged with its stored record by the rules of {@link UserMerge}. The scores, permission
+     * and group of an existing user are overwritten in place, and a changed password or mastery bitmap is appended.
+     * A new user gets the next free record slot.
+     * Called with the lock held, after the header was read again.
+     * @param userProfile profile to write
+     * @param changed true if this instance changed the profile, false if the stored record may be newer
+     * @throws IOException when the file cannot be grown
+     */
+    private void write(UserProfile userProfile, boolean changed) throws IOException {
+        Integer slot = recordIndex.get(userProfile.getUsername());
+        if (slot != null) {
+            int position = recordPosition(slot);
+            int storedVersion = buffer.getInt(position + VERSION);
+            if (storedVersion > userProfile.getVersion()) {
+                // saved by another game instance since this one read it
+                if (!changed) {
+                    return;
+                }
+                conflicts++;
+                int storedMastered = buffer.getInt(position + MASTERED);
+                if (storedMastered >= 0) {
+                    // questions mastered in either instance stay mastered
+                    userProfile.getMastered().addAll(MasteryBitmap.fromBytes(readBytes(storedMastered)));
+                }
+            } else if (!changed && readRecord(slot, null).sameAs(userProfile)) {
+                // a profile cannot change on disk without a new version, so the record already holds it
+                return;
+            }
+            recordsWritten++;
+            // new strings are written to the string table before the record points at them
+            int password = buffer.getInt(position + PASSWORD);
+            if (!Objects.equals(readString(password), userProfile.getPassword())) {
+                password = writeString(userProfile.getPassword(), null);
+            }
+            int permission = writeString(userProfile.getPermission(), permissionOffsets);
+            int group = writeString(userProfile.getGroup(), groupOffsets);
+            int mastered = writeMastered(userProfile, buffer.getInt(position + MASTERED));
+            buffer.putInt(STRINGS_END_OFFSET, stringsEnd);
+            buffer.putInt(position + PASSWORD, password);
+            buffer.putInt(position + PERMISSION, permission);
+            buffer.putInt(position + GROUP, group);
+            buffer.putInt(position + MASTERED, mastered);
+            writeScores(position, slot, Math.max(storedVersion, userProfile.getVersion()) + 1, userProfile);
+            return;
+        }
+        recordsWritten++;
+        if (count == slotCapacity()) {
+            grow();
+        }
+        if (count == knownVersions.length) {
+            knownVersions = Arrays.copyOf(knownVersions, count * 2 + MIN_CAPACITY);
+        }
+
+        // strings first and the record count last, so a crash never leaves a record pointing at nothing
+        int position = recordPosition(count);
+        buffer.putInt(position + USERNAME, writeString(userProfile.getUsername(), null));
+        buffer.putInt(position + PASSWORD, writeString(userProfile.getPassword(), null));
+        buffer.putInt(position + PERMISSION, writeString(userProfile.getPermission(), permissionOffsets));
+        buffer.putInt(position + GROUP, writeString(userProfile.getGroup(), groupOffsets));
+        buffer.putInt(position + MASTERED, writeMastered(userProfile, -1));
+        writeScores(position, count, userProfile.getVersion() + 1, userProfile);
+        recordIndex.put(userProfile.getUsername(), count);
+        count++;
+        buffer.putInt(STRINGS_END_OFFSET, stringsEnd);
+        buffer.putInt(COUNT_OFFSET, count);
+    }
+
+    /**
+     * Saves changed profiles and forces them to the disk. Holds the file lock and reads the header again first,
+     * so the records and strings other game instances saved are kept.
+     * @param changed profiles to save
+     * @throws IOException when the file cannot be locked or grown
+     */
+    @Override
+    public void save(Collection<UserProfile> changed) throws IOException {
+        write(changed, true);
+    }
+
+    /**
+     * Saves every profile. Users are only written where the profile differs from the stored record,
+     * and records another game instance saved since this one read them are kept.
+     * @param all every profile
+     * @throws IOException when the file cannot be locked or grown
+     */
+    @Override
+    public void saveAll(Collection<UserProfile> all) throws IOException {
+        write(all, false);
+    }
+
+    /**
+     * Gets the number of users that this and another game instance changed at the same time,
+     * the save of this instance won each of them
+     * @return number of conflicting saves
+     */
+    public synchronized int getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Writes profiles under the file lock and forces them to the disk
+     * @param profiles profiles to write
+     * @param changed true if this instance changed every profile, false if stored records may be newer
+     * @throws IOException when the file cannot be locked or grown
+     */
+    private synchronized void write(Collection<UserProfile> profiles, boolean changed) throws IOException {
+        UserFileLock.Held held = lock.acquire();
+        try {
+            refresh();
+            for (UserProfile userProfile : profiles) {
+                write(userProfile, changed);
+            }
+            long saves = buffer.getLong(SAVE_COUNT_OFFSET);
+            buffer.putLong(SAVE_COUNT_OFFSET, saves + 1);
+            // when no other instance saved in between, the next reload has nothing new to read
+            if (saves == knownSaves) {
+                knownSaves = saves + 1;
+            }
+            buffer.force();
+        } finally {
+            held.close();
+        }
+    }
+
+    /**
+     * Gets the binary user file
+     * @return the binary user file
+     */
+    @Override
+    public List<Path> watchedFiles() {
+        return Collections.singletonList(file.toPath());
+    }
+
+    /**
+     * Reads the users other game instances added or saved since this store last read or wrote them.
+     * Nothing is read when only this store saved since the last reload, otherwise the record versions are compared
+     * and only records with a new version are read.
+     * @param changedFiles watched files that changed
+     * @return map of username to profile for every user that changed
+     * @throws IOException when the file cannot be mapped
+     */
+    @Override
+    public synchronized Map<String, UserProfile> reload(Collection<Path> changedFiles) throws IOException {
+        Map<String, UserProfile> changed = new HashMap<>();
+        long saves = buffer.getLong(SAVE_COUNT_OFFSET);
+        if (saves == knownSaves) {
+            return changed;
+        }
+        refresh();
+        Map<Integer, String> stringCache = new HashMap<>();
+        for (int slot = 0; slot < count; slot++) {
+            int version = buffer.getInt(recordPosition(slot) + VERSION);
+            if (version != knownVersions[slot]) {
+                UserProfile userProfile = readRecord(slot, stringCache);
+                knownVersions[slot] = userProfile.getVersion();
+                changed.put(userProfile.getUsername(), userProfile);
+            }
+        }
+        knownSaves = saves;
+        return changed;
+    }
+
+    /**
+     * Gets the number of users in the file
+     * @return number of users
+     */
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Gets the number of records written, each one a single user
+     * @return number of records written
+     */
+    @Override
+    public synchronized long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * Forces every change to the mapped file out to the disk
+     */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    /**
+     * Forces changes to the disk and closes the file
+     * @throws IOException when the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Maps the file, checks the header and builds the username and permission indexes
+     * @throws IOException when the file cannot be mapped or is not a binary user file
+     */
+    private void open() throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException(file + " is not a binary user file");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            channel.close();
+            throw new IOException(file + " has unsupported format version " + buffer.getInt(4));
+        }
+        refresh();
+        // the records already in the file are not changes
+        for (int slot = 0; slot < count; slot++) {
+            knownVersions[slot] = buffer.getInt(recordPosition(slot) + VERSION);
+        }
+        knownSaves = buffer.getLong(SAVE_COUNT_OFFSET);
+    }
+
+    /**
+     * Reads the header again and indexes the records other game instances added since it was last read.
+     * Maps the file again when another instance made it larger than the mapped region.
+     * @throws IOException when the file cannot be mapped
+     */
+    private void refresh() throws IOException {
+        if (channel.size() > buffer.capacity()) {
+            remap(channel.size());
+        }
+        capacity = buffer.getInt(CAPACITY_OFFSET);
+        stringsEnd = buffer.getInt(STRINGS_END_OFFSET);
+        blockCount = buffer.getInt(BLOCK_COUNT_OFFSET);
+        for (int block = 0; block < blockCount; block++) {
+            blockOffsets[block] = buffer.getInt(BLOCKS_OFFSET + block * Integer.BYTES);
+        }
+        // only usernames and the few distinct permissions and groups stay resident, passwords are read on demand
+        int newCount = buffer.getInt(COUNT_OFFSET);
+        for (int slot = count; slot < newCount; slot++) {
+            int position = recordPosition(slot);
+            recordIndex.put(readString(buffer.getInt(position + USERNAME)), slot);
+            int permission = buffer.getInt(position + PERMISSION);
+            if (permission >= 0) {
+                permissionOffsets.putIfAbsent(readString(permission), permission);
+            }
+            int group = buffer.getInt(position + GROUP);
+            if (group >= 0) {
+                groupOffsets.putIfAbsent(readString(group), group);
+            }
+        }
+        count = newCount;
+        if (knownVersions.length < count) {
+            knownVersions = Arrays.copyOf(knownVersions, Math.max(count, knownVersions.length * 2));
+        }
+    }
+
+    /**
+     * Appends a record block twice as large as the last one, used when every slot is taken.
+     * The block goes after the string table, so no record or string moves.
+     * @throws IOException when the file cannot be remapped or already has the most blocks
+     */
+    private void grow() throws IOException {
+        if (blockCount == MAX_BLOCKS) {
+            throw new IOException(file + " cannot hold more than " + slotCapacity() + " users");
+        }
+        long blockBytes = ((long) capacity << blockCount) * RECORD_BYTES;
+        int offset = stringsEnd;
+        ensureMapped(offset + blockBytes);
+        stringsEnd = (int) (offset + blockBytes);
+        blockOffsets[blockCount] = offset;
+        // the block is only counted once the header points at it and the data end is past it
+        buffer.putInt(BLOCKS_OFFSET + blockCount * Integer.BYTES, offset);
+        buffer.putInt(STRINGS_END_OFFSET, stringsEnd);
+        blockCount++;
+        buffer.putInt(BLOCK_COUNT_OFFSET, blockCount);
+    }
+
+    /**
+     * Gets the number of record slots in every block together
+     * @return number of users the blocks hold
+     */
+    private int slotCapacity() {
+        return capacity * ((1 << blockCount) - 1);
+    }
+
+    /**
+     * Reads one record into a new profile
+     * @param slot record slot
+     * @param stringCache strings already read by offset, or null to read every string
+     * @return profile stored in the slot
+     */
+    private UserProfile readRecord(int slot, Map<Integer, String> stringCache) {
+        int position = recordPosition(slot);
+        UserProfile userProfile = new UserProfile(
+                readString(buffer.getInt(position + USERNAME), stringCache),
+                readString(buffer.getInt(position + PASSWORD), stringCache),
+                readString(buffer.getInt(position + PERMISSION), stringCache),
+                readString(buffer.getInt(position + GROUP), stringCache),
+                buffer.getInt(position + TOTAL_SCORE),
+                buffer.getInt(position + MIDDLESEX_SCORE),
+                buffer.getInt(position + NATURAL_SCIENCES_SCORE),
+                buffer.getInt(position + TALBOT_SCORE));
+        userProfile.setVersion(buffer.getInt(position + VERSION));
+        int mastered = buffer.getInt(position + MASTERED);
+        if (mastered >= 0) {
+            try {
+                userProfile.setMastered(MasteryBitmap.fromBytes(readBytes(mastered)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return userProfile;
+    }
+
+    /**
+     * Writes the mastery bitmap of a profile to the string table unless the record already points at the same bytes
+     * @param userProfile profile holding the bitmap
+     * @param stored string table offset of the bitmap stored for the profile, or -1
+     * @return string table offset of the bitmap, or -1 when no question is mastered
+     * @throws IOException when the file cannot be remapped
+     */
+    private int writeMastered(UserProfile userProfile, int stored) throws IOException {
+        MasteryBitmap mastered = userProfile.getMastered();
+        if (mastered.isEmpty()) {
+            return -1;
+        }
+        byte[] bytes = mastered.toBytes();
+        if (stored >= 0 && Arrays.equals(readBytes(stored), bytes)) {
+            return stored;
+        }
+        return writeBytes(bytes);
+    }
+
+    /**
+     * Writes the scores and the new version of a record, the profile takes the new version
+     * @param position position of the record
+     * @param slot record slot
+     * @param version new version of the record
+     * @param userProfile profile holding the scores
+     */
+    private void writeScores(int position, int slot, int version, UserProfile userProfile) {
+        buffer.putInt(position + TOTAL_SCORE, userProfile.getTotalScore());
+        buffer.putInt(position + MIDDLESEX_SCORE, userProfile.getMiddlesexScore());
+        buffer.putInt(position + NATURAL_SCIENCES_SCORE, userProfile.getNaturalSciencesScore());
+        buffer.putInt(position + TALBOT_SCORE, userProfile.getTalbotScore());
+        buffer.putInt(position + VERSION, version);
+        userProfile.setVersion(version);
+        knownVersions[slot] = version;
+    }
+
+    /**
+     * Reads a string through a cache shared by one load
+     * @param offset string table offset
+     * @param stringCache cache of strings by offset, or null
+     * @return the string
+     */
+    private String readString(int offset, Map<Integer, String> stringCache) {
+        if (stringCache == null) {
+            return readString(offset);
+        }
+        String value = stringCache.get(offset);
+        if (value == null) {
+            value = readString(offset);
+            stringCache.put(offset, value);
+        }
+        return value;
+    }
+
+    /**
+     * Reads a string from the string table
+     * @param offset string table offset, or -1 for null
+     * @return the string
+     */
+    private String readString(int offset) {
+        if (offset < 0) {
+            return null;
+        }
+        return new String(readBytes(offset), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the bytes of a string table entry
+     * @param offset string table offset
+     * @return the bytes after the length
+     */
+    private byte[] readBytes(int offset) {
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        buffer.get(offset + 4, bytes);
+        return bytes;
+    }
+
+    /**
+     * Adds a string to the string table
+     * @param value string to store
+     * @param sharedOffsets offsets of strings that are stored once, or null to always write the string
+     * @return string table offset, or -1 for null
+     * @throws IOException when the file cannot be remapped
+     */
+    private int writeString(String value, Map<String, Integer> sharedOffsets) throws IOException {
+        if (value == null) {
+            return -1;
+        }
+        Integer existing = sharedOffsets == null ? null : sharedOffsets.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int offset = writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        if (sharedOffsets != null) {
+            sharedOffsets.put(value, offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Appends bytes to the string table after their length
+     * @param bytes bytes to store
+     * @return string table offset
+     * @throws IOException when the file cannot be remapped
+     */
+    private int writeBytes(byte[] bytes) throws IOException {
+        ensureMapped(stringsEnd + 4 + bytes.length);
+        int offset = stringsEnd;
+        buffer.putInt(offset, bytes.length);
+        buffer.put(offset + 4, bytes);
+        stringsEnd = offset + 4 + bytes.length;
+        return offset;
+    }
+
+    /**
+     * Remaps the file with some headroom when the string table grows past the mapped region
+     * @param end position that has to be mapped
+     * @throws IOException when the file cannot be remapped
+     */
+    private void ensureMapped(long end) throws IOException {
+        if (end <= buffer.capacity()) {
+            return;
+        }
+        long size = Math.max(end + HEADROOM_BYTES, (long) buffer.capacity() * 2);
+        if (end > Integer.MAX_VALUE) {
+            throw new IOException(file + " is larger than 2 GB");
+        }
+        remap(Math.min(size, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Maps a region of the file from its start, a region past the end of the file extends the file
+     * @param size size of the region
+     * @throws IOException when the file cannot be mapped
+     */
+    private void remap(long size) throws IOException {
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Gets the position of a record slot. Block b holds the slots from capacity * (2^b - 1) on.
+     * @param slot record slot
+     * @return position of the record in the file
+     */
+    private int recordPosition(int slot) {
+        int block = 31 - Integer.numberOfLeadingZeros(slot / capacity + 1);
+        int first = capacity * ((1 << block) - 1);
+        return blockOffsets[block] + (slot - first) * RECORD_BYTES;
+    }
+
+    /**
+     * Writes a file holding only a header and empty record slots
+     * @param file file to write
+     * @param capacity number of record slots to reserve
+     * @throws IOException when the file cannot be written
+     */
+    private static void writeEmpty(File file, int capacity) throws IOException {
+        int stringsStart = HEADER_BYTES + capacity * RECORD_BYTES;
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(0);
+            output.writeInt(capacity);
+            output.writeInt(stringsStart);
+            output.writeInt(1);
+            output.writeLong(0);
+            // the first block follows the header
+            output.writeInt(HEADER_BYTES);
+            output.write(new byte[stringsStart - BLOCKS_OFFSET - Integer.BYTES]);
+        }
+    }
+
+    /**
+     * View of the record the scan is at, reading the mapped fields directly
+     */
+    private final class RecordScores implements UserScores {
+        /** cache of permission and group strings by offset, shared by the whole scan */
+        private final Map<Integer, String> stringCache;
+        /** position of the record */
+        private int position;
+        /** username of the record, read on first use */
+        private String username;
+
+        /**
+         * Constructor for RecordScores
+         * @param stringCache cache of permission and group strings by offset
+         */
+        RecordScores(Map<Integer, String> stringCache) {
+            this.stringCache = stringCache;
+        }
+
+        /**
+         * Reads the username, a new string for every record
+         * @return username
+         */
+        @Override
+        public String getUsername() {
+            if (username == null) {
+                username = readString(buffer.getInt(position + USERNAME));
+            }
+            return username;
+        }
+
+        /**
+         * Reads the permission level
+         * @return permission level
+         */
+        @Override
+        public String getPermission() {
+            return readString(buffer.getInt(position + PERMISSION), stringCache);
+        }
+
+        /**
+         * Reads the group
+         * @return group name, null if the user is in no group
+         */
+        @Override
+        public String getGroup() {
+            return readString(buffer.getInt(position + GROUP), stringCache);
+        }
+
+        /**
+         * Reads the total score
+         * @return total score
+         */
+        @Override
+        public int getTotalScore() {
+            return buffer.getInt(position + TOTAL_SCORE);
+        }
+
+        /**
+         * Reads the Middlesex score
+         * @return Middlesex score
+         */
+        @Override
+        public int getMiddlesexScore() {
+            return buffer.getInt(position + MIDDLESEX_SCORE);
+        }
+
+        /**
+         * Reads the Natural Sciences score
+         * @return Natural Sciences score
+         */
+        @Override
+        public int getNaturalSciencesScore() {
+            return buffer.getInt(position + NATURAL_SCIENCES_SCORE);
+        }
+
+        /**
+         * Reads the Talbot score
+         * @return Talbot score
+         */
+        @Override
+        public int getTalbotScore() {
+            return buffer.getInt(position + TALBOT_SCORE);
+        }
+    }
+}
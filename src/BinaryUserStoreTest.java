@@ -0,0 +1,388 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests for the {@link BinaryUserStore} class.
+ */
+public class BinaryUserStoreTest {
+    /** temporary folders of the test */
+    private final TestUserFiles files = new TestUserFiles();
+
+    /**
+     * Deletes the temporary folders of the test
+     */
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        files.deleteAll();
+    }
+
+    /**
+     * Scores updated in place and users added after creation survive reopening the file,
+     * even when adding users makes the file grow.
+     */
+    @Test
+    public void testSaveAndReopen() throws IOException {
+        File binaryFile = new File(files.createFolder("honk"), "users.bin");
+
+        List<UserProfile> profiles = new ArrayList<>();
+        profiles.add(new UserProfile("bingo", "goose", "Student", 10, 10, 0, 0));
+        profiles.add(new UserProfile("bongo", "goose", "Teacher", 0, 0, 0, 0));
+        BinaryUserStore.create(binaryFile, profiles);
+
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            store.save(new UserProfile("bingo", "goose", "Student", 90, 50, 40, 0));
+            for (int i = 0; i < 200; i++) {
+                store.save(new UserProfile("student" + i, "pw" + i, "Student", i, i, 0, 0));
+            }
+            assertEquals(202, store.size());
+        }
+
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            Map<String, UserProfile> userProfileMap = store.loadAll();
+            assertEquals(202, userProfileMap.size());
+            assertEquals(50, userProfileMap.get("bingo").getMiddlesexScore());
+            assertEquals(40, userProfileMap.get("bingo").getNaturalSciencesScore());
+            assertEquals("Teacher", userProfileMap.get("bongo").getPermission());
+            assertEquals("pw199", store.load("student199").getPassword());
+            assertNull(store.load("nobody"));
+        }
+    }
+
+    /**
+     * A changed password or permission of an existing user is written, and survives reopening the file.
+     */
+    @Test
+    public void testPasswordAndPermissionChange() throws IOException {
+        File binaryFile = new File(files.createFolder("honk"), "users.bin");
+        List<UserProfile> profiles = new ArrayList<>();
+        profiles.add(new UserProfile("bingo", "goose", "Student", 10, 10, 0, 0));
+        profiles.add(new UserProfile("bongo", "goose", "Student", 20, 20, 0, 0));
+        BinaryUserStore.create(binaryFile, profiles);
+
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            store.save(new UserProfile("bingo", "a much longer password", "Teacher", 10, 10, 0, 0));
+            assertEquals("a much longer password", store.load("bingo").getPassword());
+            assertEquals("Teacher", store.load("bingo").getPermission());
+        }
+
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            UserProfile bingo = store.load("bingo");
+            assertEquals("a much longer password", bingo.getPassword());
+            assertEquals("Teacher", bingo.getPermission());
+            assertEquals(10, bingo.getTotalScore());
+            // the other user keeps its own strings
+            assertEquals("goose", store.load("bongo").getPassword());
+            assertEquals("Student", store.load("bongo").getPermission());
+        }
+    }
+
+    /**
+     * Converting users.json to binary and back keeps every user and score.
+     */
+    @Test
+    public void testJsonRoundTrip() throws IOException {
+        File folder = files.createFolder("honk");
+        File binaryFile = new File(folder, "users.bin");
+        File jsonFile = new File(folder, "users.json");
+
+        File usersJson = new File("json_files/users.json");
+        int converted = UserStoreTool.jsonToBinary(usersJson, binaryFile);
+        assertEquals(converted, UserStoreTool.binaryToJson(binaryFile, jsonFile));
+
+        Map<String, UserProfile> original = new StreamingUserLoader(false).load(usersJson);
+        Map<String, UserProfile> roundTrip = new StreamingUserLoader(false).load(jsonFile);
+        assertEquals(original.keySet(), roundTrip.keySet());
+        for (UserProfile userProfile : original.values()) {
+            UserProfile copy = roundTrip.get(userProfile.getUsername());
+            assertEquals(userProfile.getPassword(), copy.getPassword());
+            assertEquals(userProfile.getPermission(), copy.getPermission());
+            assertEquals(userProfile.getTotalScore(), copy.getTotalScore());
+            assertEquals(userProfile.getMiddlesexScore(), copy.getMiddlesexScore());
+        }
+    }
+
+    /**
+     * Groups are saved and changed in place.
+     */
+    @Test
+    public void testGroups() throws IOException {
+        File binaryFile = new File(files.createFolder("honk"), "users.bin");
+        List<UserProfile> profiles = new ArrayList<>();
+        profiles.add(new UserProfile("bing", "goose", "Student", 90, 50, 40, 0));
+        BinaryUserStore.create(binaryFile, profiles);
+
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            UserProfile bing = store.load("bing");
+            assertEquals(90, bing.getTotalScore());
+            assertNull(bing.getGroup());
+
+            bing.setGroup("Period 3");
+            store.save(bing);
+            store.save(new UserProfile("bongo", "goose", "Student", "Period 3", 5, 5, 0, 0));
+        }
+
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            assertEquals("Period 3", store.load("bing").getGroup());
+            assertEquals("Period 3", store.load("bongo").getGroup());
+            UserProfile bongo = store.load("bongo");
+            bongo.setGroup(null);
+            store.save(bongo);
+            assertNull(store.load("bongo").getGroup());
+        }
+    }
+
+    /**
+     * Mastered questions are saved with the profile and updated in place.
+     */
+    @Test
+    public void testMasteredQuestions() throws IOException {
+        File binaryFile = new File(files.createFolder("honk"), "users.bin");
+        List<UserProfile> profiles = new ArrayList<>();
+        profiles.add(new UserProfile("bing", "goose", "Student", "Per3", 90, 50, 40, 0));
+        BinaryUserStore.create(binaryFile, profiles);
+
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            UserProfile bing = store.load("bing");
+            assertEquals("Per3", bing.getGroup());
+            assertTrue(bing.getMastered().isEmpty());
+
+            bing.addMastered(12);
+            bing.addMastered(70_000);
+            store.save(bing);
+            UserProfile bongo = new UserProfile("bongo", "goose", "Student", 5, 5, 0, 0);
+            bongo.addMastered(3);
+            store.save(bongo);
+        }
+
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            UserProfile bing = store.load("bing");
+            assertArrayEquals(new int[]{12, 70_000}, bing.getMastered().toArray());
+            assertArrayEquals(new int[]{3}, store.load("bongo").getMastered().toArray());
+
+            bing.addMastered(13);
+            store.save(bing);
+            assertArrayEquals(new int[]{12, 13, 70_000}, store.load("bing").getMastered().toArray());
+            assertEquals("Per3", store.load("bing").getGroup());
+        }
+    }
+
+    /**
+     * A file that is not a binary user file, or has an unknown format version, is rejected.
+     */
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        File binaryFile = new File(files.createFolder("honk"), "users.bin");
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(binaryFile))) {
+            output.writeInt(0x484F4E4B);
+            output.writeInt(2);
+            output.write(new byte[120]);
+        }
+        assertThrows(IOException.class, () -> new BinaryUserStore(binaryFile));
+
+        Files.write(binaryFile.toPath(), "[]".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> new BinaryUserStore(binaryFile));
+    }
+
+    /**
+     * Two stores on one file, as two game instances, take turns adding users past the first record block
+     * without overwriting each other's records or strings.
+     */
+    @Test
+    public void testTwoStoresInterleaveNewUsers() throws IOException {
+        File binaryFile = new File(files.createFolder("honk"), "users.bin");
+        try (BinaryUserStore first = new BinaryUserStore(binaryFile);
+             BinaryUserStore second = new BinaryUserStore(binaryFile)) {
+            for (int i = 0; i < 300; i++) {
+                first.save(new UserProfile("first" + i, "pw" + i, "Student", i, i, 0, 0));
+                second.save(new UserProfile("second" + i, "secret" + i, "Teacher", 0, 0, i, 0));
+            }
+            // both saved the same user, the second save updates the record the first one added
+            first.save(new UserProfile("shared", "goose", "Student", 1, 1, 0, 0));
+            second.save(new UserProfile("shared", "goose", "Student", 2, 2, 0, 0));
+
+            // the first store reads back only what the second one wrote
+            assertEquals(301, first.reload(first.watchedFiles()).size());
+            assertEquals(601, first.size());
+            assertEquals(601, second.size());
+            assertEquals("secret299", first.load("second299").getPassword());
+            assertEquals("pw0", second.load("first0").getPassword());
+        }
+
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            Map<String, UserProfile> userProfileMap = store.loadAll();
+            assertEquals(601, userProfileMap.size());
+            for (int i = 0; i < 300; i++) {
+                assertEquals(i, userProfileMap.get("first" + i).getMiddlesexScore());
+                assertEquals("Student", userProfileMap.get("first" + i).getPermission());
+                assertEquals(i, userProfileMap.get("second" + i).getNaturalSciencesScore());
+                assertEquals("Teacher", userProfileMap.get("second" + i).getPermission());
+            }
+            assertEquals(2, userProfileMap.get("shared").getTotalScore());
+        }
+    }
+
+    /**
+     * Two stores saving batches of new users at the same time keep every user.
+     */
+    @Test
+    public void testConcurrentStores() throws Exception {
+        File binaryFile = new File(files.createFolder("honk"), "users.bin");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (BinaryUserStore first = new BinaryUserStore(binaryFile);
+             BinaryUserStore second = new BinaryUserStore(binaryFile)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (BinaryUserStore store : new BinaryUserStore[]{first, second}) {
+                String prefix = store == first ? "first" : "second";
+                futures.add(executor.submit(() -> {
+                    for (int batch = 0; batch < 50; batch++) {
+                        List<UserProfile> profiles = new ArrayList<>();
+                        for (int i = 0; i < 10; i++) {
+                            profiles.add(new UserProfile(prefix + batch + "_" + i, "goose", "Student", batch, i, 0, 0));
+                        }
+                        store.save(profiles);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            Map<String, UserProfile> userProfileMap = store.loadAll();
+            assertEquals(1000, userProfileMap.size());
+            assertEquals(49, userProfileMap.get("second49_9").getTotalScore());
+            assertEquals(9, userProfileMap.get("first49_9").getMiddlesexScore());
+        }
+    }
+
+    /**
+     * A reload skips the store's own saves and reads only the users another store saved since.
+     */
+    @Test
+    public void testReloadReadsOnlyChanges() throws IOException {
+        File binaryFile = new File(files.createFolder("honk"), "users.bin");
+        List<UserProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            profiles.add(new UserProfile("student" + i, "goose", "Student", i, i, 0, 0));
+        }
+        BinaryUserStore.create(binaryFile, profiles);
+
+        try (BinaryUserStore first = new BinaryUserStore(binaryFile);
+             BinaryUserStore second = new BinaryUserStore(binaryFile)) {
+            UserProfile student = first.load("student5");
+            student.setMiddlesexScore(99);
+            first.save(student);
+            assertTrue(first.reload(first.watchedFiles()).isEmpty());
+
+            UserProfile other = second.load("student7");
+            other.setTalbotScore(40);
+            second.save(other);
+            second.save(new UserProfile("newcomer", "goose", "Student", 1, 1, 0, 0));
+            // the first store also saves in between, its own record is not read back
+            student.setMiddlesexScore(98);
+            first.save(student);
+
+            Map<String, UserProfile> changed = first.reload(first.watchedFiles());
+            assertEquals(2, changed.size());
+            assertEquals(40, changed.get("student7").getTalbotScore());
+            assertTrue(changed.containsKey("newcomer"));
+            assertTrue(first.reload(first.watchedFiles()).isEmpty());
+
+            changed = second.reload(second.watchedFiles());
+            assertEquals(1, changed.size());
+            assertEquals(98, changed.get("student5").getMiddlesexScore());
+            assertEquals(student.getVersion(), changed.get("student5").getVersion());
+        }
+    }
+
+    /**
+     * Scanning the records fills a user table with the saved scores, permissions and groups.
+     */
+    @Test
+    public void testScanScores() throws IOException {
+        File binaryFile = new File(files.createFolder("honk"), "users.bin");
+        List<UserProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            profiles.add(new UserProfile("student" + i, "pw" + i, i == 0 ? "Teacher" : "Student", "class" + i % 3, i, i % 50, 0, 2));
+        }
+        BinaryUserStore.create(binaryFile, profiles);
+
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            UserTable table = new HeapUserTable();
+            store.scanScores(table::put);
+            assertEquals(300, table.size());
+            UserTable.Row row = table.find("student149");
+            assertEquals(149, row.getTotalScore());
+            assertEquals(49, row.getMiddlesexScore());
+            assertEquals(2, row.getTalbotScore());
+            assertEquals("class2", row.getGroup());
+            assertEquals("Teacher", table.find("student0").getPermission());
+            assertEquals("student299", table.getUsername(table.leaderboard(ScoreCategory.TOTAL).top(1)[0]));
+        }
+    }
+
+    /**
+     * Two stores saving the same file keep each other's scores and mastered questions: a user changed by both keeps
+     * the questions mastered in both and counts a conflict, and a full save of a stale map keeps the newer records.
+     */
+    @Test
+    public void testTwoStoresMerge() throws IOException {
+        File binaryFile = new File(files.createFolder("honk"), "users.bin");
+        List<UserProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            profiles.add(new UserProfile("student" + i, "pw" + i, "Student", 10, 10, 0, 0));
+        }
+        BinaryUserStore.create(binaryFile, profiles);
+
+        try (BinaryUserStore first = new BinaryUserStore(binaryFile);
+             BinaryUserStore second = new BinaryUserStore(binaryFile)) {
+            Map<String, UserProfile> firstUsers = first.loadAll();
+            Map<String, UserProfile> secondUsers = second.loadAll();
+
+            UserProfile firstStudent = firstUsers.get("student0");
+            firstStudent.setTotalScore(50);
+            firstStudent.addMastered(7);
+            UserProfile firstShared = firstUsers.get("student2");
+            firstShared.addMastered(1);
+            first.save(List.of(firstStudent, firstShared));
+
+            UserProfile secondStudent = secondUsers.get("student1");
+            secondStudent.setTotalScore(60);
+            UserProfile secondShared = secondUsers.get("student2");
+            secondShared.setTotalScore(70);
+            secondShared.addMastered(2);
+            second.save(List.of(secondStudent, secondShared));
+            assertEquals(1, second.getConflicts());
+            // the second store's student0 is stale, the full save keeps the first store's record
+            second.saveAll(secondUsers.values());
+            first.saveAll(firstUsers.values());
+            assertEquals(0, first.getConflicts());
+        }
+
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            Map<String, UserProfile> saved = store.loadAll();
+            assertEquals(50, saved.get("student0").getTotalScore());
+            assertArrayEquals(new int[]{7}, saved.get("student0").getMastered().toArray());
+            assertEquals(60, saved.get("student1").getTotalScore());
+            assertEquals(70, saved.get("student2").getTotalScore());
+            assertArrayEquals(new int[]{1, 2}, saved.get("student2").getMastered().toArray());
+        }
+    }
+}
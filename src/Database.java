@@ -1,51 +1,224 @@
-import com.google.gson.*;
-import com.google.gson.reflect.*;
-import java.lang.reflect.*;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Manages user profiles stored in the users.json JSON file.
  * <p>
- *     Utilizes the GSON library serializing and deserializing user profiles including score and usernames.
+ *     Keeps every profile in a map and leaves reading and writing them to a {@link UserStore}:
+ *     {@link JsonUserStore} for users.json, {@link BinaryUserStore} for the memory mapped users.bin,
+ *     {@link ShardedJsonUserStore} for users-NN.json shard files, or {@link InMemoryUserStore} for tests and benchmarks.
+ *     The backend is chosen at launch with the honk.userStore system property (json, binary, sharded or memory).
  *     Enables easy storage and retrieval.
  * </p>
+ * <p>
+ *     For very large rosters the honk.userCache system property limits how many profiles are held in memory.
+ *     With a backend that can read one user at a time (binary or memory) the map is then a
+ *     {@link LazyUserProfileMap}: only usernames stay resident and profiles are read when they are needed.
+ * </p>
+ * <p>
+ *     The shared instance saves on the {@link SaveQueue} writer thread, never on the Event Dispatch Thread.
+ *     It also watches the store's files with a {@link UserFileWatcher}, so scores saved by other game instances
+ *     sharing the json_files folder reach the listeners as per-user change events.
+ *     Set the honk.watchFiles system property to false to turn watching off.
+ * </p>
+ * <p>
+ *     Rankings read a columnar {@link UserTable}. Set the honk.userTable system property to offheap or mapped
+ *     to keep it outside the Java heap, which keeps garbage collection pauses short with millions of users.
+ *     The scratch files of a mapped table are deleted by {@link #close()}, which the shared instance calls on exit.
+ *     The points earned each day, ranked by the daily and weekly leaderboards, are kept in json_files/points.
+ * </p>
  * @author Di Zhou
  */
 public class Database {
+    /** shared database instance used by every screen */
+    private static Database instance;
+    /** json file path */
+    private static final String JSON_FILE_PATH = "json_files/users.json";
+    /** binary user file path */
+    private static final String BINARY_FILE_PATH = "json_files/users.bin";
+    /** folder of the files holding the points earned per day */
+    private static final String POINTS_FOLDER_PATH = "json_files/points";
     /** map of users */
     private Map<String, UserProfile> userProfileMap;
-    /** json file path */
-    private String jsonFilePath = "json_files/users.json";
+    /** the same map when profiles are loaded on demand, null when every profile is in memory */
+    private LazyUserProfileMap lazyProfiles;
+    /** storage backend */
+    private final UserStore store;
+    /** write-behind queue, null when saves are written immediately */
+    private SaveQueue saveQueue;
+    /** number of records the store wrote for the last batch */
+    private volatile long lastSaveRecordCount;
+    /** columnar copy of every user's saved scores for rankings and analytics */
+    private UserTable userTable;
+    /** scratch folder of a mapped user table, null when the table is not mapped */
+    private File userTableFolder;
+    /** points earned per day, for the daily and weekly leaderboards */
+    private final WindowedLeaderboard windowedLeaderboard;
+    /** watcher reloading users changed by other game instances, null when not watching */
+    private UserFileWatcher fileWatcher;
+    /** listeners notified when a user profile is created or updated */
+    private final List<UserChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Retrieves the shared Database or loads it from the json file if it doesn't exist yet.
+     * Every screen uses this instance so users.json is only parsed once per process.
+     * @return shared instance of Database
+     * @throws FileNotFoundException when json file is not found
+     */
+    public static synchronized Database getInstance() throws FileNotFoundException {
+        if (instance == null) {
+            instance = new Database(true);
+            if (!"false".equals(System.getProperty("honk.watchFiles"))) {
+                instance.startWatching();
+            }
+            // every way out of the game, including closing the window, removes the scratch files
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::close, "database-shutdown"));
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces the shared Database, so tests can share a database over a store that never touches users.json
+     * @param database database every screen should use, or null to load the json file again on the next use
+     */
+    static synchronized void setInstance(Database database) {
+        instance = database;
+    }
 
     /**
      * Constructor for Database
-     * Initializes userProfileMap and processing JSON files
+     * Initializes userProfileMap and processing JSON files, every save rewrites users.json
      * @throws FileNotFoundException when json file is not found
      */
     public Database() throws FileNotFoundException {
+        this(false);
+    }
 
-        // determine the correct type to be deserialized
-        Type listOfUsersObject = new TypeToken<ArrayList<UserProfile>>(){}.getType();
+    /**
+     * Constructor for Database using the backend named by the honk.userStore system property
+     * @param queued true to journal changes and save them on a background writer thread
+     *               instead of writing them immediately
+     * @throws FileNotFoundException when json file is not found
+     */
+    public Database(boolean queued) throws FileNotFoundException {
+        this(createStore(System.getProperty("honk.userStore", "json"), queued), queued, Integer.getInteger("honk.userCache", 0),
+                "memory".equals(System.getProperty("honk.userStore")) ? null : new File(POINTS_FOLDER_PATH));
+    }
 
-        // work with GSON's Library
-        Gson gson = new Gson();
+    /**
+     * Constructor for Database
+     * Initializes userProfileMap from the given store
+     * @param store storage backend
+     * @param queued true to save changes on a background writer thread
+     * @throws FileNotFoundException when the store's file is not found
+     */
+    public Database(UserStore store, boolean queued) throws FileNotFoundException {
+        this(store, queued, 0);
+    }
 
-        // Create file reader
-        try (FileReader reader = new FileReader(jsonFilePath)) {
-            // make it a list of user profiles from json file
-            List<UserProfile> userProfileList = gson.fromJson(reader, listOfUsersObject);
+    /**
+     * Constructor for Database
+     * Initializes userProfileMap from the given store, or as a bounded cache over it
+     * @param store storage backend
+     * @param queued true to save changes on a background writer thread
+     * @param cacheSize most number of profiles to hold in memory, or 0 to load every profile.
+     *                  Ignored when the store cannot read one user at a time.
+     * @throws FileNotFoundException when the store's file is not found
+     */
+    public Database(UserStore store, boolean queued, int cacheSize) throws FileNotFoundException {
+        this(store, queued, cacheSize, null);
+    }
 
-            // create the userProfileMap
-            userProfileMap = new HashMap<>();
+    /**
+     * Constructor for Database
+     * Initializes userProfileMap from the given store, and the daily and weekly leaderboards from their day files
+     * @param store storage backend
+     * @param queued true to save changes on a background writer thread
+     * @param cacheSize most number of profiles to hold in memory, or 0 to load every profile.
+     *                  Ignored when the store cannot read one user at a time.
+     * @param pointsFolder folder of the files holding the points earned per day,
+     *                     or null to only count the points earned since the game started
+     * @throws FileNotFoundException when the store's file is not found
+     */
+    public Database(UserStore store, boolean queued, int cacheSize, File pointsFolder) throws FileNotFoundException {
+        this.store = store;
+        this.windowedLeaderboard = createWindowedLeaderboard(pointsFolder);
+        if (cacheSize > 0 && store instanceof RandomAccessUserStore) {
+            lazyProfiles = new LazyUserProfileMap((RandomAccessUserStore) store, cacheSize);
+            userProfileMap = lazyProfiles;
+        } else {
+            userProfileMap = loadAll(store);
+        }
+        if (queued) {
+            saveQueue = new SaveQueue("user-save-writer", this::writeBatch);
+        }
+        if (lazyProfiles == null) {
+            // the table holds the last saved scores, which the points earned in a save are measured against,
+            // so it is filled before screens change the loaded profiles. With profiles loaded on demand the store
+            // holds the saved scores, and the table is filled from it on first use.
+            getUserTable();
+        }
+    }
 
-            // populate the userProfileMap
-            for (UserProfile userProfile : userProfileList) {
-                userProfileMap.put(userProfile.getUsername(), userProfile);
-            }
-        } catch (Exception e) {
+    /**
+     * Loads every profile of a store into a concurrent map
+     * @param store storage backend
+     * @return map of username to profile, empty if the store cannot be read
+     * @throws FileNotFoundException when the store's file is not found
+     */
+    private static Map<String, UserProfile> loadAll(UserStore store) throws FileNotFoundException {
+        try {
+            Map<String, UserProfile> loaded = store.loadAll();
+            // screens may read the map while a background thread logs in a user
+            return loaded instanceof ConcurrentHashMap ? loaded : new ConcurrentHashMap<>(loaded);
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
             // Handle any exceptions
             e.printStackTrace();
+            return new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Creates the storage backend with the given name
+     * @param name json, binary, sharded or memory
+     * @param journaled true to journal changes to users.json
+     * @return storage backend, json if the named one cannot be opened
+     */
+    private static UserStore createStore(String name, boolean journaled) {
+        try {
+            switch (name) {
+                case "memory":
+                    return new InMemoryUserStore(new File(JSON_FILE_PATH));
+                case "binary":
+                    // import users.json the first time the binary backend is used
+                    File binaryFile = new File(BINARY_FILE_PATH);
+                    if (!binaryFile.exists() && new File(JSON_FILE_PATH).exists()) {
+                        UserStoreTool.jsonToBinary(new File(JSON_FILE_PATH), binaryFile);
+                    }
+                    return new BinaryUserStore(binaryFile);
+                case "sharded":
+                    // split users.json the first time the sharded backend is used
+                    File folder = new File(JSON_FILE_PATH).getParentFile();
+                    int shardCount = ShardedJsonUserStore.countShards(folder);
+                    if (shardCount == 0) {
+                        shardCount = Integer.getInteger("honk.shards", ShardedJsonUserStore.DEFAULT_SHARDS);
+                        if (new File(JSON_FILE_PATH).exists()) {
+                            UserStoreTool.reshard(new File(JSON_FILE_PATH), folder, shardCount);
+                        }
+                    }
+                    return new ShardedJsonUserStore(folder, shardCount);
+                default:
+                    return new JsonUserStore(journaled);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new JsonUserStore(journaled);
         }
     }
 
@@ -65,59 +238,538 @@ public class Database {
         } else {
             // create username
             UserProfile newUser = new UserProfile(username, password, role, 0, 0, 0, 0);
-            userProfileMap.put(username, newUser); // Add the new user profile to the map
-            saveDataToJson(); // Save the updated data to JSON file
+            persist(newUser); // Add the new user profile to the map and save it
+            fireUserChanged(newUser);
             return null; // User profile not found
         }
     }
 
     /**
      * Finds the top 10 users with the highest score
-     * @param category of the top 10 users
+     * @param category of the top 10 users, such as TotalScore or MiddlesexScore
      * @return a list of the top 10 users
      */
-    public List<UserProfile> topUsers(String category) {
+    public List<UserScores> topUsers(String category) {
+        return topUsers(ScoreCategory.fromName(category));
+    }
 
-        //determine method to call
-        String methodName = "get" + category;
+    /**
+     * Finds the top 10 users with the highest score from the category's leaderboard index,
+     * which is updated as scores are saved instead of sorting every user
+     * @param category of the top 10 users
+     * @return a list of the top 10 users, users with the same score in the order they were loaded
+     */
+    public List<UserScores> topUsers(ScoreCategory category) {
+        return topUsers(category, null);
+    }
 
-        //create list for profiles
-        List<UserProfile> allProfiles = new ArrayList<>(userProfileMap.values());
+    /**
+     * Finds the top 10 users of a class or section from the group's leaderboard index,
+     * which is updated in the same pass as the leaderboard of every user.
+     * The users are rows of the user table, so no profile is read.
+     * @param category of the top 10 users
+     * @param group group to rank, null for every user
+     * @return a list of the top 10 users in the group, as saved
+     */
+    public List<UserScores> topUsers(ScoreCategory category, String group) {
+        UserTable table = getUserTable();
+        List<UserScores> top = new ArrayList<>();
+        for (int row : table.leaderboard(category, group).top(10)) {
+            top.add(table.row(row));
+        }
+        return top;
+    }
 
-        // Sort the list based on the specified category using Reflection
-        try {
-            allProfiles.sort(Comparator.comparingInt(userProfile -> {
+    /**
+     * Gets every user in alphabetical order as rows of the user table, for the teacher's student list
+     * @return users ordered by username, ignoring case
+     */
+    public List<UserScores> usersAlphabetically() {
+        UserTable table = getUserTable();
+        List<UserScores> users = new ArrayList<>();
+        for (int row = 0; row < table.size(); row++) {
+            users.add(table.row(row));
+        }
+        users.sort((first, second) -> String.CASE_INSENSITIVE_ORDER.compare(first.getUsername(), second.getUsername()));
+        return users;
+    }
+
+    /**
+     * Ranks the users by their score in a time window
+     * @param window today, this week or all time
+     * @param category category to rank by
+     * @param limit most number of users to return
+     * @return leaderboard lines, highest score first. Daily and weekly windows only list users who earned points in them.
+     */
+    public List<LeaderboardEntry> topUsers(ScoreWindow window, ScoreCategory category, int limit) {
+        return topUsers(window, category, null, limit);
+    }
+
+    /**
+     * Ranks the users of a class or section by their score in a time window
+     * @param window today, this week or all time
+     * @param category category to rank by
+     * @param group group to rank, null for every user
+     * @param limit most number of users to return
+     * @return leaderboard lines, highest score first, positions counted within the group
+     */
+    public List<LeaderboardEntry> topUsers(ScoreWindow window, ScoreCategory category, String group, int limit) {
+        UserTable table = getUserTable();
+        if (window != ScoreWindow.ALL_TIME) {
+            if (group == null) {
+                return windowedLeaderboard.top(window, category, limit);
+            }
+            return windowedLeaderboard.top(window, category, limit, username -> {
+                UserTable.Row row = table.find(username);
+                return row != null && group.equals(row.getGroup());
+            });
+        }
+        List<LeaderboardEntry> top = new ArrayList<>();
+        for (long entry : table.leaderboard(category, group).page(0, limit)) {
+            int row = LeaderboardIndex.rowOf(entry);
+            top.add(new LeaderboardEntry(top.size() + 1, table.getUsername(row), table.getScore(row, category)));
+        }
+        return top;
+    }
+
+    /**
+     * Gets the distribution of saved scores in a category, kept up to date as scores are saved
+     * @param category category to describe
+     * @return copy of the category's histogram, for percentiles and charts
+     */
+    public ScoreHistogram scoreDistribution(ScoreCategory category) {
+        return getUserTable().histogram(category);
+    }
+
+    /**
+     * Gets the classes and sections that have at least one user
+     * @return group names in alphabetical order
+     */
+    public List<String> groups() {
+        return getUserTable().groups();
+    }
+
+    /**
+     * Gets the rank of a user in a category, as saved. Users with the same score share a rank.
+     * @param username username of the user
+     * @param category category to rank by
+     * @return rank starting at 1, or 0 if the user is unknown
+     */
+    public int rankOf(String username, ScoreCategory category) {
+        UserTable table = getUserTable();
+        UserTable.Row row = table.find(username);
+        return row == null ? 0 : table.leaderboard(category).rankOf(row.getScore(category));
+    }
+
+    /**
+     * Gets the share of users that scored less than a score in a category
+     * @param score score to compare with
+     * @param category category to compare in
+     * @return percentile from 0 to 100
+     */
+    public double percentileOf(int score, ScoreCategory category) {
+        return getUserTable().leaderboard(category).percentileOf(score);
+    }
+
+    /**
+     * Describes where a user stands in a category, for the stats popups
+     * @param username username of the user
+     * @param category category to rank by
+     * @return text such as "Rank 3 of 120, ahead of 97% of players", empty if the user is unknown
+     */
+    public String describeRank(String username, ScoreCategory category) {
+        UserTable table = getUserTable();
+        UserTable.Row row = table.find(username);
+        if (row == null) {
+            return "";
+        }
+        LeaderboardIndex leaderboard = table.leaderboard(category);
+        int score = row.getScore(category);
+        return "Rank " + leaderboard.rankOf(score) + " of " + leaderboard.size()
+                + ", ahead of " + (int) leaderboard.percentileOf(score) + "% of players";
+    }
+
+    /**
+     * Gets the columnar table of every user's scores, afterwards every saved or reloaded profile is copied into it.
+     * The table is built from the loaded profiles when the database is created. With profiles loaded on demand
+     * it is built on first use from a scan of the store's records, so no profile is read or cached for it.
+     * @return user table
+     */
+    public synchronized UserTable getUserTable() {
+        if (userTable == null) {
+            UserTable table = createUserTable(System.getProperty("honk.userTable", "heap"));
+            if (lazyProfiles == null) {
+                table.putAll(userProfileMap.values());
+            } else {
                 try {
-                    return (int) UserProfile.class.getMethod(methodName).invoke(userProfile);
-                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+                    store.scanScores(table::put);
+                } catch (IOException e) {
                     e.printStackTrace();
-                    // Return a default value if an error occurs during method invocation
-                    return 0;
                 }
-            }).reversed());
-        } catch (Exception e) {
+            }
+            userTable = table;
+        }
+        return userTable;
+    }
+
+    /**
+     * Stores the changed profile, saves it and notifies every registered listener
+     * @param userProfile profile whose information was changed
+     */
+    public void updateUser(UserProfile userProfile) {
+        persist(userProfile);
+        fireUserChanged(userProfile);
+    }
+
+    /**
+     * Copies changed profiles into the user table, which moves them in every leaderboard index.
+     * The points gained since the table last saw a profile count for the daily and weekly leaderboards.
+     * Called with the database lock held.
+     * @param changed profiles that were saved or reloaded
+     * @param earnedHere true when the profiles were saved by this game, false when another game instance saved them
+     *                   and has written their points to the day files itself
+     */
+    private void updateUserTable(Collection<UserProfile> changed, boolean earnedHere) {
+        UserTable table = getUserTable();
+        for (UserProfile userProfile : changed) {
+            UserTable.Row row = table.find(userProfile.getUsername());
+            for (ScoreCategory category : ScoreCategory.values()) {
+                int saved = row == null ? 0 : row.getScore(category);
+                int points = userProfile.getScore(category) - saved;
+                if (earnedHere) {
+                    windowedLeaderboard.record(userProfile.getUsername(), category, points);
+                } else {
+                    windowedLeaderboard.recordElsewhere(userProfile.getUsername(), category, points);
+                }
+            }
+            table.put(userProfile);
+        }
+    }
+
+    /**
+     * Creates the daily and weekly leaderboards, reading back the points saved in the folder
+     * @param pointsFolder folder of the day files, or null to keep the points in memory
+     * @return windowed leaderboard, in memory only if the day files cannot be read
+     */
+    private static WindowedLeaderboard createWindowedLeaderboard(File pointsFolder) {
+        if (pointsFolder == null) {
+            return new WindowedLeaderboard();
+        }
+        try {
+            return new WindowedLeaderboard(Clock.systemDefaultZone(), ScoreWindow.THIS_WEEK.getDays(), pointsFolder);
+        } catch (IOException e) {
             e.printStackTrace();
+            return new WindowedLeaderboard();
         }
+    }
 
-        // Return the top ten profiles (or less if there are fewer than three profiles)
-        return allProfiles.subList(0, Math.min(10, allProfiles.size()));
+    /**
+     * Creates an empty user table of the given kind
+     * @param kind heap for int arrays, offheap for direct buffers, or mapped for memory mapped scratch files
+     * @return empty user table, on the heap if the scratch folder cannot be created
+     */
+    private UserTable createUserTable(String kind) {
+        int capacity = Math.max(16, userProfileMap.size());
+        try {
+            switch (kind) {
+                case "offheap":
+                    return new OffHeapUserTable(capacity);
+                case "mapped":
+                    // removed again by close()
+                    userTableFolder = Files.createTempDirectory("honk-user-table").toFile();
+                    return new OffHeapUserTable(capacity, userTableFolder);
+                default:
+                    return new HeapUserTable(capacity);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new HeapUserTable(capacity);
+        }
     }
 
     /**
-     * method to update and save data to json file
+     * Puts a profile in the map and saves it, either through the save queue or immediately.
+     * Holds the database lock so a reload never sees the map change before the save is queued.
+     * @param userProfile profile to save
      */
-    public void saveDataToJson() {
+    private synchronized void persist(UserProfile userProfile) {
+        userProfileMap.put(userProfile.getUsername(), userProfile);
+        updateUserTable(Collections.singletonList(userProfile), true);
+        if (saveQueue != null) {
+            saveQueue.submit(userProfile);
+            return;
+        }
+        try {
+            writeBatch(Collections.singletonList(userProfile), false);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Saves one merged batch to the store, followed by a full snapshot when one was requested or the store asks for it.
+     * Profiles are put in the map before they are queued, so a snapshot never misses a change
+     * that is not saved again afterwards.
+     * With profiles loaded on demand the batch writes back every dirty cached profile instead,
+     * the store already holds the rest so no snapshot is needed.
+     * @param changed profiles changed since the last batch
+     * @param snapshot true if a full snapshot was requested
+     * @throws IOException when the store cannot be written
+     */
+    private void writeBatch(Collection<UserProfile> changed, boolean snapshot) throws IOException {
+        if (lazyProfiles != null) {
+            lazyProfiles.flush();
+            return;
+        }
+        long recordsBefore = store.getRecordsWritten();
+        if (!changed.isEmpty()) {
+            // remember what each profile looked like when it was saved, a later change keeps it dirty
+            long[] sequences = new long[changed.size()];
+            int i = 0;
+            for (UserProfile userProfile : changed) {
+                sequences[i++] = userProfile.getChangeSequence();
+            }
+            store.save(changed);
+            i = 0;
+            for (UserProfile userProfile : changed) {
+                userProfile.markSaved(sequences[i++]);
+            }
+        }
+        if (snapshot || store.needsSnapshot()) {
+            store.saveAll(userProfileMap.values());
+        }
+        lastSaveRecordCount = store.getRecordsWritten() - recordsBefore;
+    }
+
+    /**
+     * Finds the users whose profile changed after the given change sequence number,
+     * so persistence, sync and screens can handle only the modified users.
+     * Scans the profiles in memory, with profiles loaded on demand only the cached ones are checked.
+     * @param changeSequence sequence number from {@link UserProfile#currentChangeSequence()}
+     * @return profiles changed since then
+     */
+    public List<UserProfile> changedSince(long changeSequence) {
+        Collection<UserProfile> profiles = lazyProfiles != null ? lazyProfiles.cachedProfiles() : userProfileMap.values();
+        List<UserProfile> changed = new ArrayList<>();
+        for (UserProfile userProfile : profiles) {
+            if (userProfile.getChangeSequence() > changeSequence) {
+                changed.add(userProfile);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Gets the number of records the store wrote for the last save,
+     * a delta save writes one per changed user while a snapshot writes every user
+     * @return records written by the last save
+     */
+    public long getLastSaveRecordCount() {
+        return lastSaveRecordCount;
+    }
+
+    /**
+     * Gets the number of records the store wrote since it was opened
+     * @return records written
+     */
+    public long getRecordsWritten() {
+        return store.getRecordsWritten();
+    }
+
+    /**
+     * Starts watching the store's files for changes made by other game instances.
+     * Does nothing when already watching, when the store is not on disk,
+     * or when profiles are loaded on demand and are read from the store anyway.
+     */
+    public synchronized void startWatching() {
+        if (fileWatcher != null || lazyProfiles != null || store.watchedFiles().isEmpty()) {
+            return;
+        }
+        try {
+            fileWatcher = new UserFileWatcher(this, store.watchedFiles());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops watching the store's files
+     */
+    public synchronized void stopWatching() {
+        if (fileWatcher == null) {
+            return;
+        }
+        try {
+            fileWatcher.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        fileWatcher = null;
+    }
+
+    /**
+     * Shuts the database down when the game exits: waits for queued saves, stops watching the store's files,
+     * and closes a mapped user table, deleting its scratch files and folder. The database must not be used afterwards.
+     */
+    public void close() {
+        flush();
+        stopWatching();
+        synchronized (this) {
+            try {
+                windowedLeaderboard.close();
+                if (userTable instanceof OffHeapUserTable) {
+                    ((OffHeapUserTable) userTable).close();
+                }
+                if (userTableFolder != null) {
+                    Files.deleteIfExists(userTableFolder.toPath());
+                    userTableFolder = null;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Reloads users from files that another game instance changed and notifies the listeners
+     * of every user whose profile differs from the one in memory
+     * @param changedFiles absolute paths of the changed files
+     * @return number of users that changed
+     */
+    public int reloadChangedUsers(Collection<Path> changedFiles) {
+        Map<String, UserProfile> reloaded;
+        try {
+            reloaded = store.reload(changedFiles);
+        } catch (IOException e) {
+            // a file may be half written, the next change event reads it again
+            e.printStackTrace();
+            return 0;
+        }
+
+        List<UserProfile> changed = new ArrayList<>();
+        synchronized (this) {
+            for (UserProfile diskProfile : reloaded.values()) {
+                // local changes that are not written yet are newer than the file, their save merges with it
+                if (saveQueue != null && saveQueue.isPending(diskProfile.getUsername())) {
+                    continue;
+                }
+                UserProfile userProfile = userProfileMap.get(diskProfile.getUsername());
+                if (userProfile != null && userProfile.isDirty()) {
+                    // changed here and not saved yet, such as a round in progress
+                    continue;
+                }
+                if (userProfile == null) {
+                    userProfileMap.put(diskProfile.getUsername(), diskProfile);
+                    changed.add(diskProfile);
+                } else if (!userProfile.sameAs(diskProfile)) {
+                    // update in place so screens holding the profile see the new scores
+                    userProfile.copyScoresFrom(diskProfile);
+                    changed.add(userProfile);
+                } else if (diskProfile.getVersion() > userProfile.getVersion()) {
+                    // same scores saved again elsewhere, only the version moved on
+                    userProfile.setVersion(diskProfile.getVersion());
+                }
+            }
+            updateUserTable(changed, false);
+        }
+        for (UserProfile userProfile : changed) {
+            fireUserChanged(userProfile);
+        }
+        return changed.size();
+    }
+
+    /**
+     * Waits until every queued save has been written, called before the game exits
+     */
+    public void flush() {
+        if (saveQueue != null) {
+            saveQueue.flush();
+        }
+    }
+
+    /**
+     * Gets the number of saves waiting for the writer thread
+     * @return save queue depth, 0 when saves are written immediately
+     */
+    public int getSaveQueueDepth() {
+        return saveQueue == null ? 0 : saveQueue.getQueueDepth();
+    }
+
+    /**
+     * Gets how long the last queued save took to reach the disk
+     * @return latency of the last save in milliseconds, 0 when saves are written immediately
+     */
+    public long getLastSaveLatencyMillis() {
+        return saveQueue == null ? 0 : saveQueue.getLastSaveLatencyMillis();
+    }
+
+    /**
+     * Registers a listener to be notified when a user profile is created or updated
+     * @param listener listener to add
+     */
+    public void addUserChangeListener(UserChangeListener listener) {
+        listeners.add(listener);
+    }
 
-        //create file writer
-        try (FileWriter fileWriter = new FileWriter(jsonFilePath)) {
-            // Convert the map values to a list of UserProfile objects
-            List<UserProfile> userProfileList = new ArrayList<>(userProfileMap.values());
+    /**
+     * Removes a previously registered listener
+     * @param listener listener to remove
+     */
+    public void removeUserChangeListener(UserChangeListener listener) {
+        listeners.remove(listener);
+    }
 
-            // Create Gson instance with pretty printing
-            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    /**
+     * Notifies every listener that a user profile changed
+     * @param userProfile profile that changed
+     */
+    private void fireUserChanged(UserProfile userProfile) {
+        for (UserChangeListener listener : listeners) {
+            listener.userChanged(userProfile);
+        }
+    }
 
-            // Serialize the list to JSON and write to file
-            gson.toJson(userProfileList, fileWriter);
+    /**
+     * method to update and save data to json file.
+     * Only the profiles that changed since they were last saved are written,
+     * with the save queue this only queues them.
+     */
+    public void saveDataToJson() {
+        if (lazyProfiles == null) {
+            List<UserProfile> dirty = new ArrayList<>();
+            for (UserProfile userProfile : userProfileMap.values()) {
+                if (userProfile.isDirty()) {
+                    dirty.add(userProfile);
+                }
+            }
+            saveChanged(dirty);
+            return;
+        }
+        if (saveQueue != null) {
+            saveQueue.requestSnapshot();
+            return;
+        }
+        try {
+            writeBatch(Collections.emptyList(), true);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Saves changed profiles as one batch, through the save queue or immediately
+     * @param dirty profiles that changed since they were last saved
+     */
+    private synchronized void saveChanged(List<UserProfile> dirty) {
+        updateUserTable(dirty, true);
+        if (saveQueue != null) {
+            for (UserProfile userProfile : dirty) {
+                saveQueue.submit(userProfile);
+            }
+            return;
+        }
+        try {
+            writeBatch(dirty, false);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -131,4 +783,11 @@ public class Database {
         return userProfileMap;
     }
 
+    /**
+     * getter method for the storage backend
+     * @return the user store
+     */
+    public UserStore getStore() {
+        return store;
+    }
 }
@@ -1,17 +1,28 @@
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 
 public class DatabaseTest {
 
+    /**
+     * Creates a database over an in-memory copy of users.json, so the tests never rewrite the real file
+     * @return database for testing
+     * @throws FileNotFoundException when users.json is not found
+     */
+    private Database createDatabase() throws FileNotFoundException {
+        return new Database(new InMemoryUserStore(new File("json_files/users.json")), false);
+    }
+
     @Test
     public void testSearchUser() {
         try {
             // Create a Database instance
-            Database database = new Database();
+            Database database = createDatabase();
 
             // Test existing user
             String[] existingUser = database.searchUser("goose", "goose", "Teacher");
@@ -19,7 +30,7 @@ public class DatabaseTest {
             assertEquals("goose", existingUser[0]);
             assertEquals("Teacher", existingUser[1]);
 
-            // Test new user -- NOTE: must reset username every time, or the next test will fail because the user will be added to the json file
+            // Test new user -- the in-memory store never adds it to the json file
             String[] newUser = database.searchUser("gooersdoo", "newPassword", "newRole");
             assertNull(newUser);
         } catch (FileNotFoundException e) {
@@ -31,13 +42,21 @@ public class DatabaseTest {
     public void testTopUsers() {
         try {
             // Create a Database instance
-            Database database = new Database();
+            Database database = createDatabase();
 
             // Test top users
-            List<UserProfile> topUsers = database.topUsers("TotalScore");
+            List<UserScores> topUsers = database.topUsers("TotalScore");
             assertNotNull(topUsers);
             assertTrue(topUsers.size() <= 10); // Ensure maximum size is 10
             assertEquals("JimmyJohn", topUsers.get(0).getUsername());
+
+            // a saved score change moves the user on the leaderboard
+            UserProfile last = database.getUserProfileMap().get(topUsers.get(topUsers.size() - 1).getUsername());
+            last.setTotalScore(topUsers.get(0).getTotalScore() + 1);
+            database.updateUser(last);
+            assertEquals(last.getUsername(), database.topUsers(ScoreCategory.TOTAL).get(0).getUsername());
+            assertEquals(1, database.rankOf(last.getUsername(), ScoreCategory.TOTAL));
+            assertEquals(0, database.rankOf("nobody", ScoreCategory.TOTAL));
         } catch (FileNotFoundException e) {
             fail("FileNotFoundException occurred while testing topUsers");
         }
@@ -47,11 +66,22 @@ public class DatabaseTest {
     public void testSaveDataToJson() {
         try {
             // Create a Database instance
-            Database database = new Database();
+            Database database = createDatabase();
 
-            // Save data to JSON
+            // nothing changed since loading, so nothing is written
             database.saveDataToJson();
-            // No assertion made as it's difficult to verify without reading the saved file
+            InMemoryUserStore store = (InMemoryUserStore) database.getStore();
+            assertEquals(0, store.getProfilesSaved());
+
+            // only the changed user is written
+            long changeSequence = UserProfile.currentChangeSequence();
+            UserProfile userProfile = database.getUserProfileMap().values().iterator().next();
+            userProfile.setTotalScore(userProfile.getTotalScore() + 10);
+            assertEquals(1, database.changedSince(changeSequence).size());
+            database.saveDataToJson();
+            assertEquals(1, store.getProfilesSaved());
+            assertEquals(1, database.getLastSaveRecordCount());
+            assertFalse(userProfile.isDirty());
         } catch (FileNotFoundException e) {
             fail("FileNotFoundException occurred while testing saveDataToJson");
         }
@@ -61,7 +91,7 @@ public class DatabaseTest {
     public void testGetUserProfileMap() {
         try {
             // Create a Database instance
-            Database database = new Database();
+            Database database = createDatabase();
 
             // Get user profile map
             Map<String, UserProfile> userProfileMap = database.getUserProfileMap();
@@ -70,4 +100,30 @@ public class DatabaseTest {
             fail("FileNotFoundException occurred while testing getUserProfileMap");
         }
     }
+
+    @Test
+    public void testSharedInstanceNotifiesListeners() {
+        try {
+            // every screen should get the same database, here one over the in-memory store
+            Database database = createDatabase();
+            Database.setInstance(database);
+            assertSame(database, Database.getInstance());
+            assertSame(Database.getInstance(), Database.getInstance());
+
+            // updating a user notifies the registered listeners
+            List<UserProfile> changed = new ArrayList<>();
+            UserChangeListener listener = changed::add;
+            database.addUserChangeListener(listener);
+            UserProfile goose = database.getUserProfileMap().get("goose");
+            database.updateUser(goose);
+            database.removeUserChangeListener(listener);
+
+            assertEquals(1, changed.size());
+            assertSame(goose, changed.get(0));
+        } catch (FileNotFoundException e) {
+            fail("FileNotFoundException occurred while testing getInstance");
+        } finally {
+            Database.setInstance(null);
+        }
+    }
 }
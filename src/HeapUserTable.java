@@ -0,0 +1,179 @@
+import java.util.Arrays;
+
+/**
+ * {@link UserTable} keeping its columns in int arrays on the Java heap.
+ * <p>
+ *     The username column doubles as the string dictionary of the username index: the index is an int array
+ *     of open addressing slots holding row + 1, probed linearly from the username's hash, so a row costs
+ *     the username reference and two slot ints instead of a boxed Integer and a hash map entry.
+ *     The usernames are the same String objects as the profiles' ones, so they are not stored twice.
+ * </p>
+ */
+public class HeapUserTable extends UserTable {
+    /** initial number of rows when no capacity is given */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /** username of every row */
+    private String[] usernames;
+    /** username index, row + 1 in the slot the username hashes to or a later one, 0 for an empty slot */
+    private int[] slots;
+    /** permission code of every row */
+    private int[] permissionCodes;
+    /** group code of every row */
+    private int[] groupCodes;
+    /** score columns, one int array per {@link ScoreCategory} ordinal */
+    private final int[][] scores;
+
+    /**
+     * Constructor for an empty HeapUserTable
+     */
+    public HeapUserTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for an empty HeapUserTable
+     * @param capacity number of rows to allocate up front
+     */
+    public HeapUserTable(int capacity) {
+        capacity = Math.max(1, capacity);
+        usernames = new String[capacity];
+        // at most half full, so probe runs stay short
+        slots = new int[Integer.highestOneBit(capacity) * 4];
+        permissionCodes = new int[capacity];
+        groupCodes = new int[capacity];
+        scores = new int[ScoreCategory.values().length][capacity];
+    }
+
+    /**
+     * Finds the row of a username
+     * @param username username to look for
+     * @return row index, or -1 if the user is not in the table
+     */
+    @Override
+    protected int findRow(String username) {
+        int mask = slots.length - 1;
+        for (int slot = spread(username.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (usernames[entry - 1].equals(username)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Stores the username of a new row, doubling the arrays when they are full
+     * @param row index of the new row
+     * @param username username of the new row
+     */
+    @Override
+    protected void appendRow(int row, String username) {
+        if (row == usernames.length) {
+            int capacity = usernames.length * 2;
+            usernames = Arrays.copyOf(usernames, capacity);
+            permissionCodes = Arrays.copyOf(permissionCodes, capacity);
+            groupCodes = Arrays.copyOf(groupCodes, capacity);
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = Arrays.copyOf(scores[i], capacity);
+            }
+        }
+        usernames[row] = username;
+        if ((row + 1) * 2 > slots.length) {
+            // rebuild at twice the size, the usernames hash to new slots
+            slots = new int[slots.length * 2];
+            for (int i = 0; i < row; i++) {
+                insertSlot(usernames[i].hashCode(), i);
+            }
+        }
+        insertSlot(username.hashCode(), row);
+    }
+
+    /**
+     * Puts a row in the first free slot after its hash
+     * @param hash hash code of the username
+     * @param row row index
+     */
+    private void insertSlot(int hash, int row) {
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = row + 1;
+    }
+
+    /**
+     * Reads the username of a row
+     * @param row row index
+     * @return username
+     */
+    @Override
+    protected String usernameAt(int row) {
+        return usernames[row];
+    }
+
+    /**
+     * Reads one score
+     * @param column score column
+     * @param row row index
+     * @return score
+     */
+    @Override
+    protected int scoreAt(int column, int row) {
+        return scores[column][row];
+    }
+
+    /**
+     * Writes one score
+     * @param column score column
+     * @param row row index
+     * @param score score to write
+     */
+    @Override
+    protected void setScore(int column, int row, int score) {
+        scores[column][row] = score;
+    }
+
+    /**
+     * Reads the permission code of a row
+     * @param row row index
+     * @return permission code
+     */
+    @Override
+    protected int permissionCodeAt(int row) {
+        return permissionCodes[row];
+    }
+
+    /**
+     * Writes the permission code of a row
+     * @param row row index
+     * @param code permission code
+     */
+    @Override
+    protected void setPermissionCode(int row, int code) {
+        permissionCodes[row] = code;
+    }
+
+    /**
+     * Reads the group code of a row
+     * @param row row index
+     * @return group code
+     */
+    @Override
+    protected int groupCodeAt(int row) {
+        return groupCodes[row];
+    }
+
+    /**
+     * Writes the group code of a row
+     * @param row row index
+     * @param code group code
+     */
+    @Override
+    protected void setGroupCode(int row, int code) {
+        groupCodes[row] = code;
+    }
+}
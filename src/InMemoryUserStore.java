@@ -0,0 +1,168 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * User store that never touches the disk, used by tests and benchmarks.
+ * <p>
+ *     It can start from a copy of a users.json file, which is only read, never written.
+ * </p>
+ */
+public class InMemoryUserStore implements RandomAccessUserStore {
+    /** users.json file to start from, or null to start empty */
+    private final File seedFile;
+    /** saved profiles */
+    private Map<String, UserProfile> profiles;
+    /** number of profiles saved, so benchmarks can check the work done */
+    private long profilesSaved;
+
+    /**
+     * Creates an empty store
+     */
+    public InMemoryUserStore() {
+        this(null);
+    }
+
+    /**
+     * Creates a store that starts from a copy of a users.json file
+     * @param seedFile users.json file to read on the first load, or null to start empty
+     */
+    public InMemoryUserStore(File seedFile) {
+        this.seedFile = seedFile;
+    }
+
+    /**
+     * Loads every stored profile, reading the seed file the first time
+     * @return map of username to profile
+     * @throws IOException when the seed file cannot be read
+     */
+    @Override
+    public synchronized Map<String, UserProfile> loadAll() throws IOException {
+        return new ConcurrentHashMap<>(profiles());
+    }
+
+    /**
+     * Hands every stored profile to the consumer without copying the map
+     * @param consumer called once per stored user
+     * @throws IOException when the seed file cannot be read
+     */
+    @Override
+    public synchronized void scanScores(Consumer<UserScores> consumer) throws IOException {
+        for (UserProfile userProfile : profiles().values()) {
+            consumer.accept(userProfile);
+        }
+    }
+
+    /**
+     * Reads one stored profile
+     * @param username username of the profile
+     * @return the profile, or null if there is no such user
+     * @throws IOException when the seed file cannot be read
+     */
+    @Override
+    public synchronized UserProfile load(String username) throws IOException {
+        return profiles().get(username);
+    }
+
+    /**
+     * Checks whether a user is stored
+     * @param username username to look for
+     * @return true if the user is stored, false if the seed file cannot be read
+     */
+    @Override
+    public synchronized boolean contains(String username) {
+        try {
+            return profiles().containsKey(username);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Gets the number of stored users
+     * @return number of users, 0 if the seed file cannot be read
+     */
+    @Override
+    public synchronized int size() {
+        try {
+            return profiles().size();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * Gets every stored username
+     * @return copy of the usernames, empty if the seed file cannot be read
+     */
+    @Override
+    public synchronized List<String> usernames() {
+        try {
+            return new ArrayList<>(profiles().keySet());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Saves changed profiles in memory
+     * @param changed profiles to save
+     * @throws IOException when the seed file cannot be read
+     */
+    @Override
+    public synchronized void save(Collection<UserProfile> changed) throws IOException {
+        Map<String, UserProfile> stored = profiles();
+        for (UserProfile userProfile : changed) {
+            stored.put(userProfile.getUsername(), userProfile);
+        }
+        profilesSaved += changed.size();
+    }
+
+    /**
+     * Replaces the stored profiles in memory
+     * @param all every profile
+     * @throws IOException never, the seed file is not read again
+     */
+    @Override
+    public synchronized void saveAll(Collection<UserProfile> all) throws IOException {
+        profiles = new ConcurrentHashMap<>();
+        save(all);
+    }
+
+    /**
+     * Gets the stored profiles, reading the seed file the first time
+     * @return stored profiles
+     * @throws IOException when the seed file cannot be read
+     */
+    private Map<String, UserProfile> profiles() throws IOException {
+        if (profiles == null) {
+            profiles = seedFile == null ? new ConcurrentHashMap<>() : new StreamingUserLoader(true).load(seedFile);
+        }
+        return profiles;
+    }
+
+    /**
+     * Gets the number of profiles saved since the store was created
+     * @return number of profiles saved
+     */
+    public synchronized long getProfilesSaved() {
+        return profilesSaved;
+    }
+
+    /**
+     * Gets the number of profiles saved since the store was created
+     * @return number of profiles saved
+     */
+    @Override
+    public synchronized long getRecordsWritten() {
+        return profilesSaved;
+    }
+}
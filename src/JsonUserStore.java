@@ -0,0 +1,306 @@
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * User store backed by the users.json snapshot, optionally with an append-only {@link ScoreJournal}.
+ * <p>
+ *     Without a journal every save rewrites users.json and the journal file is never opened; a journal left
+ *     behind by an earlier journaled game is read once and deleted when the next snapshot holds its records.
+ *     With a journal each changed profile is appended as one record, and the journal is folded into the
+ *     snapshot once it holds enough records.
+ *     Loading streams the snapshot with a {@link StreamingUserLoader} and replays the journal tail.
+ *     Set the honk.parallelLoad system property to true to parse large snapshots on every core with a
+ *     {@link ParallelUserLoader} instead, on machines where UserLoadBenchmark shows it is faster.
+ * </p>
+ * <p>
+ *     Several game instances can share the files. Writes hold a {@link UserFileLock}, and a snapshot is
+ *     written by reading the latest snapshot and journal and merging this instance's profiles into it
+ *     with {@link UserMerge}, so one instance never wipes out the scores saved by another.
+ * </p>
+ */
+public class JsonUserStore implements UserStore {
+    /** number of journal records that triggers a compaction */
+    private static final int COMPACT_THRESHOLD = 500;
+    /** snapshot size from which loading may be split across cores, smaller files load faster on one thread */
+    private static final long PARALLEL_LOAD_BYTES = 8L << 20;
+
+    /** json file path */
+    private final String jsonFilePath;
+    /** journal file path */
+    private final String journalFilePath;
+    /** true to append changes to the journal */
+    private final boolean journaled;
+    /** journal of changes, null when every save rewrites users.json */
+    private ScoreJournal journal;
+    /** true when saved changes are not in the snapshot or journal yet */
+    private boolean snapshotNeeded;
+    /** last modified time and length of the snapshot when it was last read or written */
+    private long snapshotStamp;
+    /** lock shared with other game instances writing the same files */
+    private final UserFileLock lock;
+    /** number of users changed by this and another game instance at the same time */
+    private int conflicts;
+    /** number of records written to the snapshot and journal */
+    private long recordsWritten;
+
+    /**
+     * Constructor for JsonUserStore using json_files/users.json
+     * @param journaled true to append changes to users.journal instead of rewriting users.json
+     */
+    public JsonUserStore(boolean journaled) {
+        this("json_files/users.json", "json_files/users.journal", journaled);
+    }
+
+    /**
+     * Constructor for JsonUserStore
+     * @param jsonFilePath path of the users.json snapshot
+     * @param journalFilePath path of the journal
+     * @param journaled true to append changes to the journal instead of rewriting the snapshot
+     */
+    public JsonUserStore(String jsonFilePath, String journalFilePath, boolean journaled) {
+        this.jsonFilePath = jsonFilePath;
+        this.journalFilePath = journalFilePath;
+        this.journaled = journaled;
+        this.lock = new UserFileLock(new File(jsonFilePath + ".lock"));
+    }
+
+    /**
+     * Streams the snapshot into a pre-sized map, in parallel when it is large and parallel loading is on,
+     * and replays the changes journaled after it was written
+     * @return map of username to profile
+     * @throws IOException when the snapshot or journal cannot be read
+     */
+    @Override
+    public synchronized Map<String, UserProfile> loadAll() throws IOException {
+        File jsonFile = new File(jsonFilePath);
+        snapshotStamp = stamp(jsonFile);
+        Map<String, UserProfile> userProfileMap = readSnapshot(jsonFile);
+        replayJournal(userProfileMap);
+        return userProfileMap;
+    }
+
+    /**
+     * Gets users.json and the journal
+     * @return the snapshot and journal files
+     */
+    @Override
+    public List<Path> watchedFiles() {
+        return Arrays.asList(Paths.get(jsonFilePath), Paths.get(journalFilePath));
+    }
+
+    /**
+     * Reads the users again after another game instance saved.
+     * When only the journal changed just the journaled users are read, otherwise everything is loaded again.
+     * @param changedFiles watched files that changed
+     * @return map of username to profile for the users that may have changed
+     * @throws IOException when the snapshot or journal cannot be read
+     */
+    @Override
+    public synchronized Map<String, UserProfile> reload(Collection<Path> changedFiles) throws IOException {
+        if (stamp(new File(jsonFilePath)) != snapshotStamp) {
+            return loadAll();
+        }
+        Map<String, UserProfile> journaledUsers = new HashMap<>();
+        replayJournal(journaledUsers);
+        return journaledUsers;
+    }
+
+    /**
+     * Appends the changed profiles to the journal with a new version each.
+     * Without a journal they are merged into the latest snapshot, which is written again.
+     * @param changed profiles to save
+     * @throws IOException when the files cannot be locked, read or written
+     */
+    @Override
+    public synchronized void save(Collection<UserProfile> changed) throws IOException {
+        UserFileLock.Held held = lock.acquire();
+        try {
+            if (!journaled) {
+                Map<String, UserProfile> latest = readLatest();
+                conflicts += UserMerge.merge(latest, changed, true);
+                writeSnapshot(new ArrayList<>(latest.values()));
+                return;
+            }
+            if (journal == null) {
+                journal = new ScoreJournal(journalFilePath);
+            }
+            // replay keeps the record with the highest version
+            for (UserProfile userProfile : changed) {
+                userProfile.setVersion(userProfile.getVersion() + 1);
+                journal.append(userProfile);
+            }
+            recordsWritten += changed.size();
+        } finally {
+            held.close();
+        }
+        if (journal.size() >= COMPACT_THRESHOLD) {
+            snapshotNeeded = true;
+        }
+    }
+
+    /**
+     * Merges every profile into the latest snapshot and journal, writes the snapshot and empties the journal.
+     * Profiles that another game instance saved with a newer version keep the saved scores.
+     * The profiles are copied before the journal is rotated, so any change missing from the copy
+     * is saved to the fresh journal afterwards.
+     * @param all every profile
+     * @throws IOException when the files cannot be locked, read or rotated
+     */
+    @Override
+    public synchronized void saveAll(Collection<UserProfile> all) throws IOException {
+        List<UserProfile> userProfileList = new ArrayList<>(all);
+        snapshotNeeded = false;
+        UserFileLock.Held held = lock.acquire();
+        try {
+            Map<String, UserProfile> latest = readLatest();
+            UserMerge.merge(latest, userProfileList, false);
+            if (!journaled) {
+                writeSnapshot(new ArrayList<>(latest.values()));
+                return;
+            }
+            journal.rotate();
+            if (writeSnapshot(new ArrayList<>(latest.values()))) {
+                journal.deleteRotated();
+            }
+        } finally {
+            held.close();
+        }
+    }
+
+    /**
+     * Gets the number of users that this and another game instance changed at the same time,
+     * the save of this instance won each of them
+     * @return number of conflicting saves
+     */
+    public synchronized int getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Gets the number of records written to the snapshot and journal
+     * @return number of records written
+     */
+    @Override
+    public synchronized long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * Tells the Database to write a snapshot when there is no journal or the journal has grown large
+     * @return true if a snapshot should be written
+     */
+    @Override
+    public synchronized boolean needsSnapshot() {
+        return snapshotNeeded;
+    }
+
+    /**
+     * Closes the journal
+     * @throws IOException when the journal cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Reads a snapshot, in parallel when it is large and parallel loading is turned on
+     * @param jsonFile snapshot to read
+     * @return map of username to profile
+     * @throws IOException when the snapshot cannot be read
+     */
+    private static Map<String, UserProfile> readSnapshot(File jsonFile) throws IOException {
+        boolean parallel = Boolean.getBoolean("honk.parallelLoad") && jsonFile.length() >= PARALLEL_LOAD_BYTES
+                && Runtime.getRuntime().availableProcessors() > 1;
+        return parallel
+                ? new ParallelUserLoader().load(jsonFile)
+                : new StreamingUserLoader(true).load(jsonFile);
+    }
+
+    /**
+     * Reads the latest saved state of every user, including changes saved by other game instances.
+     * Called with the lock held.
+     * @return map of username to profile, empty when nothing was saved yet
+     * @throws IOException when the snapshot or journal cannot be read
+     */
+    private Map<String, UserProfile> readLatest() throws IOException {
+        File jsonFile = new File(jsonFilePath);
+        Map<String, UserProfile> latest = jsonFile.exists() ? readSnapshot(jsonFile) : new HashMap<>();
+        replayJournal(latest);
+        return latest;
+    }
+
+    /**
+     * Replays the journal into a map. A journaled store keeps the journal open for appending,
+     * otherwise only a journal left behind by a journaled game is read.
+     * @param userProfileMap map updated in place
+     * @throws IOException when the journal cannot be read or opened
+     */
+    private void replayJournal(Map<String, UserProfile> userProfileMap) throws IOException {
+        if (!journaled) {
+            ScoreJournal.replayLeftover(journalFilePath, userProfileMap);
+            return;
+        }
+        if (journal == null) {
+            journal = new ScoreJournal(journalFilePath);
+        }
+        journal.replay(userProfileMap);
+    }
+
+    /**
+     * Combines the last modified time and length of a file, so a rewrite is noticed even within the same second
+     * @param file file to stamp
+     * @return stamp of the file, 0 if it does not exist
+     */
+    static long stamp(File file) {
+        return file.lastModified() * 31 + file.length();
+    }
+
+    /**
+     * Writes the users to a temporary file and moves it over users.json,
+     * so a crash while saving never leaves a half written snapshot
+     * @param userProfileList users to write
+     * @return true if the snapshot was written
+     */
+    private boolean writeSnapshot(List<UserProfile> userProfileList) {
+        try {
+            writeJson(jsonFilePath, userProfileList);
+            snapshotStamp = stamp(new File(jsonFilePath));
+            if (!journaled) {
+                // the snapshot was merged with any leftover journal, which would otherwise be replayed forever
+                ScoreJournal.deleteLeftover(journalFilePath);
+            }
+            recordsWritten += userProfileList.size();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Writes users as pretty printed json to a temporary file and moves it over the target file
+     * @param path file to replace
+     * @param userProfiles users to write
+     * @throws IOException when the file cannot be written or moved
+     */
+    static void writeJson(String path, Collection<UserProfile> userProfiles) throws IOException {
+        File tempFile = new File(path + ".tmp");
+
+        //create file writer
+        try (FileWriter fileWriter = new FileWriter(tempFile)) {
+            // Create Gson instance with pretty printing
+            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+            // Serialize the list to JSON and write to file
+            gson.toJson(userProfiles, fileWriter);
+        }
+
+        Files.move(tempFile.toPath(), Paths.get(path), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,258 @@
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Map view of the users in a {@link RandomAccessUserStore} that keeps only a bounded number of profiles in memory.
+ * <p>
+ *     The store keeps the username index, full profiles are read on demand into a least recently used cache.
+ *     Changed profiles stay in the cache as dirty entries until {@link #flush()} writes them back,
+ *     or until they are evicted, which writes them back first. Memory therefore stays flat however many
+ *     students are on the roster, while the logged in student and the leaderboard entries stay cached.
+ * </p>
+ * <p>
+ *     Iterating over the map reads every profile from the store without caching it, so a full scan
+ *     does not push the users that are actually in use out of the cache.
+ * </p>
+ */
+public class LazyUserProfileMap extends AbstractMap<String, UserProfile> {
+    /** store holding every profile */
+    private final RandomAccessUserStore store;
+    /** most number of profiles held in memory */
+    private final int cacheSize;
+    /** cached profiles in access order, the eldest is evicted first */
+    private final LinkedHashMap<String, UserProfile> cache;
+    /** usernames of cached profiles that changed since they were last written */
+    private final Set<String> dirty = new LinkedHashSet<>();
+    /** number of lookups answered from the cache */
+    private long hits;
+    /** number of lookups that read the store */
+    private long misses;
+    /** number of profiles written back because they were evicted */
+    private long evictionWrites;
+
+    /**
+     * Constructor for LazyUserProfileMap
+     * @param store store holding every profile
+     * @param cacheSize most number of profiles held in memory
+     */
+    public LazyUserProfileMap(RandomAccessUserStore store, int cacheSize) {
+        this.store = store;
+        this.cacheSize = Math.max(1, cacheSize);
+        this.cache = new LinkedHashMap<String, UserProfile>(this.cacheSize * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UserProfile> eldest) {
+                return size() > LazyUserProfileMap.this.cacheSize && evict(eldest.getValue());
+            }
+        };
+    }
+
+    /**
+     * Gets a profile from the cache, or reads it from the store and caches it
+     * @param key username
+     * @return the profile, or null if there is no such user
+     */
+    @Override
+    public synchronized UserProfile get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        UserProfile userProfile = cache.get(key);
+        if (userProfile != null) {
+            hits++;
+            return userProfile;
+        }
+        misses++;
+        userProfile = read((String) key);
+        if (userProfile != null) {
+            cache.put((String) key, userProfile);
+        }
+        return userProfile;
+    }
+
+    /**
+     * Caches a new or changed profile and marks it to be written back
+     * @param key username
+     * @param userProfile profile
+     * @return always null, the previous profile is not read from the store
+     */
+    @Override
+    public synchronized UserProfile put(String key, UserProfile userProfile) {
+        // mark dirty first, the put may evict the eldest entry which looks at the dirty set
+        dirty.add(key);
+        cache.put(key, userProfile);
+        return null;
+    }
+
+    /**
+     * Checks whether a user exists, without reading the profile
+     * @param key username
+     * @return true if the user is cached or stored
+     */
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        return key instanceof String && (cache.containsKey(key) || store.contains((String) key));
+    }
+
+    /**
+     * Gets the number of users, including new users that are not written back yet
+     * @return number of users
+     */
+    @Override
+    public synchronized int size() {
+        return store.size() + unsavedUsers().size();
+    }
+
+    /**
+     * Gets a view of every user. Profiles that are not cached are read from the store while iterating
+     * and are not added to the cache, and iterating does not change which cached profile is evicted next.
+     * @return entry set view
+     */
+    @Override
+    public Set<Map.Entry<String, UserProfile>> entrySet() {
+        return new AbstractSet<Map.Entry<String, UserProfile>>() {
+            @Override
+            public Iterator<Map.Entry<String, UserProfile>> iterator() {
+                List<String> usernames;
+                Map<String, UserProfile> cached;
+                synchronized (LazyUserProfileMap.this) {
+                    usernames = store.usernames();
+                    usernames.addAll(unsavedUsers());
+                    // looking profiles up in the access ordered cache would make every one of them recently used,
+                    // so the scan reads a copy of it and leaves the eviction order alone
+                    cached = new HashMap<>(cache);
+                }
+                Iterator<String> usernameIterator = usernames.iterator();
+                return new Iterator<Map.Entry<String, UserProfile>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return usernameIterator.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, UserProfile> next() {
+                        String username = usernameIterator.next();
+                        UserProfile userProfile = cached.get(username);
+                        return new AbstractMap.SimpleImmutableEntry<>(username, userProfile != null ? userProfile : read(username));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return LazyUserProfileMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * Writes every dirty profile back to the store
+     * @throws IOException when the store cannot be written, the profiles stay dirty
+     */
+    public synchronized void flush() throws IOException {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<UserProfile> changed = new ArrayList<>(dirty.size());
+        for (String username : dirty) {
+            changed.add(cache.get(username));
+        }
+        store.save(changed);
+        dirty.clear();
+    }
+
+    /**
+     * Gets a copy of the profiles held in memory
+     * @return cached profiles
+     */
+    public synchronized List<UserProfile> cachedProfiles() {
+        return new ArrayList<>(cache.values());
+    }
+
+    /**
+     * Gets the number of profiles held in memory
+     * @return number of cached profiles
+     */
+    public synchronized int getCachedCount() {
+        return cache.size();
+    }
+
+    /**
+     * Gets the number of changed profiles that are not written back yet
+     * @return number of dirty profiles
+     */
+    public synchronized int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache
+     * @return cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that read the store
+     * @return cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of profiles written back because they were evicted while dirty
+     * @return eviction write backs
+     */
+    public synchronized long getEvictionWrites() {
+        return evictionWrites;
+    }
+
+    /**
+     * Writes an evicted profile back to the store if it changed, called while the cache evicts its eldest entry
+     * @param userProfile evicted profile
+     * @return true to remove it from the cache, false to keep it when it could not be written
+     */
+    private boolean evict(UserProfile userProfile) {
+        if (!dirty.contains(userProfile.getUsername())) {
+            return true;
+        }
+        try {
+            store.save(Collections.singletonList(userProfile));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        dirty.remove(userProfile.getUsername());
+        evictionWrites++;
+        return true;
+    }
+
+    /**
+     * Reads a profile from the store
+     * @param username username
+     * @return stored profile, or null if there is no such user or it cannot be read
+     */
+    private UserProfile read(String username) {
+        try {
+            return store.load(username);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Gets the dirty users that the store does not know about yet
+     * @return usernames of new users waiting to be written back
+     */
+    private List<String> unsavedUsers() {
+        List<String> unsaved = new ArrayList<>();
+        for (String username : dirty) {
+            if (!store.contains(username)) {
+                unsaved.add(username);
+            }
+        }
+        return unsaved;
+    }
+}
@@ -0,0 +1,141 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for the {@link LazyUserProfileMap} class.
+ */
+public class LazyUserProfileMapTest {
+
+    /**
+     * Creates a store holding the given number of students
+     * @param users number of students
+     * @return store holding the students
+     */
+    private static InMemoryUserStore createStore(int users) throws IOException {
+        List<UserProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            profiles.add(new UserProfile("student" + i, "pw" + i, "Student", i, i, 0, 0));
+        }
+        InMemoryUserStore store = new InMemoryUserStore();
+        store.saveAll(profiles);
+        return store;
+    }
+
+    /**
+     * Reading every user keeps at most the cache size in memory, and repeated reads hit the cache.
+     */
+    @Test
+    public void testCacheStaysBounded() throws IOException {
+        LazyUserProfileMap userProfileMap = new LazyUserProfileMap(createStore(100), 10);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("pw" + i, userProfileMap.get("student" + i).getPassword());
+        }
+        assertEquals(10, userProfileMap.getCachedCount());
+        assertEquals(100, userProfileMap.getMisses());
+
+        userProfileMap.get("student99");
+        assertEquals(1, userProfileMap.getHits());
+        assertNull(userProfileMap.get("nobody"));
+        assertTrue(userProfileMap.containsKey("student0"));
+        assertEquals(100, userProfileMap.size());
+
+        // iterating reads through the store without evicting the cached users
+        assertEquals(100, userProfileMap.values().size());
+        int seen = 0;
+        for (UserProfile userProfile : userProfileMap.values()) {
+            assertNotNull(userProfile);
+            seen++;
+        }
+        assertEquals(100, seen);
+        assertEquals(10, userProfileMap.getCachedCount());
+    }
+
+    /**
+     * Changed users are written back when they are evicted or flushed, new users count before they are written.
+     */
+    @Test
+    public void testWriteBack() throws IOException {
+        InMemoryUserStore store = createStore(50);
+        LazyUserProfileMap userProfileMap = new LazyUserProfileMap(store, 5);
+
+        UserProfile first = userProfileMap.get("student0");
+        first.setMiddlesexScore(500);
+        userProfileMap.put(first.getUsername(), first);
+        userProfileMap.put("newcomer", new UserProfile("newcomer", "goose", "Student", 0, 0, 0, 0));
+        assertEquals(51, userProfileMap.size());
+        assertEquals(2, userProfileMap.getDirtyCount());
+        assertNull(store.load("newcomer"));
+
+        // reading other users pushes student0 out of the cache, which writes it back
+        for (int i = 1; i <= 5; i++) {
+            userProfileMap.get("student" + i);
+        }
+        assertEquals(2, userProfileMap.getEvictionWrites());
+        assertEquals(500, store.load("student0").getMiddlesexScore());
+        assertNotNull(store.load("newcomer"));
+        assertEquals(0, userProfileMap.getDirtyCount());
+
+        UserProfile second = userProfileMap.get("student3");
+        second.setTotalScore(42);
+        userProfileMap.put(second.getUsername(), second);
+        userProfileMap.flush();
+        assertEquals(0, userProfileMap.getDirtyCount());
+        assertEquals(42, store.load("student3").getTotalScore());
+        assertEquals(51, userProfileMap.size());
+    }
+
+    /**
+     * A database with a user cache logs in and saves users without loading the whole roster.
+     */
+    @Test
+    public void testDatabaseWithUserCache() throws IOException {
+        InMemoryUserStore store = createStore(200);
+        Database database = new Database(store, false, 20);
+        assertTrue(database.getUserProfileMap() instanceof LazyUserProfileMap);
+        LazyUserProfileMap userProfileMap = (LazyUserProfileMap) database.getUserProfileMap();
+
+        // the leaderboard is built from the store's records, without reading a profile into the cache
+        assertEquals("student199", database.topUsers(ScoreCategory.TOTAL).get(0).getUsername());
+        assertEquals(0, userProfileMap.getMisses());
+        assertEquals(0, userProfileMap.getCachedCount());
+
+        assertNotNull(database.searchUser("student7", "pw7", "Student"));
+        assertNull(database.searchUser("gosling", "goose", "Student"));
+        assertNotNull(store.load("gosling"));
+
+        UserProfile userProfile = database.getUserProfileMap().get("student7");
+        userProfile.setMiddlesexScore(99);
+        database.updateUser(userProfile);
+        assertEquals(99, store.load("student7").getMiddlesexScore());
+        assertEquals("student199", database.topUsers("MiddlesexScore").get(0).getUsername());
+    }
+
+    /**
+     * Iterating over every user leaves the least recently used cached profile to be evicted next.
+     */
+    @Test
+    public void testIterationKeepsEvictionOrder() throws IOException {
+        // both orders, so the check does not depend on the order the store lists the users in
+        String[][] orders = {{"student1", "student2"}, {"student2", "student1"}};
+        for (String[] order : orders) {
+            LazyUserProfileMap userProfileMap = new LazyUserProfileMap(createStore(10), 2);
+            userProfileMap.get(order[0]);
+            userProfileMap.get(order[1]);
+            for (UserProfile userProfile : userProfileMap.values()) {
+                assertNotNull(userProfile);
+            }
+            userProfileMap.get("student3");
+
+            List<String> cached = new ArrayList<>();
+            for (UserProfile userProfile : userProfileMap.cachedProfiles()) {
+                cached.add(userProfile.getUsername());
+            }
+            assertEquals(Arrays.asList(order[1], "student3"), cached);
+        }
+    }
+}
@@ -1,10 +1,8 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.*;
 import java.io.*;
-import javax.imageio.ImageIO;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.Objects;
 
 /**
  *Display a leaderboard that shows the top total scores of players in the game.
@@ -14,17 +12,29 @@ import java.util.ArrayList;
  * </p>
  * @author Tyler Inwood
  */
-public class Leaderboard extends JPanel {
-    /** display object */
-    private final Display display;
-    /** database user profile */
-    Database database = new Database();
-    /** background image for leaderboard screen*/
-    private Image leaderboard;
-    /** font for the leaderboard text */
-    private Font pixelFont;
-    /** List containing the top total scores of all users */
-    List<UserProfile> topTotalScore = database.topUsers("TotalScore");
+public class Leaderboard extends LeaderboardView {
+    /** every user below the podium, read a page at a time while scrolling */
+    private LeaderboardPageModel rankingModel;
+    /** list of every user below the podium */
+    private final JList<LeaderboardEntry> rankingList;
+    /** users below the podium in a daily or weekly window */
+    private final DefaultListModel<LeaderboardEntry> windowModel = new DefaultListModel<>();
+    /** tabs choosing the time window, in the order of {@link #TAB_WINDOWS} */
+    private final JButton[] windowTabs = new JButton[3];
+    /** selector choosing the class or section */
+    private final JComboBox<String> groupSelector = new JComboBox<>();
+    /** time window the leaderboard ranks by, read by the refresh thread */
+    private volatile ScoreWindow window = ScoreWindow.ALL_TIME;
+    /** class or section the leaderboard ranks, null for every user, read by the refresh thread */
+    private volatile String group;
+    /** time windows of the tabs */
+    private static final ScoreWindow[] TAB_WINDOWS = {ScoreWindow.ALL_TIME, ScoreWindow.THIS_WEEK, ScoreWindow.TODAY};
+    /** most number of users shown for a daily or weekly window */
+    private static final int WINDOW_LIMIT = 100;
+    /** selector entry standing for every user */
+    private static final String ALL_GROUPS = "all classes";
+    /** colour of the selected tab */
+    private static final Color SELECTED = new Color(246, 195, 42);
 
     /**
      * Constructor, creates the UI of leaderboard screen.
@@ -33,312 +43,237 @@ public class Leaderboard extends JPanel {
      * @throws FileNotFoundException when background image cannot be found
      */
     public Leaderboard(Display display) throws FileNotFoundException {
-        this.display = display;
-        setLayout(null);
+        super(display, "Leaderboard", 77, 16);
 
-        // Load the background image
-        try {
-            leaderboard = ImageIO.read(new File("media/leaderboard.png"));
-        } catch (IOException e) {
-            System.out.println("Could not find image");
-        }
-
-        //load pixelhugger
-        try {
-            File pixelHuggerFile = new File("media/PixelHugger.otf");
-            pixelFont = Font.createFont(Font.TRUETYPE_FONT, pixelHuggerFile).deriveFont(Font.PLAIN, 18);
-        } catch (IOException | FontFormatException e) {
-            // Handle font loading errors
-            e.printStackTrace();
-        }
-
-        // create UI elements
-        createPodium();
+        rankingModel = new LeaderboardPageModel(database.getUserTable(), ScoreCategory.TOTAL, 3);
+        rankingList = new JList<>(rankingModel);
         createList();
-        createLabels();
+        createWindowTabs();
+        createGroupSelector();
 
-        // add the description text :D
-        JTextArea desc = new JTextArea();
-        basicTextSettings(desc);
-        desc.setFont(pixelFont.deriveFont(0, 16));
-        desc.setBounds(61,207,296,232);
-        desc.setForeground(Color.BLACK);
-        desc.append("Ready to spread your wings and soar to the top of our leaderboard? Remember, every practice session " +
-                "is a step closer to laying the golden egg of success. Let's HONK! our way to the top together.");
-        add(desc);
-
-        // make the escape key exit (same as back to game button)
-        InputMap inputMap = getInputMap(WHEN_IN_FOCUSED_WINDOW);
-        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "escapePressed");
-        ActionMap actionMap = getActionMap();
-        actionMap.put("escapePressed", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                showScreen("MainMap");
-            }
-        });
+        refreshNow();
     }
 
     /**
-     * Creates a podium UI
+     * Gets the podium, or for a daily or weekly window every user shown
+     * @return entries highest first
      */
-    private void createPodium() {
-
-        createPodiumText(558, 272, 0);
-        createPodiumText(388, 300, 1);
-        createPodiumText(738, 326, 2);
+    @Override
+    protected List<LeaderboardEntry> readStandings() {
+        ScoreWindow currentWindow = window;
+        return database.topUsers(currentWindow, ScoreCategory.TOTAL, group,
+                currentWindow == ScoreWindow.ALL_TIME ? 3 : WINDOW_LIMIT);
     }
 
     /**
-     * method to create podium text for top 3 users
-     * @param x coordinate of podium text
-     * @param y coordinate of podium text
-     * @param i element of list of the top 3 users
+     * Gets the podium description, which never changes
+     * @return description text
      */
-    private void createPodiumText(int x, int y, int i) {
-
-        // find the user at position i & see if they exist
-        List<Object> winner = findUser(i);
-
-        // would either grab name or the score
-        String name = (String) winner.get(0);
-        String score = winner.get(1).toString();
-
-        // generate text box's generic wrapping & styling
-        JTextArea nameBox = new JTextArea();
-        basicTextSettings(nameBox);
-        nameBox.setFont(new Font("Helvetica", Font.BOLD, 28));
-        nameBox.setBounds(x,y, 190, 76);
-        nameBox.append(name);
-        nameBox.setForeground(Color.WHITE);
-        add(nameBox);
-
-        // create text area
-        JTextArea scoreBox = new JTextArea();
-        basicTextSettings(scoreBox);
-        scoreBox.setFont(pixelFont.deriveFont(0, 17));
-        scoreBox.setBounds(x, y + 30, 190, 76);
-        scoreBox.append("total score: " + score);
-        scoreBox.setForeground(Color.WHITE);
-        add(scoreBox);
+    @Override
+    protected String readDescription() {
+        return "Ready to spread your wings and soar to the top of our leaderboard? Remember, every practice session " +
+                "is a step closer to laying the golden egg of success. Let's HONK! our way to the top together.";
     }
 
     /**
-     * Creates a list that will hold the top users
+     * Gets the category the leaderboard ranks by
+     * @return total score
      */
-    private void createList() {
-
-        int yGap = 40;
-        int secondYGap = 40;
-
-        // starting y position
-        int yBoundStart = 512;
-        int secondYBoundStart = 510;
-
-        // loop through the rest of the top 7
-        for (int i = 3; i < 7; i++) {
-            createListPodiumText(412, yBoundStart, 707, secondYBoundStart, i);
-
-            yBoundStart += yGap;
-            secondYBoundStart += secondYGap;
-        }
+    @Override
+    protected ScoreCategory getCategory() {
+        return ScoreCategory.TOTAL;
     }
 
     /**
-     * this method is to create the rest of the users (not podium) text group (text no background)
-     * @param x coordinate of the text
-     * @param y coordinate of the text
-     * @param x2 coordinate of the other text
-     * @param y2 coordinate of the other text
-     * @param i rank of the user (placement within the top 7)
+     * Gets the text shown before a score, naming the selected window
+     * @return score prefix
      */
-    private void createListPodiumText(int x, int y, int x2, int y2, int i) {
-
-        // find the user at position i & see if they exist
-        List<Object> winner = findUser(i);
-
-        // would either grab name or the score
-        String name = (String) winner.get(0);
-        String score = winner.get(1).toString();
-
-        // generate text box's generic wrapping & styling
-        JTextArea nameBox = new JTextArea();
-        basicTextSettings(nameBox);
-        nameBox.setFont(new Font("Helvetica", Font.BOLD, 26));
-        nameBox.setBounds(x,y, 311, 76);
-        nameBox.append(i+1 + ".  " + name);
-        nameBox.setForeground(Color.WHITE);
-        add(nameBox);
-
-        // create score box
-        JTextArea scoreBox = new JTextArea();
-        basicTextSettings(scoreBox);
-        scoreBox.setFont(pixelFont);
-        scoreBox.setBounds(x2, y2, 180, 58);
-        scoreBox.append("total score: " + score);
-        scoreBox.setForeground(Color.WHITE);
-        add(scoreBox);
+    @Override
+    protected String scorePrefix() {
+        return window == ScoreWindow.ALL_TIME ? "total score: " : window.getLabel() + ": ";
     }
 
     /**
-     * Method to create labels
+     * Shows the podium, then the users below it: the pages of the whole ranking are read again,
+     * a daily or weekly list only has its changed lines replaced
+     * @param standings entries highest first
      */
-    private void createLabels() {
-
-        // custom label for settings
-        CustomJLabel leaderboardText = new CustomJLabel("Leaderboard", -1.6);
-        leaderboardText.setFont(new Font("Helvetica", Font.BOLD, 77));
-        leaderboardText.setOpaque(false);
-        leaderboardText.setBounds(61, 76, 457, 121);
-        leaderboardText.setLetterSpacing(-3);
-        leaderboardText.setForeground(Color.WHITE);
-        add(leaderboardText);
-
-        // create back button
-        JButton button = new JButton("back");
-        button.setOpaque(false);
-        button.setBorderPainted(false);
-        button.setBounds(724, 20, 194, 77);
-        button.setBackground(new Color(0,0,0,0));
-        button.setFont(new Font("Helvetica", Font.BOLD, 44));
-        button.setForeground(Color.WHITE);
-
-        // add action listener for back button
-        button.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                showScreen("MainMap");
+    @Override
+    protected void showStandings(List<LeaderboardEntry> standings) {
+        super.showStandings(standings);
+        if (window == ScoreWindow.ALL_TIME) {
+            rankingModel.refresh();
+            if (rankingList.getModel() != rankingModel) {
+                rankingList.setModel(rankingModel);
             }
-        });
-        add(button);
-
-        // add rounded corner labels for texts
-        addRoundedCornerLabel(23,30,550,160,509,143,90,90,new Color(130,84,205),-1.6,Color.WHITE,0); // leaderboard label
-        addRoundedCornerLabel(743, 24, 165, 64, 161, 62, 64, 64, new Color(37, 165, 92), 0, Color.WHITE,0);
-        addRoundedCornerLabel( 544, 111,200,360,185,353,35,35,new Color(167,114,242),0,Color.WHITE, 2); // first place podium
-        addRoundedCornerLabel(379, 161,214,310,194,303,35,35,new Color(195,159,245),0,Color.WHITE, 2); // second place podium
-        addRoundedCornerLabel(687, 217,214,260,207,239,35,35,new Color(219,199,248),0,Color.WHITE, 2); // third place podium
-        addRoundedCornerLabel(379, 432,520,300,515,200,28,28,new Color(130,84,205),0,Color.WHITE, 2); // remaining list
+        } else {
+            List<LeaderboardEntry> below = standings.subList(Math.min(3, standings.size()), standings.size());
+            for (int i = 0; i < below.size(); i++) {
+                if (i == windowModel.size()) {
+                    windowModel.addElement(below.get(i));
+                } else if (!windowModel.get(i).equals(below.get(i))) {
+                    windowModel.set(i, below.get(i));
+                }
+            }
+            if (windowModel.size() > below.size()) {
+                windowModel.removeRange(below.size(), windowModel.size() - 1);
+            }
+            if (rankingList.getModel() != windowModel) {
+                rankingList.setModel(windowModel);
+            }
+        }
+        showGroups();
     }
 
     /**
-     * Creates a rounded corner label with given specifications as parameters
-     * @param labelX x coordinate of label
-     * @param labelY y coordinate of label
-     * @param labelWidth width of label
-     * @param labelHeight height of label
-     * @param stickerWidth width of sticker
-     * @param stickerHeight height of sticker
-     * @param arcWidth width of the arc
-     * @param arcHeight height of the arc
-     * @param fillColor background color of the label
-     * @param degrees degree of the label corner
-     * @param borderColor color of the label border
-     * @param borderWidth width of the label border
+     * Refreshes the podium only when the changed user is on it or has just earned a place,
+     * otherwise only the pages of the scrolling list are read again.
+     * Class and daily or weekly views are small, they are always refreshed.
+     * @param userProfile profile that changed
      */
-    private void addRoundedCornerLabel(int labelX, int labelY, int labelWidth, int labelHeight, int stickerWidth, int stickerHeight, int arcWidth, int arcHeight, Color fillColor, double degrees, Color borderColor, int borderWidth) {
-        RoundIcon icon = new RoundIcon(stickerWidth, stickerHeight, arcWidth, arcHeight, fillColor, degrees, borderColor, borderWidth);
-        JLabel label = new JLabel("", icon, JLabel.LEFT);
-        label.setBounds(labelX, labelY, labelWidth + borderWidth, labelHeight + borderWidth); // Adjust bounds to include border width
-        add(label);
+    @Override
+    protected void userChanged(UserProfile userProfile) {
+        if (group != null || window != ScoreWindow.ALL_TIME || affectsBoard(userProfile)) {
+            refresh();
+        } else {
+            rankingModel.refresh();
+        }
     }
 
     /**
-     * Updates the top total scores on the leaderboard
-     * @throws FileNotFoundException for database
+     * Creates a scrolling list of every user below the podium.
+     * The list is created once, a refresh only drops the pages it has read.
      */
-    public void updateTopTotalScore() throws FileNotFoundException {
-        // remove all previous UI elements
-        removeAll();
-
-        // create new database object
-        database = new Database();
-        topTotalScore = database.topUsers("TotalScore");
-
-        //create podium UI elements
-        createPodium();
-        createList();
-        createLabels();
-
-        // add the podium description text
-        JTextArea desc = new JTextArea();
-        basicTextSettings(desc);
-        desc.setFont(pixelFont.deriveFont(0, 16));
-        desc.setBounds(61,207,296,232);
-        desc.setForeground(Color.BLACK);
-        desc.append("Ready to spread your wings and soar to the top of our leaderboard? Remember, every practice session " +
-                "is a step closer to laying the golden egg of success. Let's HONK! our way to the top together.");
-        add(desc);
-
-        // make the escape key exit (same as back to game button)
-        InputMap inputMap = getInputMap(WHEN_IN_FOCUSED_WINDOW);
-        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "escapePressed");
-        ActionMap actionMap = getActionMap();
-        actionMap.put("escapePressed", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                showScreen("MainMap");
-            }
-        });
-
-        repaint();
+    private void createList() {
+        // a fixed size lets the list skip measuring rows, so only the visible rows are read and painted
+        rankingList.setFixedCellHeight(40);
+        rankingList.setFixedCellWidth(460);
+        rankingList.setCellRenderer(new RankingRenderer());
+        rankingList.setOpaque(false);
+        rankingList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        JScrollPane rankingScroll = new JScrollPane(rankingList);
+        rankingScroll.setOpaque(false);
+        rankingScroll.getViewport().setOpaque(false);
+        rankingScroll.setBorder(BorderFactory.createEmptyBorder());
+        rankingScroll.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        rankingScroll.setBounds(399, 492, 480, 180);
+        addOnTop(rankingScroll);
     }
 
     /**
-     * Method to set basic text settings
-     * @param box basic box UI element
+     * Creates the tabs choosing the time window of the leaderboard, the selected one is highlighted
      */
-    private void basicTextSettings(JTextArea box) {
-        box.setLineWrap(true);
-        box.setWrapStyleWord(true);
-        box.setEditable(false);
-        box.setCursor(null);
-        box.setAlignmentX(CENTER_ALIGNMENT);
-        box.setAlignmentY(CENTER_ALIGNMENT);
-        box.setOpaque(false);
+    private void createWindowTabs() {
+        for (int i = 0; i < TAB_WINDOWS.length; i++) {
+            ScoreWindow tabWindow = TAB_WINDOWS[i];
+            JButton tab = new JButton(tabWindow.getLabel());
+            tab.setOpaque(false);
+            tab.setBorderPainted(false);
+            tab.setFocusPainted(false);
+            tab.setMargin(new Insets(0, 0, 0, 0));
+            tab.setBounds(399 + i * 160, 690, 160, 44);
+            tab.setBackground(new Color(0,0,0,0));
+            tab.setFont(new Font("Helvetica", Font.BOLD, 24));
+            tab.setForeground(tabWindow == window ? SELECTED : Color.WHITE);
+            tab.addActionListener(e -> {
+                window = tabWindow;
+                for (int j = 0; j < windowTabs.length; j++) {
+                    windowTabs[j].setForeground(TAB_WINDOWS[j] == window ? SELECTED : Color.WHITE);
+                }
+                refresh();
+            });
+            windowTabs[i] = tab;
+            addOnTop(tab);
+        }
     }
 
     /**
-     * Finds and returns information given a user rank
-     * This information contains the username as well as their total score
-     * @param i rank of user (for the top 3)
-     * @return list with username and score
-     * @author Di Zhou
+     * Creates the selector choosing the class or section the leaderboard ranks.
+     * Choosing a group swaps in a list model reading that group's ranking.
      */
-
-    private List<Object> findUser(int i) {
-        List<Object> winnerInfo = new ArrayList<>();
-        if (i >= 0 && i < topTotalScore.size()) {
-            UserProfile winner = topTotalScore.get(i);
-            winnerInfo.add(winner.getUsername());
-            winnerInfo.add(winner.getTotalScore());
-            return winnerInfo;
-        } else {
-            // If user doesn't exist, return a list with placeholder values
-            List<Object> emptyInfo = new ArrayList<>();
-            emptyInfo.add("No User");   // Placeholder for username
-            emptyInfo.add(0);           // Placeholder for total score
-            return emptyInfo;
-        }
+    private void createGroupSelector() {
+        groupSelector.addItem(ALL_GROUPS);
+        groupSelector.setFont(new Font("Helvetica", Font.BOLD, 18));
+        groupSelector.setBounds(545, 38, 180, 36);
+        groupSelector.addActionListener(e -> {
+            String selected = (String) groupSelector.getSelectedItem();
+            String newGroup = selected == null || ALL_GROUPS.equals(selected) ? null : selected;
+            if (!Objects.equals(group, newGroup)) {
+                group = newGroup;
+                rankingModel = new LeaderboardPageModel(database.getUserTable(), ScoreCategory.TOTAL, group, 3);
+                refresh();
+            }
+        });
+        addOnTop(groupSelector);
     }
 
     /**
-     * Show Screen Method.
-     * Uses show method in display to show screen with given name
-     * Called when switching from one page to another.
-     * @param name of screen in which to switch to
+     * Lists the classes that have students in the selector, rebuilding it when a class gains its first student
+     * or loses its last one. The selected class is kept, and if it emptied the selector goes back to every user.
      */
-    private void showScreen(String name){
-        display.show(name);
+    private void showGroups() {
+        List<String> groups = database.groups();
+        // item 0 is every user, the groups follow in the same order as the list
+        boolean unchanged = groupSelector.getItemCount() == groups.size() + 1;
+        for (int i = 0; unchanged && i < groups.size(); i++) {
+            unchanged = groups.get(i).equals(groupSelector.getItemAt(i + 1));
+        }
+        if (unchanged) {
+            return;
+        }
+        boolean kept = group == null || groups.contains(group);
+        DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>();
+        model.addElement(ALL_GROUPS);
+        model.addAll(groups);
+        model.setSelectedItem(kept && group != null ? group : ALL_GROUPS);
+        groupSelector.setModel(model);
+        if (!kept) {
+            // the listener switches the ranking back to every user
+            groupSelector.setSelectedItem(ALL_GROUPS);
+        }
     }
 
     /**
-     * used to paint the background image
-     * @param g the <code>Graphics</code> object to protect
+     * Renders one line of the scrolling list. A single instance paints every visible line.
      */
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        // Draw the background image at (0, 0) with the same size as the panel
-        g.drawImage(leaderboard, 0, 0, getWidth(), getHeight(), this);
+    private final class RankingRenderer extends JPanel implements ListCellRenderer<LeaderboardEntry> {
+        /** place and username of the line */
+        private final JLabel nameLabel = new JLabel();
+        /** score of the line */
+        private final JLabel scoreLabel = new JLabel();
+
+        /**
+         * Constructor for RankingRenderer
+         */
+        RankingRenderer() {
+            super(new BorderLayout());
+            setOpaque(false);
+            nameLabel.setFont(new Font("Helvetica", Font.BOLD, 26));
+            nameLabel.setForeground(Color.WHITE);
+            scoreLabel.setFont(pixelFont);
+            scoreLabel.setForeground(Color.WHITE);
+            scoreLabel.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 12));
+            add(nameLabel, BorderLayout.CENTER);
+            add(scoreLabel, BorderLayout.EAST);
+        }
+
+        /**
+         * Fills the line with an entry
+         * @param list the list being painted
+         * @param entry entry to show, null while the ranking is changing
+         * @param index list index
+         * @param isSelected true if the line is selected
+         * @param cellHasFocus true if the line has the focus
+         * @return this renderer
+         */
+        @Override
+        public Component getListCellRendererComponent(JList<? extends LeaderboardEntry> list, LeaderboardEntry entry,
+                                                      int index, boolean isSelected, boolean cellHasFocus) {
+            nameLabel.setText(entry == null ? "" : entry.getPosition() + ".  " + entry.getUsername());
+            scoreLabel.setText(entry == null ? "" : scorePrefix() + entry.getScore());
+            nameLabel.setForeground(isSelected ? SELECTED : Color.WHITE);
+            return this;
+        }
     }
-}
\ No newline at end of file
+}
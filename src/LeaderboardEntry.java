@@ -0,0 +1,72 @@
+import java.util.Objects;
+
+/**
+ * One line of a leaderboard: a place, a player and the score they are ranked by.
+ */
+public final class LeaderboardEntry {
+    /** place on the leaderboard, starting at 1 */
+    private final int position;
+    /** username of the player */
+    private final String username;
+    /** score of the player in the ranked category and time window */
+    private final int score;
+
+    /**
+     * Constructor for LeaderboardEntry
+     * @param position place on the leaderboard
+     * @param username username of the player
+     * @param score score of the player
+     */
+    public LeaderboardEntry(int position, String username, int score) {
+        this.position = position;
+        this.username = username;
+        this.score = score;
+    }
+
+    /**
+     * Gets the place on the leaderboard
+     * @return position starting at 1
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets the username of the player
+     * @return username
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets the score of the player
+     * @return score in the ranked category and time window
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Checks whether another entry shows the same line
+     * @param other object to compare with
+     * @return true if the position, username and score are equal
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof LeaderboardEntry)) {
+            return false;
+        }
+        LeaderboardEntry entry = (LeaderboardEntry) other;
+        return position == entry.position && score == entry.score && Objects.equals(username, entry.username);
+    }
+
+    /**
+     * Gets a hash code consistent with {@link #equals(Object)}
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(position, username, score);
+    }
+}
@@ -0,0 +1,273 @@
+import java.util.Arrays;
+
+/**
+ * Ranking of the rows of a {@link UserTable} by one score category, kept up to date as scores change.
+ * <p>
+ *     A {@link ScoreRankTree} counts the players per score, and next to it every score that anyone holds has a
+ *     bucket: a plain int array of the rows with that score in ascending order, so on equal scores the row added
+ *     first ranks higher. A ranked row costs 4 bytes instead of a boxed skip list entry. A score change moves the
+ *     row from one bucket to another, which is a binary search and a copy within two buckets, and appending the
+ *     newest row to a bucket is O(1).
+ * </p>
+ * <p>
+ *     The rank tree finds the score at any position in O(log n), and the next lower score that anyone holds,
+ *     so a page is read straight out of the buckets from any position without walking the rows before it.
+ *     Rank and percentile queries are answered by the tree alone. Scores are ranked at their
+ *     {@link ScoreRankTree#positionOf(int) position} in the tree, so negative scores rank as 0 and scores beyond
+ *     its capacity tie, as in {@link #rankOf(int)}.
+ * </p>
+ */
+public class LeaderboardIndex {
+    /** smallest bucket allocated for a score */
+    private static final int MIN_BUCKET = 4;
+
+    /** category ranked by this index */
+    private final ScoreCategory category;
+    /** number of rows per score */
+    private final ScoreRankTree counts = new ScoreRankTree();
+    /** rows by score position in ascending row order, null while nobody has the score */
+    private int[][] buckets = new int[1024][];
+    /** number of rows in each bucket */
+    private int[] bucketSizes = new int[1024];
+
+    /**
+     * Constructor for an empty LeaderboardIndex
+     * @param category category to rank by
+     */
+    public LeaderboardIndex(ScoreCategory category) {
+        this.category = category;
+    }
+
+    /**
+     * Gets the category ranked by this index
+     * @return score category
+     */
+    public ScoreCategory getCategory() {
+        return category;
+    }
+
+    /**
+     * Adds a new row
+     * @param row row index
+     * @param score score of the row in this category
+     */
+    public synchronized void add(int row, int score) {
+        insert(row, ScoreRankTree.positionOf(score));
+        counts.add(score);
+    }
+
+    /**
+     * Removes a row, used when it moves to another group
+     * @param row row index
+     * @param score score the row was ranked by
+     */
+    public synchronized void remove(int row, int score) {
+        if (delete(row, ScoreRankTree.positionOf(score))) {
+            counts.remove(score);
+        }
+    }
+
+    /**
+     * Moves a row whose score changed
+     * @param row row index
+     * @param oldScore score the row was ranked by
+     * @param newScore new score of the row
+     */
+    public synchronized void update(int row, int oldScore, int newScore) {
+        int oldPosition = ScoreRankTree.positionOf(oldScore);
+        int newPosition = ScoreRankTree.positionOf(newScore);
+        if (oldPosition == newPosition) {
+            return;
+        }
+        if (delete(row, oldPosition)) {
+            counts.remove(oldScore);
+        }
+        insert(row, newPosition);
+        counts.add(newScore);
+    }
+
+    /**
+     * Gets a page of entries starting at a position, for jumping into the middle of the ranking.
+     * The score at the position is found in the rank tree, and the rest of the offset indexes its bucket.
+     * @param fromPosition position of the first entry, 0 for the highest ranked row
+     * @param limit most number of entries to return
+     * @return entries in rank order, read them with {@link #rowOf(long)}
+     */
+    public synchronized long[] page(int fromPosition, int limit) {
+        int total = counts.size();
+        if (fromPosition < 0 || fromPosition >= total || limit <= 0) {
+            return new long[0];
+        }
+        int position = counts.select(total - fromPosition);
+        // rows above this score come before the page, the rest of the offset is within the score
+        return collect(position, fromPosition - counts.countAbove(position), limit);
+    }
+
+    /**
+     * Gets the page of entries that follows a cursor, the cursor being the last entry of the previous page.
+     * Finding the cursor is a binary search in its bucket, so scrolling page by page never walks the entries before it.
+     * @param cursor last entry already shown
+     * @param limit most number of entries to return
+     * @return entries after the cursor in rank order
+     */
+    public synchronized long[] pageAfter(long cursor, int limit) {
+        int position = scoreOf(cursor);
+        int index = 0;
+        if (position < buckets.length && buckets[position] != null) {
+            index = Arrays.binarySearch(buckets[position], 0, bucketSizes[position], rowOf(cursor));
+            // past the cursor, whether or not its row still has this score
+            index = index >= 0 ? index + 1 : -index - 1;
+        }
+        return collect(position, index, limit);
+    }
+
+    /**
+     * Gets the row of a page entry
+     * @param entry entry from {@link #page(int, int)} or {@link #pageAfter(long, int)}
+     * @return row index in the user table
+     */
+    public static int rowOf(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Gets the score position a page entry was ranked at. Scores beyond the rank tree capacity share the
+     * highest position, so screens read the score to show from the table.
+     * @param entry entry from {@link #page(int, int)} or {@link #pageAfter(long, int)}
+     * @return score position the row is ranked by
+     */
+    public static int scoreOf(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    /**
+     * Gets the rank a score has on this leaderboard, players with the same score share a rank
+     * @param score score to rank
+     * @return 1 plus the number of players with a higher score
+     */
+    public synchronized int rankOf(int score) {
+        return counts.countAbove(score) + 1;
+    }
+
+    /**
+     * Gets the share of players with a lower score
+     * @param score score to compare with
+     * @return percentile from 0 to 100, 0 when nobody is ranked
+     */
+    public synchronized double percentileOf(int score) {
+        int total = counts.size();
+        return total == 0 ? 0 : 100.0 * counts.countAtOrBelow(score - 1) / total;
+    }
+
+    /**
+     * Gets the highest ranked rows
+     * @param limit most number of rows to return
+     * @return row indexes, highest score first
+     */
+    public synchronized int[] top(int limit) {
+        long[] entries = page(0, limit);
+        int[] top = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            top[i] = rowOf(entries[i]);
+        }
+        return top;
+    }
+
+    /**
+     * Gets the number of ranked rows
+     * @return number of rows
+     */
+    public synchronized int size() {
+        return counts.size();
+    }
+
+    /**
+     * Reads entries from a place in a bucket on, moving down to the next lower score anyone holds
+     * whenever a bucket runs out
+     * @param position score position of the first bucket
+     * @param index index in the first bucket of the first entry
+     * @param limit most number of entries to read
+     * @return entries read
+     */
+    private long[] collect(int position, int index, int limit) {
+        long[] entries = new long[Math.max(0, Math.min(limit, counts.size()))];
+        int count = 0;
+        while (count < entries.length) {
+            if (position < buckets.length && buckets[position] != null) {
+                int[] bucket = buckets[position];
+                int size = bucketSizes[position];
+                for (; index < size && count < entries.length; index++) {
+                    entries[count++] = key(bucket[index], position);
+                }
+            }
+            int below = counts.countAtOrBelow(position - 1);
+            if (below == 0) {
+                break;
+            }
+            // the highest score below this one that anyone holds
+            position = counts.select(below);
+            index = 0;
+        }
+        return count == entries.length ? entries : Arrays.copyOf(entries, count);
+    }
+
+    /**
+     * Adds a row to the bucket of a score position, keeping the bucket in ascending row order
+     * @param row row index
+     * @param position score position
+     */
+    private void insert(int row, int position) {
+        if (position >= buckets.length) {
+            int length = Math.max(position + 1, buckets.length * 2);
+            buckets = Arrays.copyOf(buckets, length);
+            bucketSizes = Arrays.copyOf(bucketSizes, length);
+        }
+        int[] bucket = buckets[position];
+        int size = bucketSizes[position];
+        if (bucket == null) {
+            bucket = new int[MIN_BUCKET];
+        } else if (size == bucket.length) {
+            bucket = Arrays.copyOf(bucket, size * 2);
+        }
+        // new rows have the highest index, so they usually go at the end
+        int index = size == 0 || bucket[size - 1] < row ? size : -Arrays.binarySearch(bucket, 0, size, row) - 1;
+        System.arraycopy(bucket, index, bucket, index + 1, size - index);
+        bucket[index] = row;
+        buckets[position] = bucket;
+        bucketSizes[position] = size + 1;
+    }
+
+    /**
+     * Removes a row from the bucket of a score position, dropping the bucket once it is empty
+     * @param row row index
+     * @param position score position
+     * @return true if the row was in the bucket
+     */
+    private boolean delete(int row, int position) {
+        if (position >= buckets.length || buckets[position] == null) {
+            return false;
+        }
+        int[] bucket = buckets[position];
+        int size = bucketSizes[position];
+        int index = Arrays.binarySearch(bucket, 0, size, row);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(bucket, index + 1, bucket, index, size - index - 1);
+        bucketSizes[position] = size - 1;
+        if (size == 1) {
+            buckets[position] = null;
+        }
+        return true;
+    }
+
+    /**
+     * Packs a score position and row into a page entry
+     * @param row row index
+     * @param position score position of the row
+     * @return page entry
+     */
+    private static long key(int row, int position) {
+        return ((long) position << 32) | row;
+    }
+}
@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for the {@link LeaderboardIndex} class.
+ */
+public class LeaderboardIndexTest {
+
+    /**
+     * An index kept up to date through random score changes ranks like a full sort of the table.
+     */
+    @Test
+    public void testIncrementalUpdatesMatchSort() {
+        List<UserProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            profiles.add(new UserProfile("student" + i, "pw", "Student", i % 40, i % 7, 0, 0));
+        }
+        UserTable table = UserTable.of(profiles);
+        LeaderboardIndex leaderboard = table.leaderboard(ScoreCategory.TOTAL);
+        assertSame(leaderboard, table.leaderboard(ScoreCategory.TOTAL));
+
+        Random random = new Random(15);
+        for (int i = 0; i < 2000; i++) {
+            UserProfile userProfile = profiles.get(random.nextInt(profiles.size()));
+            userProfile.setTotalScore(random.nextInt(100));
+            table.put(userProfile);
+        }
+        table.put(new UserProfile("newcomer", "pw", "Student", 1000, 0, 0, 0));
+
+        assertEquals(501, leaderboard.size());
+        int[] sorted = table.sortedRows(ScoreCategory.TOTAL);
+        assertArrayEquals(Arrays.copyOf(sorted, 10), leaderboard.top(10));
+        assertEquals("newcomer", table.getUsername(leaderboard.top(1)[0]));
+        assertEquals(501, leaderboard.top(1000).length);
+    }
+
+    /**
+     * Equal scores rank the row added first higher, and an unchanged score keeps its place.
+     */
+    @Test
+    public void testTies() {
+        LeaderboardIndex leaderboard = new LeaderboardIndex(ScoreCategory.MIDDLESEX);
+        leaderboard.add(0, 50);
+        leaderboard.add(1, 80);
+        leaderboard.add(2, 50);
+        assertArrayEquals(new int[]{1, 0, 2}, leaderboard.top(3));
+
+        leaderboard.update(1, 80, 50);
+        assertArrayEquals(new int[]{0, 1, 2}, leaderboard.top(3));
+        leaderboard.update(0, 50, 50);
+        assertArrayEquals(new int[]{0, 1}, leaderboard.top(2));
+        assertEquals(ScoreCategory.MIDDLESEX, leaderboard.getCategory());
+    }
+
+    /**
+     * Pages read from any position and pages continued from a cursor list the rows in rank order,
+     * also across scores nobody holds and scores beyond the rank tree capacity.
+     */
+    @Test
+    public void testPages() {
+        LeaderboardIndex leaderboard = new LeaderboardIndex(ScoreCategory.TOTAL);
+        Random random = new Random(8);
+        int[] scores = new int[3000];
+        for (int row = 0; row < scores.length; row++) {
+            scores[row] = row % 100 == 0 ? ScoreRankTree.MAX_CAPACITY + random.nextInt(1000) : random.nextInt(200) * 37;
+            leaderboard.add(row, scores[row]);
+        }
+        for (int i = 0; i < 5000; i++) {
+            int row = random.nextInt(scores.length);
+            int score = random.nextInt(200) * 37;
+            leaderboard.update(row, scores[row], score);
+            scores[row] = score;
+        }
+        // highest position first, then the row added first
+        Integer[] expected = new Integer[scores.length];
+        for (int row = 0; row < expected.length; row++) {
+            expected[row] = row;
+        }
+        Arrays.sort(expected, (a, b) -> ScoreRankTree.positionOf(scores[a]) != ScoreRankTree.positionOf(scores[b])
+                ? Integer.compare(ScoreRankTree.positionOf(scores[b]), ScoreRankTree.positionOf(scores[a]))
+                : Integer.compare(a, b));
+
+        List<Integer> scrolled = new ArrayList<>();
+        long[] page = leaderboard.page(0, 64);
+        while (page.length > 0) {
+            for (long entry : page) {
+                scrolled.add(LeaderboardIndex.rowOf(entry));
+            }
+            page = leaderboard.pageAfter(page[page.length - 1], 64);
+        }
+        assertEquals(Arrays.asList(expected), scrolled);
+        for (int from : new int[]{0, 1, 37, 1500, 2999}) {
+            long[] jumped = leaderboard.page(from, 10);
+            assertEquals(Math.min(10, scores.length - from), jumped.length);
+            for (int i = 0; i < jumped.length; i++) {
+                assertEquals((int) expected[from + i], LeaderboardIndex.rowOf(jumped[i]));
+            }
+        }
+        assertEquals(0, leaderboard.page(3000, 10).length);
+
+        leaderboard.remove(expected[0], scores[expected[0]]);
+        leaderboard.remove(expected[0], scores[expected[0]]);
+        assertEquals(2999, leaderboard.size());
+        assertEquals((int) expected[1], leaderboard.top(1)[0]);
+    }
+}
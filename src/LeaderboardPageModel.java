@@ -0,0 +1,149 @@
+import javax.swing.AbstractListModel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * List model showing a whole ranking a page at a time, for scrolling through every student on the leaderboard.
+ * <p>
+ *     A JList with a fixed cell height only asks the model for the rows it paints, so the model reads
+ *     just the pages under the viewport from the {@link LeaderboardIndex}. The page after one already read
+ *     is fetched with the last entry as a cursor, which keeps scrolling at O(log n) per page, and a jump
+ *     elsewhere in the list starts from the rank tree. Only a few pages are kept, the least recently
+ *     used page is dropped first, so memory stays the same however many students are ranked.
+ * </p>
+ */
+public class LeaderboardPageModel extends AbstractListModel<LeaderboardEntry> {
+    /** number of entries read at once */
+    static final int PAGE_SIZE = 50;
+    /** number of pages kept */
+    private static final int CACHED_PAGES = 8;
+
+    /** table holding the ranked users */
+    private final UserTable table;
+    /** category the list is ranked by */
+    private final ScoreCategory category;
+    /** group the list is limited to, null for every user */
+    private final String group;
+    /** number of top entries left out of the list, e.g. the podium */
+    private final int skipped;
+    /** pages read so far by page number, in access order */
+    private final Map<Integer, LeaderboardEntry[]> pages = new LinkedHashMap<Integer, LeaderboardEntry[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, LeaderboardEntry[]> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+    /** last ranking entry of every cached page, the cursor for the page after it */
+    private final Map<Integer, Long> cursors = new LinkedHashMap<Integer, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+    /** number of entries when the list was last refreshed */
+    private int size;
+    /** number of pages read from the ranking, for tests and tuning */
+    private int pageReads;
+
+    /**
+     * Constructor for LeaderboardPageModel
+     * @param table table holding the ranked users
+     * @param category category to rank by
+     * @param skipped number of top entries to leave out, they are shown elsewhere
+     */
+    public LeaderboardPageModel(UserTable table, ScoreCategory category, int skipped) {
+        this(table, category, null, skipped);
+    }
+
+    /**
+     * Constructor for a LeaderboardPageModel showing one class or section
+     * @param table table holding the ranked users
+     * @param category category to rank by
+     * @param group group to show, null for every user
+     * @param skipped number of top entries to leave out, they are shown elsewhere
+     */
+    public LeaderboardPageModel(UserTable table, ScoreCategory category, String group, int skipped) {
+        this.table = table;
+        this.category = category;
+        this.group = group;
+        this.skipped = skipped;
+        this.size = Math.max(0, table.leaderboard(category, group).size() - skipped);
+    }
+
+    /**
+     * Gets the number of entries in the list
+     * @return number of ranked users after the skipped ones
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets one entry, reading its page from the ranking if it is not cached
+     * @param index list index
+     * @return entry at that index, or null if the ranking shrank since the last refresh
+     */
+    @Override
+    public LeaderboardEntry getElementAt(int index) {
+        int pageNumber = index / PAGE_SIZE;
+        LeaderboardEntry[] page = pages.get(pageNumber);
+        if (page == null) {
+            page = readPage(pageNumber);
+        }
+        int offset = index % PAGE_SIZE;
+        return offset < page.length ? page[offset] : null;
+    }
+
+    /**
+     * Drops every cached page after the scores changed and tells the list to repaint
+     */
+    public void refresh() {
+        pages.clear();
+        cursors.clear();
+        int oldSize = size;
+        size = Math.max(0, table.leaderboard(category, group).size() - skipped);
+        if (size < oldSize) {
+            fireIntervalRemoved(this, size, oldSize - 1);
+        } else if (size > oldSize) {
+            fireIntervalAdded(this, oldSize, size - 1);
+        }
+        if (size > 0) {
+            fireContentsChanged(this, 0, size - 1);
+        }
+    }
+
+    /**
+     * Gets the number of pages read from the ranking
+     * @return page reads
+     */
+    public int getPageReads() {
+        return pageReads;
+    }
+
+    /**
+     * Reads a page, continuing from the previous page's cursor when it is cached
+     * @param pageNumber page to read
+     * @return entries of the page
+     */
+    private LeaderboardEntry[] readPage(int pageNumber) {
+        LeaderboardIndex leaderboard = table.leaderboard(category, group);
+        Long cursor = cursors.get(pageNumber - 1);
+        long[] rankingEntries = cursor != null
+                ? leaderboard.pageAfter(cursor, PAGE_SIZE)
+                : leaderboard.page(skipped + pageNumber * PAGE_SIZE, PAGE_SIZE);
+        pageReads++;
+
+        LeaderboardEntry[] page = new LeaderboardEntry[rankingEntries.length];
+        for (int i = 0; i < page.length; i++) {
+            int position = skipped + pageNumber * PAGE_SIZE + i + 1;
+            int row = LeaderboardIndex.rowOf(rankingEntries[i]);
+            page[i] = new LeaderboardEntry(position, table.getUsername(row), table.getScore(row, category));
+        }
+        pages.put(pageNumber, page);
+        if (rankingEntries.length > 0) {
+            cursors.put(pageNumber, rankingEntries[rankingEntries.length - 1]);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,66 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for the {@link LeaderboardPageModel} class.
+ */
+public class LeaderboardPageModelTest {
+
+    /**
+     * Creates a table of students with random total scores, many of them tied
+     * @param students number of students
+     * @return table holding the students
+     */
+    private static UserTable createTable(int students) {
+        List<UserProfile> profiles = new ArrayList<>();
+        Random random = new Random(17);
+        for (int i = 0; i < students; i++) {
+            profiles.add(new UserProfile("student" + i, "pw", "Student", random.nextInt(300), 0, 0, 0));
+        }
+        return UserTable.of(profiles);
+    }
+
+    /**
+     * Scrolling through the list reads every page once through its cursor and matches the full ranking.
+     */
+    @Test
+    public void testScrollMatchesRanking() {
+        UserTable table = createTable(10_000);
+        LeaderboardPageModel model = new LeaderboardPageModel(table, ScoreCategory.TOTAL, 3);
+        int[] sorted = table.sortedRows(ScoreCategory.TOTAL);
+
+        assertEquals(10_000 - 3, model.getSize());
+        for (int i = 0; i < model.getSize(); i++) {
+            LeaderboardEntry entry = model.getElementAt(i);
+            assertEquals(i + 4, entry.getPosition());
+            assertEquals(table.getUsername(sorted[i + 3]), entry.getUsername());
+            assertEquals(table.getScore(sorted[i + 3], ScoreCategory.TOTAL), entry.getScore());
+        }
+        int pages = (model.getSize() + LeaderboardPageModel.PAGE_SIZE - 1) / LeaderboardPageModel.PAGE_SIZE;
+        assertEquals(pages, model.getPageReads());
+    }
+
+    /**
+     * Jumping into the middle of the list and refreshing after a change both show the current ranking.
+     */
+    @Test
+    public void testJumpAndRefresh() {
+        UserTable table = createTable(5_000);
+        LeaderboardPageModel model = new LeaderboardPageModel(table, ScoreCategory.TOTAL, 0);
+        int[] sorted = table.sortedRows(ScoreCategory.TOTAL);
+        for (int index : new int[]{4_321, 2_500, 17, 4_999}) {
+            assertEquals(table.getUsername(sorted[index]), model.getElementAt(index).getUsername());
+        }
+
+        String last = model.getElementAt(4_999).getUsername();
+        table.put(new UserProfile(last, "pw", "Student", 1_000, 0, 0, 0));
+        table.put(new UserProfile("newcomer", "pw", "Student", -5, 0, 0, 0));
+        model.refresh();
+        assertEquals(5_001, model.getSize());
+        assertEquals(last, model.getElementAt(0).getUsername());
+        assertEquals("newcomer", model.getElementAt(5_000).getUsername());
+    }
+}
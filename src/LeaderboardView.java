@@ -0,0 +1,387 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import javax.imageio.ImageIO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Base of the leaderboard screens: a podium for the top three players over a live ranking.
+ * <p>
+ *     Every component is created once. A refresh reads the standings from the {@link Database} on a
+ *     {@link SwingWorker} thread, then back on the event dispatch thread only the name and score cells
+ *     whose text changed are updated, so returning from a round never rebuilds the screen or stalls the UI.
+ *     Refreshes asked for while one is running are folded into a single refresh after it.
+ * </p>
+ * <p>
+ *     Subclasses choose what is ranked with {@link #readStandings()} and add their own components
+ *     with {@link #addOnTop(Component)}, above the background labels.
+ * </p>
+ */
+public abstract class LeaderboardView extends JPanel {
+    /** display object */
+    protected final Display display;
+    /** database the standings are read from */
+    protected final Database database = Database.getInstance();
+    /** font for the leaderboard text */
+    protected Font pixelFont;
+    /** background image for leaderboard screen */
+    private Image background;
+    /** username cells of the podium, first, second and third place */
+    private final JTextArea[] podiumNames = new JTextArea[3];
+    /** score cells of the podium */
+    private final JTextArea[] podiumScores = new JTextArea[3];
+    /** description text beside the podium */
+    private final JTextArea description = new JTextArea();
+    /** standings shown, highest first */
+    private List<LeaderboardEntry> standings = new ArrayList<>();
+    /** refresh running in the background, null when none is */
+    private SwingWorker<Snapshot, Void> worker;
+    /** true when a refresh was asked for while one was running */
+    private boolean refreshPending;
+
+    /**
+     * Constructor, creates the podium, title, back button and description of a leaderboard screen
+     * @param display object used to create screen
+     * @param title title of the screen
+     * @param titleSize font size of the title
+     * @param descriptionSize font size of the description
+     * @throws FileNotFoundException when the database cannot be opened
+     */
+    protected LeaderboardView(Display display, String title, int titleSize, int descriptionSize)
+            throws FileNotFoundException {
+        this.display = display;
+        setLayout(null);
+
+        // Load the background image
+        try {
+            background = ImageIO.read(new File("media/leaderboard.png"));
+        } catch (IOException e) {
+            System.out.println("Could not find image");
+        }
+
+        //load pixelhugger
+        try {
+            File pixelHuggerFile = new File("media/PixelHugger.otf");
+            pixelFont = Font.createFont(Font.TRUETYPE_FONT, pixelHuggerFile).deriveFont(Font.PLAIN, 18);
+        } catch (IOException | FontFormatException e) {
+            // Handle font loading errors
+            e.printStackTrace();
+        }
+
+        createPodiumText(558, 272, 0);
+        createPodiumText(388, 300, 1);
+        createPodiumText(738, 326, 2);
+        createLabels(title, titleSize);
+
+        basicTextSettings(description);
+        description.setFont(pixelFont.deriveFont(0, descriptionSize));
+        description.setBounds(61,207,296,232);
+        description.setForeground(Color.BLACK);
+        add(description);
+
+        // make the escape key exit (same as back to game button)
+        InputMap inputMap = getInputMap(WHEN_IN_FOCUSED_WINDOW);
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "escapePressed");
+        ActionMap actionMap = getActionMap();
+        actionMap.put("escapePressed", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                goBack();
+            }
+        });
+
+        database.addUserChangeListener(userProfile -> SwingUtilities.invokeLater(() -> userChanged(userProfile)));
+    }
+
+    /**
+     * Reads the standings to show, called on a background thread
+     * @return entries highest first, the first three go on the podium
+     */
+    protected abstract List<LeaderboardEntry> readStandings();
+
+    /**
+     * Gets the category the screen ranks by
+     * @return score category
+     */
+    protected abstract ScoreCategory getCategory();
+
+    /**
+     * Gets the text shown before a podium score
+     * @return score prefix
+     */
+    protected abstract String scorePrefix();
+
+    /**
+     * Reads the description beside the podium, called on a background thread
+     * @return description text, or null to keep the current one
+     */
+    protected String readDescription() {
+        return null;
+    }
+
+    /**
+     * Shows new standings, called on the event dispatch thread.
+     * Only the podium cells whose text changed are updated, subclasses update their own cells after this.
+     * @param standings entries highest first
+     */
+    protected void showStandings(List<LeaderboardEntry> standings) {
+        for (int i = 0; i < podiumNames.length; i++) {
+            LeaderboardEntry entry = i < standings.size() ? standings.get(i) : null;
+            setTextIfChanged(podiumNames[i], entry == null ? "No User" : entry.getUsername());
+            setTextIfChanged(podiumScores[i], scorePrefix() + (entry == null ? 0 : entry.getScore()));
+        }
+    }
+
+    /**
+     * Reacts to a saved user, by default refreshing when the user can change the standings shown
+     * @param userProfile profile that changed
+     */
+    protected void userChanged(UserProfile userProfile) {
+        if (affectsBoard(userProfile)) {
+            refresh();
+        }
+    }
+
+    /**
+     * Checks whether a changed user can change the standings shown
+     * @param userProfile profile that changed
+     * @return true if the user is shown, or scores at least as much as the last user shown
+     */
+    protected boolean affectsBoard(UserProfile userProfile) {
+        if (standings.size() < podiumNames.length) {
+            return true;
+        }
+        for (LeaderboardEntry shown : standings) {
+            if (shown.getUsername().equals(userProfile.getUsername())) {
+                return true;
+            }
+        }
+        return userProfile.getScore(getCategory()) >= standings.get(standings.size() - 1).getScore();
+    }
+
+    /**
+     * Leaves the screen, by the back button or the escape key
+     */
+    protected void goBack() {
+        display.show("MainMap");
+    }
+
+    /**
+     * Reads the standings in the background and shows what changed.
+     * Must be called on the event dispatch thread.
+     */
+    public void refresh() {
+        if (worker != null) {
+            refreshPending = true;
+            return;
+        }
+        worker = new SwingWorker<Snapshot, Void>() {
+            @Override
+            protected Snapshot doInBackground() {
+                return readSnapshot();
+            }
+
+            @Override
+            protected void done() {
+                worker = null;
+                try {
+                    show(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                }
+                if (refreshPending) {
+                    refreshPending = false;
+                    refresh();
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * Reads and shows the standings on the calling thread, used while the screen is being created
+     */
+    protected void refreshNow() {
+        show(readSnapshot());
+    }
+
+    /**
+     * Gets the standings shown
+     * @return entries highest first
+     */
+    protected List<LeaderboardEntry> getStandings() {
+        return standings;
+    }
+
+    /**
+     * Adds a component above the background labels
+     * @param component component to add
+     */
+    protected void addOnTop(Component component) {
+        add(component, 0);
+    }
+
+    /**
+     * Sets the text of a cell unless it already shows it, so unchanged cells are not laid out or repainted
+     * @param box cell to update
+     * @param text text to show
+     */
+    protected static void setTextIfChanged(JTextArea box, String text) {
+        if (!Objects.equals(box.getText(), text)) {
+            box.setText(text);
+        }
+    }
+
+    /**
+     * Method to set basic text settings
+     * @param box basic box UI element
+     */
+    protected static void basicTextSettings(JTextArea box) {
+        box.setLineWrap(true);
+        box.setWrapStyleWord(true);
+        box.setEditable(false);
+        box.setCursor(null);
+        box.setAlignmentX(CENTER_ALIGNMENT);
+        box.setAlignmentY(CENTER_ALIGNMENT);
+        box.setOpaque(false);
+    }
+
+    /**
+     * Reads the standings and description
+     * @return snapshot to show
+     */
+    private Snapshot readSnapshot() {
+        return new Snapshot(readStandings(), readDescription());
+    }
+
+    /**
+     * Shows a snapshot
+     * @param snapshot standings and description read
+     */
+    private void show(Snapshot snapshot) {
+        standings = snapshot.standings;
+        if (snapshot.description != null) {
+            setTextIfChanged(description, snapshot.description);
+        }
+        showStandings(standings);
+    }
+
+    /**
+     * method to create podium text for top 3 users
+     * @param x coordinate of podium text
+     * @param y coordinate of podium text
+     * @param i element of list of the top 3 users
+     */
+    private void createPodiumText(int x, int y, int i) {
+        // generate text box's generic wrapping & styling
+        JTextArea nameBox = new JTextArea();
+        basicTextSettings(nameBox);
+        nameBox.setFont(new Font("Helvetica", Font.BOLD, 28));
+        nameBox.setBounds(x,y, 190, 76);
+        nameBox.setForeground(Color.WHITE);
+        add(nameBox);
+        podiumNames[i] = nameBox;
+
+        // create text area
+        JTextArea scoreBox = new JTextArea();
+        basicTextSettings(scoreBox);
+        scoreBox.setFont(pixelFont.deriveFont(0, 17));
+        scoreBox.setBounds(x, y + 30, 190, 76);
+        scoreBox.setForeground(Color.WHITE);
+        add(scoreBox);
+        podiumScores[i] = scoreBox;
+    }
+
+    /**
+     * Method to create labels
+     * @param title title of the screen
+     * @param titleSize font size of the title
+     */
+    private void createLabels(String title, int titleSize) {
+
+        // custom label for the title
+        CustomJLabel leaderboardText = new CustomJLabel(title, -1.6);
+        leaderboardText.setFont(new Font("Helvetica", Font.BOLD, titleSize));
+        leaderboardText.setOpaque(false);
+        leaderboardText.setBounds(61, 76, 457, 121);
+        leaderboardText.setLetterSpacing(-3);
+        leaderboardText.setForeground(Color.WHITE);
+        add(leaderboardText);
+
+        // create back button
+        JButton button = new JButton("back");
+        button.setOpaque(false);
+        button.setBorderPainted(false);
+        button.setBounds(724, 20, 194, 77);
+        button.setBackground(new Color(0,0,0,0));
+        button.setFont(new Font("Helvetica", Font.BOLD, 44));
+        button.setForeground(Color.WHITE);
+        button.addActionListener(e -> goBack());
+        add(button);
+
+        // add rounded corner labels for texts
+        addRoundedCornerLabel(23,30,550,160,509,143,90,90,new Color(130,84,205),-1.6,Color.WHITE,0); // leaderboard label
+        addRoundedCornerLabel(743, 24, 165, 64, 161, 62, 64, 64, new Color(37, 165, 92), 0, Color.WHITE,0);
+        addRoundedCornerLabel( 544, 111,200,360,185,353,35,35,new Color(167,114,242),0,Color.WHITE, 2); // first place podium
+        addRoundedCornerLabel(379, 161,214,310,194,303,35,35,new Color(195,159,245),0,Color.WHITE, 2); // second place podium
+        addRoundedCornerLabel(687, 217,214,260,207,239,35,35,new Color(219,199,248),0,Color.WHITE, 2); // third place podium
+        addRoundedCornerLabel(379, 432,520,300,515,200,28,28,new Color(130,84,205),0,Color.WHITE, 2); // remaining list
+    }
+
+    /**
+     * Creates a rounded corner label with given specifications as parameters
+     * @param labelX x coordinate of label
+     * @param labelY y coordinate of label
+     * @param labelWidth width of label
+     * @param labelHeight height of label
+     * @param stickerWidth width of sticker
+     * @param stickerHeight height of sticker
+     * @param arcWidth width of the arc
+     * @param arcHeight height of the arc
+     * @param fillColor background color of the label
+     * @param degrees degree of the label corner
+     * @param borderColor color of the label border
+     * @param borderWidth width of the label border
+     */
+    private void addRoundedCornerLabel(int labelX, int labelY, int labelWidth, int labelHeight, int stickerWidth, int stickerHeight, int arcWidth, int arcHeight, Color fillColor, double degrees, Color borderColor, int borderWidth) {
+        RoundIcon icon = new RoundIcon(stickerWidth, stickerHeight, arcWidth, arcHeight, fillColor, degrees, borderColor, borderWidth);
+        JLabel label = new JLabel("", icon, JLabel.LEFT);
+        label.setBounds(labelX, labelY, labelWidth + borderWidth, labelHeight + borderWidth); // Adjust bounds to include border width
+        add(label);
+    }
+
+    /**
+     * used to paint the background image
+     * @param g the <code>Graphics</code> object to protect
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        // Draw the background image at (0, 0) with the same size as the panel
+        g.drawImage(background, 0, 0, getWidth(), getHeight(), this);
+    }
+
+    /**
+     * Standings and description read together in the background
+     */
+    private static final class Snapshot {
+        /** entries highest first */
+        private final List<LeaderboardEntry> standings;
+        /** description text, null to keep the current one */
+        private final String description;
+
+        /**
+         * Constructor for Snapshot
+         * @param standings entries highest first
+         * @param description description text, or null
+         */
+        Snapshot(List<LeaderboardEntry> standings, String description) {
+            this.standings = standings;
+            this.description = description;
+        }
+    }
+}
@@ -27,7 +27,7 @@ public class Login extends JPanel {
     /** background image for login screen */
     private ImageIcon backgroundImage;
     /** Database of user information */
-    Database database = new Database();
+    Database database = Database.getInstance();
     /** Display object */
     private Display display;
     /** Starts a new user session */
@@ -10,11 +10,26 @@ public class Main {
 	/**
 	 * Main function that initiates the start of the game,
 	 * by creating a display object
-	 * @param args command line arguments
+	 * @param args command line arguments, --store=json|binary|sharded|memory picks the user storage backend,
+	 *             --user-cache=N keeps at most N profiles in memory,
+	 *             --user-table=heap|offheap|mapped picks where the leaderboard score columns live
 	 * @throws IOException for database errors
 	 * @throws FontFormatException for font formatting errors
 	 */
 	public static void main(String[] args) throws IOException, FontFormatException{
+		// pick the user storage backend before the database is loaded
+		for (String arg : args) {
+			if (arg.startsWith("--store=")) {
+				System.setProperty("honk.userStore", arg.substring("--store=".length()));
+			}
+			if (arg.startsWith("--user-cache=")) {
+				System.setProperty("honk.userCache", arg.substring("--user-cache=".length()));
+			}
+			if (arg.startsWith("--user-table=")) {
+				System.setProperty("honk.userTable", arg.substring("--user-table=".length()));
+			}
+		}
+
 		//Run game
 		Display game = new Display();
 	}
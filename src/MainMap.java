@@ -2,7 +2,6 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
-import java.util.Map;
 import javax.imageio.ImageIO;
 
 /**
@@ -18,9 +17,7 @@ public class MainMap extends JPanel {
     /** display object */
     private final Display display;
     /** database object for user information */
-    private Database database = new Database();
-    /** userProfile map to parse users */
-    private Map userProfileMap = database.getUserProfileMap();
+    private Database database = Database.getInstance();
     /** background image object */
     private Image backgroundImage;
     /** image object for duck */
@@ -345,7 +342,11 @@ public class MainMap extends JPanel {
         //popup screen showing current game stats
         UserSession sessionManager = UserSession.getInstance();
         UserProfile userProfile = sessionManager.getUserProfile();
-        String message = "Username: " + userProfile.getUsername() + "\nTotal Score: " + userProfile.getTotalScore() + "\nMiddlesex Score: " + userProfile.getMiddlesexScore();
+        String message = "Username: " + userProfile.getUsername()
+                + "\nTotal Score: " + userProfile.getTotalScore()
+                + "\n" + database.describeRank(userProfile.getUsername(), ScoreCategory.TOTAL)
+                + "\nMiddlesex Score: " + userProfile.getMiddlesexScore()
+                + "\n" + database.describeRank(userProfile.getUsername(), ScoreCategory.MIDDLESEX);
         CustomDialog popup = new CustomDialog();
         popup.createPopup(message,"media/yippeee.png","Saving Game Data", JOptionPane.INFORMATION_MESSAGE, new Color(181, 206, 255));
     }
@@ -375,10 +376,8 @@ public class MainMap extends JPanel {
             userProfile.setTalbotScore(0);
             userProfile.setTotalScore(0);
 
-            // Saving wiped stats to map
-            userProfileMap.put(userProfile.getUsername(),userProfile);
-            database.saveDataToJson();
-            update();
+            // Saving wiped stats, leaderboard and teacher view refresh themselves
+            database.updateUser(userProfile);
 
             // Create a popup to let users know their data has been saved
             CustomDialog popup = new CustomDialog();
@@ -391,8 +390,9 @@ public class MainMap extends JPanel {
      * asks for confirmation, saves the game and exits
      */
     private void saveAndExit() throws IOException {
-        // Save & update the data
-        update();
+        // Save the data and wait for it to reach the disk
+        database.saveDataToJson();
+        database.flush();
 
         // Create a JOptionPane with custom options
         Object[] options = {"Yes", "No"};
@@ -406,28 +406,6 @@ public class MainMap extends JPanel {
         }
     }
 
-    /**
-     * Method to update teacher view and leaderboard,
-     * when users stats are changed
-     */
-    private void update() {
-        //update teacher view
-        TeacherView teacherView = display.getTeacher();
-        try {
-            teacherView.updateView();
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
-
-        //update leaderboard
-        Leaderboard leaderboard = display.getLeaderboard();
-        try {
-            leaderboard.updateTopTotalScore();
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     /**
      * Create Option Popup Method.
      * Uses JOptionalPanel's showOptionDialog method to display options for used
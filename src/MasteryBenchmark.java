@@ -0,0 +1,52 @@
+import java.util.Random;
+
+/**
+ * Benchmark of the {@link MasteryBitmap} size and lookup speed for a whole roster.
+ * <p>
+ *     Gives every student a random number of mastered questions out of the bank, then reports the bytes the
+ *     bitmaps take when saved and how many mastered checks a second they answer, as the question selection makes.
+ * </p>
+ * <pre>
+ *     java MasteryBenchmark [number of students] [number of questions]
+ * </pre>
+ */
+public class MasteryBenchmark {
+
+    /**
+     * Runs the benchmark
+     * @param args number of students and number of questions
+     */
+    public static void main(String[] args) {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        Random random = new Random(2212);
+        MasteryBitmap[] roster = new MasteryBitmap[students];
+        long mastered = 0;
+        long savedBytes = 0;
+        for (int i = 0; i < students; i++) {
+            roster[i] = new MasteryBitmap();
+            // most students master a few hundred questions, a few master thousands
+            int count = i % 100 == 0 ? random.nextInt(questions / 2) : random.nextInt(500);
+            for (int j = 0; j < count; j++) {
+                roster[i].add(1 + random.nextInt(questions));
+            }
+            mastered += roster[i].cardinality();
+            savedBytes += roster[i].toBytes().length;
+        }
+        System.out.printf("%,d students, %,d questions, %,d mastered, saved %,d KB (%.1f bytes per mastered question)%n",
+                students, questions, mastered, savedBytes >> 10, (double) savedBytes / Math.max(1, mastered));
+
+        int checks = 20_000_000;
+        long bestNanos = Long.MAX_VALUE;
+        int found = 0;
+        for (int repetition = 0; repetition < 3; repetition++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < checks; i++) {
+                found += roster[i % students].contains(1 + (int) ((long) i * 7919 % questions)) ? 1 : 0;
+            }
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        System.out.printf("contains %,14.0f checks/s (%,d found)%n", checks * 1e9 / bestNanos, found);
+    }
+}
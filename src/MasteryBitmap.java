@@ -0,0 +1,390 @@
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Compressed set of the question ids a student has answered correctly, saved with the profile.
+ * <p>
+ *     Roaring style: ids are split by their high 16 bits into containers of up to 65536 ids. A container holding
+ *     fewer than 4096 ids is a sorted array of their low 16 bits, 2 bytes per id, and a fuller one is a 8 KB bitmap,
+ *     so a student who mastered a few hundred of 100k questions takes well under 1 KB and no container is ever
+ *     larger than the bitmap. Checking an id is a binary search over at most a few containers, then a binary search
+ *     or a bit test.
+ * </p>
+ * <p>
+ *     Gson writes the bitmap as one base64 string, and leaves the field out while it is empty, so profiles without
+ *     mastered questions are saved as before. The bitmap is synchronized, it is filled during a round while
+ *     a save may be writing it.
+ * </p>
+ */
+@JsonAdapter(MasteryBitmap.GsonAdapter.class)
+public class MasteryBitmap {
+    /** most ids an array container holds before it becomes a bitmap */
+    private static final int ARRAY_LIMIT = 4096;
+    /** number of longs in a bitmap container */
+    private static final int BITMAP_WORDS = 1 << 10;
+    /** container kind written for an array container */
+    private static final byte ARRAY = 0;
+    /** container kind written for a bitmap container */
+    private static final byte BITMAP = 1;
+
+    /** high 16 bits of the ids of each container, sorted */
+    private char[] keys = new char[0];
+    /** low 16 bits of each array container, sorted, null for a bitmap container */
+    private char[][] arrays = new char[0][];
+    /** bits of each bitmap container, null for an array container */
+    private long[][] bitmaps = new long[0][];
+    /** number of ids in each container */
+    private int[] cardinalities = new int[0];
+    /** number of containers */
+    private int size;
+
+    /**
+     * Constructor for an empty MasteryBitmap
+     */
+    public MasteryBitmap() {
+    }
+
+    /**
+     * Constructor for a copy of a MasteryBitmap
+     * @param other bitmap to copy
+     */
+    public MasteryBitmap(MasteryBitmap other) {
+        synchronized (other) {
+            size = other.size;
+            keys = Arrays.copyOf(other.keys, size);
+            arrays = new char[size][];
+            bitmaps = new long[size][];
+            cardinalities = Arrays.copyOf(other.cardinalities, size);
+            for (int i = 0; i < size; i++) {
+                arrays[i] = other.arrays[i] == null ? null : other.arrays[i].clone();
+                bitmaps[i] = other.bitmaps[i] == null ? null : other.bitmaps[i].clone();
+            }
+        }
+    }
+
+    /**
+     * Adds a question id
+     * @param id question id, not negative
+     * @return true if the id was not in the bitmap yet
+     */
+    public synchronized boolean add(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("question id must not be negative: " + id);
+        }
+        char key = (char) (id >>> 16);
+        char low = (char) id;
+        int container = Arrays.binarySearch(keys, 0, size, key);
+        if (container < 0) {
+            container = insertContainer(-container - 1, key);
+        }
+        if (bitmaps[container] != null) {
+            long[] bits = bitmaps[container];
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) != 0) {
+                return false;
+            }
+            bits[low >>> 6] |= mask;
+            cardinalities[container]++;
+            return true;
+        }
+
+        char[] values = arrays[container];
+        int cardinality = cardinalities[container];
+        int position = Arrays.binarySearch(values, 0, cardinality, low);
+        if (position >= 0) {
+            return false;
+        }
+        position = -position - 1;
+        if (cardinality == ARRAY_LIMIT) {
+            toBitmap(container);
+            return add(id);
+        }
+        if (cardinality == values.length) {
+            values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+            arrays[container] = values;
+        }
+        System.arraycopy(values, position, values, position + 1, cardinality - position);
+        values[position] = low;
+        cardinalities[container]++;
+        return true;
+    }
+
+    /**
+     * Adds every id of another bitmap
+     * @param other bitmap to add
+     */
+    public void addAll(MasteryBitmap other) {
+        for (int id : other.toArray()) {
+            add(id);
+        }
+    }
+
+    /**
+     * Checks whether a question id is in the bitmap
+     * @param id question id
+     * @return true if the id was added
+     */
+    public synchronized boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int container = Arrays.binarySearch(keys, 0, size, (char) (id >>> 16));
+        if (container < 0) {
+            return false;
+        }
+        char low = (char) id;
+        if (bitmaps[container] != null) {
+            return (bitmaps[container][low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch(arrays[container], 0, cardinalities[container], low) >= 0;
+    }
+
+    /**
+     * Gets the number of ids in the bitmap
+     * @return number of ids
+     */
+    public synchronized int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += cardinalities[i];
+        }
+        return cardinality;
+    }
+
+    /**
+     * Checks whether the bitmap holds no id
+     * @return true if no id was added
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets every id in the bitmap
+     * @return ids in increasing order
+     */
+    public synchronized int[] toArray() {
+        int[] ids = new int[cardinality()];
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            int high = keys[i] << 16;
+            if (bitmaps[i] != null) {
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    long bits = bitmaps[i][word];
+                    while (bits != 0) {
+                        ids[next++] = high | (word << 6) | Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                    }
+                }
+            } else {
+                for (int j = 0; j < cardinalities[i]; j++) {
+                    ids[next++] = high | arrays[i][j];
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Writes the bitmap as bytes: the container count, then per container its key, kind and cardinality
+     * followed by its sorted low bits or its bitmap words
+     * @return serialized bitmap
+     */
+    public synchronized byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeShort(size);
+            for (int i = 0; i < size; i++) {
+                output.writeChar(keys[i]);
+                output.writeByte(bitmaps[i] != null ? BITMAP : ARRAY);
+                output.writeShort(cardinalities[i] - 1);
+                if (bitmaps[i] != null) {
+                    for (long word : bitmaps[i]) {
+                        output.writeLong(word);
+                    }
+                } else {
+                    for (int j = 0; j < cardinalities[i]; j++) {
+                        output.writeChar(arrays[i][j]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // a byte array stream does not fail
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a bitmap written by {@link #toBytes()}
+     * @param data serialized bitmap
+     * @return the bitmap
+     * @throws IOException when the bytes are not a bitmap
+     */
+    public static MasteryBitmap fromBytes(byte[] data) throws IOException {
+        MasteryBitmap bitmap = new MasteryBitmap();
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        int size = input.readUnsignedShort();
+        bitmap.keys = new char[size];
+        bitmap.arrays = new char[size][];
+        bitmap.bitmaps = new long[size][];
+        bitmap.cardinalities = new int[size];
+        for (int i = 0; i < size; i++) {
+            bitmap.keys[i] = input.readChar();
+            if (i > 0 && bitmap.keys[i] <= bitmap.keys[i - 1]) {
+                throw new IOException("mastery bitmap containers are out of order");
+            }
+            byte kind = input.readByte();
+            int cardinality = input.readUnsignedShort() + 1;
+            bitmap.cardinalities[i] = cardinality;
+            if (kind == BITMAP) {
+                bitmap.bitmaps[i] = new long[BITMAP_WORDS];
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    bitmap.bitmaps[i][word] = input.readLong();
+                }
+            } else if (kind == ARRAY && cardinality <= ARRAY_LIMIT) {
+                bitmap.arrays[i] = new char[cardinality];
+                for (int j = 0; j < cardinality; j++) {
+                    bitmap.arrays[i][j] = input.readChar();
+                }
+            } else {
+                throw new IOException("unknown mastery bitmap container " + kind);
+            }
+        }
+        bitmap.size = size;
+        return bitmap;
+    }
+
+    /**
+     * Writes the bitmap as base64 text, as it is stored in the json user files
+     * @return unpadded base64 of {@link #toBytes()}, json writers escape the padding
+     */
+    @Override
+    public String toString() {
+        return Base64.getEncoder().withoutPadding().encodeToString(toBytes());
+    }
+
+    /**
+     * Reads a bitmap written by {@link #toString()}
+     * @param text base64 text
+     * @return the bitmap
+     * @throws IOException when the text is not a bitmap
+     */
+    public static MasteryBitmap parse(String text) throws IOException {
+        try {
+            return fromBytes(Base64.getDecoder().decode(text));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("mastery bitmap is not base64", e);
+        }
+    }
+
+    /**
+     * Checks whether another bitmap holds the same ids
+     * @param o object to compare with
+     * @return true if both hold the same ids
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MasteryBitmap)) {
+            return false;
+        }
+        return Arrays.equals(toArray(), ((MasteryBitmap) o).toArray());
+    }
+
+    /**
+     * Hashes the ids of the bitmap
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    /**
+     * Inserts an empty array container
+     * @param position container position keeping the keys sorted
+     * @param key high 16 bits of the container's ids
+     * @return position of the new container
+     */
+    private int insertContainer(int position, char key) {
+        if (size == keys.length) {
+            int capacity = Math.max(2, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            arrays = Arrays.copyOf(arrays, capacity);
+            bitmaps = Arrays.copyOf(bitmaps, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(arrays, position, arrays, position + 1, size - position);
+        System.arraycopy(bitmaps, position, bitmaps, position + 1, size - position);
+        System.arraycopy(cardinalities, position, cardinalities, position + 1, size - position);
+        keys[position] = key;
+        arrays[position] = new char[4];
+        bitmaps[position] = null;
+        cardinalities[position] = 0;
+        size++;
+        return position;
+    }
+
+    /**
+     * Turns a full array container into a bitmap container
+     * @param container container position
+     */
+    private void toBitmap(int container) {
+        long[] bits = new long[BITMAP_WORDS];
+        char[] values = arrays[container];
+        for (int j = 0; j < cardinalities[container]; j++) {
+            bits[values[j] >>> 6] |= 1L << values[j];
+        }
+        bitmaps[container] = bits;
+        arrays[container] = null;
+    }
+
+    /**
+     * Writes a bitmap as one base64 string for Gson, or leaves the field out while it is empty
+     */
+    static final class GsonAdapter extends TypeAdapter<MasteryBitmap> {
+        /**
+         * Writes a bitmap
+         * @param out json writer
+         * @param bitmap bitmap to write, or null
+         * @throws IOException when the json cannot be written
+         */
+        @Override
+        public void write(JsonWriter out, MasteryBitmap bitmap) throws IOException {
+            if (bitmap == null || bitmap.isEmpty()) {
+                out.nullValue();
+            } else {
+                out.value(bitmap.toString());
+            }
+        }
+
+        /**
+         * Reads a bitmap
+         * @param in json reader positioned at the value
+         * @return the bitmap, or null when the value is null
+         * @throws IOException when the value is not a bitmap
+         */
+        @Override
+        public MasteryBitmap read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return parse(in.nextString());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+/**
+ * Unit tests for the {@link MasteryBitmap} class.
+ */
+public class MasteryBitmapTest {
+
+    /**
+     * The bitmap holds the same ids as a sorted set, through sparse and full containers.
+     */
+    @Test
+    public void testMatchesSet() {
+        Random random = new Random(17);
+        MasteryBitmap bitmap = new MasteryBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 30_000; i++) {
+            // a dense block of ids that turns into a bitmap, and sparse ids spread over several containers
+            int id = i % 2 == 0 ? random.nextInt(10_000) : random.nextInt(1_000_000);
+            assertEquals(expected.add(id), bitmap.add(id));
+        }
+        assertEquals(expected.size(), bitmap.cardinality());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), bitmap.toArray());
+        for (int id = 0; id < 1_000_000; id += 7) {
+            assertEquals(expected.contains(id), bitmap.contains(id));
+        }
+        assertFalse(bitmap.contains(-1));
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+    }
+
+    /**
+     * Bytes and base64 text read back into an equal bitmap, and a few hundred ids stay small.
+     */
+    @Test
+    public void testSerialization() throws IOException {
+        Random random = new Random(23);
+        MasteryBitmap bitmap = new MasteryBitmap();
+        for (int i = 0; i < 300; i++) {
+            bitmap.add(random.nextInt(100_000));
+        }
+        for (int id = 0; id < 5_000; id++) {
+            bitmap.add(200_000 + id);
+        }
+
+        MasteryBitmap copy = MasteryBitmap.fromBytes(bitmap.toBytes());
+        assertEquals(bitmap, copy);
+        assertEquals(bitmap, MasteryBitmap.parse(bitmap.toString()));
+        assertEquals(bitmap, new MasteryBitmap(bitmap));
+        assertNotEquals(new MasteryBitmap(), bitmap);
+
+        MasteryBitmap sparse = new MasteryBitmap();
+        for (int i = 0; i < 300; i++) {
+            sparse.add(random.nextInt(100_000));
+        }
+        assertTrue(sparse.toBytes().length < 700, "300 ids took " + sparse.toBytes().length + " bytes");
+        assertThrows(IOException.class, () -> MasteryBitmap.parse("not base64!"));
+    }
+
+    /**
+     * Profiles are written with their mastered questions as one string, and without the field while it is empty.
+     */
+    @Test
+    public void testProfileJson() throws IOException {
+        Gson gson = new Gson();
+        UserProfile bingo = new UserProfile("bingo", "goose", "Student", 10, 10, 0, 0);
+        assertFalse(gson.toJson(bingo).contains("mastered"));
+        bingo.getMastered();
+        assertFalse(gson.toJson(bingo).contains("mastered"));
+
+        bingo.addMastered(4);
+        bingo.addMastered(99_999);
+        String json = gson.toJson(bingo);
+        assertTrue(json.contains("\"mastered\":\"" + bingo.getMastered() + "\""));
+
+        UserProfile fromGson = gson.fromJson(json, UserProfile.class);
+        assertArrayEquals(new int[]{4, 99_999}, fromGson.getMastered().toArray());
+        UserProfile streamed = new StreamingUserLoader(false).readProfile(new JsonReader(new StringReader(json)));
+        assertArrayEquals(new int[]{4, 99_999}, streamed.getMastered().toArray());
+        assertTrue(streamed.sameAs(bingo));
+        assertFalse(streamed.sameAs(new UserProfile("bingo", "goose", "Student", 10, 10, 0, 0)));
+    }
+
+    /**
+     * Mastered questions are asked last, by the question database and by a deck.
+     */
+    @Test
+    public void testSelectionSkipsMastered() {
+        QuestionIndex index = new QuestionIndex(QuestionBenchmark.generateBank(3_000));
+        MasteryBitmap mastered = new MasteryBitmap();
+        QuestionDeck deck = new QuestionDeck(index, new SplittableRandom(2), mastered);
+        int size = index.count("middlesex", 1);
+
+        // master all but one question of the pile
+        Question last = null;
+        for (int i = 0; i < size; i++) {
+            Question question = deck.deal("middlesex", 1);
+            if (i < size - 1) {
+                mastered.add(question.getId());
+            } else {
+                last = question;
+            }
+        }
+        SplittableRandom random = new SplittableRandom(9);
+        for (int i = 0; i < 50; i++) {
+            assertSame(last, index.randomQuestion("middlesex", 1, random, mastered));
+        }
+        // the next rounds only hold the question left, and once it is mastered every question comes back
+        assertSame(last, deck.deal("middlesex", 1));
+        assertSame(last, deck.deal("middlesex", 1));
+        mastered.add(last.getId());
+        int[] dealt = new int[size];
+        for (int i = 0; i < size; i++) {
+            dealt[i] = deck.deal("middlesex", 1).getId();
+        }
+        assertEquals(size, Arrays.stream(dealt).distinct().count());
+    }
+}
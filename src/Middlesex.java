@@ -3,7 +3,6 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
 import javax.imageio.ImageIO;
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -20,11 +19,13 @@ public class Middlesex extends JPanel implements ActionListener {
     /** userProfile object of current user */
     private UserProfile user;
     /** database object */
-    private Database database = new Database();
+    private Database database = Database.getInstance();
     /** question database object */
     QuestionDatabase questionDatabase = new QuestionDatabase();
-    /** UserProfile map to parse user information */
-    private Map userProfileMap = database.getUserProfileMap();
+    /** questions of the round being played, dealt without repeats */
+    private QuestionDeck questionDeck;
+    /** question shown, checked when the user submits an answer */
+    private Question currentQuestion;
     /** score integer value, keeps track of current middlesex score */
     private int score;
     /** total seconds of one middlesex game */
@@ -141,6 +142,9 @@ public class Middlesex extends JPanel implements ActionListener {
                 user = sessionManager.getUserProfile();
                 score = user.getMiddlesexScore();
 
+                // every round deals from a fresh deck, without the questions the user mastered before
+                questionDeck = questionDatabase.newDeck(user.getMastered());
+
                 //create question panel and repaint
                 createQuestionPanel();
                 repaint();
@@ -177,8 +181,8 @@ public class Middlesex extends JPanel implements ActionListener {
     private void createQuestionPanel() {
 
         // returns the initial question & sets text
-        Question q = returnRandomQuestion(score);
-        questionText.setText(q.getQuestion());
+        currentQuestion = returnRandomQuestion(score);
+        questionText.setText(currentQuestion.getQuestion());
         questionText.setFont(pixelFont.deriveFont(Font.PLAIN, 37));
 
         // this will change the text of our submit button to what we want!
@@ -195,9 +199,8 @@ public class Middlesex extends JPanel implements ActionListener {
             @Override
             public void actionPerformed(ActionEvent e) {
 
-                // actually grab the question
-
-                Question q = questionDatabase.getQuestion(questionText.getText());
+                // the question shown, kept when it was asked
+                Question q = currentQuestion;
                 // check if right or wrong.
                 boolean valid = checkValid(q, userText.getText());
                 if (!valid) {
@@ -224,9 +227,8 @@ public class Middlesex extends JPanel implements ActionListener {
             @Override
             public void actionPerformed(ActionEvent e) {
 
-                // actually grab the question
-
-                Question q = questionDatabase.getQuestion(questionText.getText());
+                // the question shown, kept when it was asked
+                Question q = currentQuestion;
                 // check if right or wrong.
                 boolean valid = checkValid(q, userText.getText());
                 if (!valid) {
@@ -295,9 +297,9 @@ public class Middlesex extends JPanel implements ActionListener {
      */
     private void nextQuestion() {
         if (seconds <= 60 && seconds >= 0) {
-            Question q = returnRandomQuestion(score);
+            currentQuestion = returnRandomQuestion(score);
 
-            questionText.setText(q.getQuestion());
+            questionText.setText(currentQuestion.getQuestion());
             userText.setText(""); // Clear user input field
 
             scoreLabel.setText("score: " + score); // Update score label
@@ -315,12 +317,9 @@ public class Middlesex extends JPanel implements ActionListener {
         user.setMiddlesexScore(score);
         user.setTotalScore(score + user.getTalbotScore() + user.getNaturalSciencesScore());
 
-        userProfileMap.put(user.getUsername(), user);
-
-        // save to json file
-        database.saveDataToJson();
+        // save and let the leaderboards and teacher view refresh themselves
+        database.updateUser(user);
 
-        updateStats();
         showScreen("MiddlesexLeaderboard");
     }
 
@@ -334,6 +333,8 @@ public class Middlesex extends JPanel implements ActionListener {
         if (seconds < 61 && seconds >= 0) {
             //if the users answer to the question is correct
             if (questionDatabase.validateAnswer(question, text)) {
+                // saved with the score at the end of the round
+                user.addMastered(question.getId());
                 if (question.getDifficulty() == 1) {
                     score += 10;
                     return true;
@@ -546,46 +547,16 @@ public class Middlesex extends JPanel implements ActionListener {
     }
 
     /**
-     * returns random question, based on users current score
+     * returns random question, based on users current score.
+     * Questions are not repeated in a round until every question of the difficulty has been asked
      * @param score users current score
      * @return question that is the proper difficulty
      */
     private Question returnRandomQuestion(int score) {
-        Question question = questionDatabase.getRandomQuestion(score, "middlesex");
+        Question question = questionDeck.deal("middlesex", QuestionDatabase.difficultyFor(score));
         return question;
     }
 
-    /**
-     * update users stats based on their performance in middlesex game
-     */
-    private void updateStats() {
-        SwingUtilities.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-
-                // this way we only grab settings ONCE it was created
-                TeacherView teacherView = display.getTeacher();
-                try {
-                    teacherView.updateView();
-                } catch (FileNotFoundException e) {
-                    throw new RuntimeException(e);
-                }
-                Leaderboard leaderboard = display.getLeaderboard();
-                try {
-                    leaderboard.updateTopTotalScore();
-                } catch (FileNotFoundException e) {
-                    throw new RuntimeException(e);
-                }
-                MiddlesexLeaderboard middlesexLeaderboard = display.getMiddlesexLeaderboard();
-                try {
-                    middlesexLeaderboard.updateMiddlesexScore();
-                } catch (FileNotFoundException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-        });
-    }
-
     /**
      * Show Screen Method.
      * Uses show method in display to show screen with given name
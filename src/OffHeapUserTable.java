@@ -0,0 +1,337 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * {@link UserTable} keeping its columns and username index outside the Java heap,
+ * so a roster of millions of students adds almost nothing for the garbage collector to trace.
+ * <p>
+ *     Every column is a direct byte buffer, or a memory mapped scratch file when a folder is given.
+ *     Usernames are stored as length prefixed UTF-8 bytes with an offset column, and the username index
+ *     is an open addressing hash table of row numbers in its own buffer. Only the permission and group
+ *     names stay on the heap. Direct buffers grow by copying into a buffer twice the size,
+ *     mapped files grow by mapping a larger region of the same file.
+ * </p>
+ * <p>
+ *     The table is a copy of the users held by the {@link Database}, so the mapped files are scratch space:
+ *     they are deleted by {@link #close()} and never read again.
+ * </p>
+ */
+public class OffHeapUserTable extends UserTable implements Closeable {
+    /** initial number of rows when no capacity is given */
+    private static final int DEFAULT_CAPACITY = 1024;
+    /** rough size of one username in bytes, used to size the username buffer */
+    private static final int AVERAGE_USERNAME_BYTES = 16;
+
+    /** folder holding the mapped column files, null for direct buffers */
+    private final File folder;
+    /** score columns, one per {@link ScoreCategory} ordinal, 4 bytes per row */
+    private final ByteBuffer[] scores;
+    /** permission code of every row, 1 byte per row */
+    private ByteBuffer permissionCodes;
+    /** group code of every row, 4 bytes per row */
+    private ByteBuffer groupCodes;
+    /** offset of every row's username in the username buffer, 4 bytes per row */
+    private ByteBuffer usernameOffsets;
+    /** usernames as a 2 byte length followed by UTF-8 bytes */
+    private ByteBuffer usernames;
+    /** number of bytes used in the username buffer */
+    private int usernameBytes;
+    /** hash table of row + 1 per slot, 0 for an empty slot, 4 bytes per slot */
+    private ByteBuffer slots;
+    /** number of slots in the hash table, a power of two at least twice the row capacity */
+    private int slotCount;
+    /** number of rows the columns can hold */
+    private int capacity;
+
+    /**
+     * Constructor for an empty OffHeapUserTable using direct buffers
+     */
+    public OffHeapUserTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for an empty OffHeapUserTable using direct buffers
+     * @param capacity number of rows to allocate up front
+     */
+    public OffHeapUserTable(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Constructor for an empty OffHeapUserTable
+     * @param capacity number of rows to allocate up front
+     * @param folder folder for the memory mapped column files, or null to use direct buffers
+     */
+    public OffHeapUserTable(int capacity, File folder) {
+        this.folder = folder;
+        this.capacity = Math.max(16, capacity);
+        this.scores = new ByteBuffer[ScoreCategory.values().length];
+        for (int column = 0; column < scores.length; column++) {
+            scores[column] = allocate("scores-" + column, null, (long) this.capacity * Integer.BYTES);
+        }
+        permissionCodes = allocate("permissions", null, this.capacity);
+        groupCodes = allocate("groups", null, (long) this.capacity * Integer.BYTES);
+        usernameOffsets = allocate("username-offsets", null, (long) this.capacity * Integer.BYTES);
+        usernames = allocate("usernames", null, (long) this.capacity * AVERAGE_USERNAME_BYTES);
+        slotCount = Integer.highestOneBit(this.capacity) * 4;
+        slots = allocate("slots", null, (long) slotCount * Integer.BYTES);
+    }
+
+    /**
+     * Builds an off-heap table holding the given users
+     * @param users users to copy into the table
+     * @param folder folder for the memory mapped column files, or null to use direct buffers
+     * @return table with a row per user
+     */
+    public static OffHeapUserTable of(List<? extends UserScores> users, File folder) {
+        OffHeapUserTable table = new OffHeapUserTable(users.size(), folder);
+        table.putAll(users);
+        return table;
+    }
+
+    /**
+     * Gets the number of bytes the table holds outside the heap
+     * @return off-heap bytes in use by the columns and index
+     */
+    public synchronized long getOffHeapBytes() {
+        long bytes = permissionCodes.capacity() + groupCodes.capacity() + usernameOffsets.capacity() + usernames.capacity() + slots.capacity();
+        for (ByteBuffer column : scores) {
+            bytes += column.capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * Deletes the mapped column files, the table must not be used afterwards.
+     * Direct buffers are freed once the table is unreachable.
+     * @throws IOException when a file cannot be deleted
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (folder != null) {
+            File[] files = folder.listFiles((dir, name) -> name.endsWith(".col"));
+            if (files != null) {
+                for (File file : files) {
+                    Files.deleteIfExists(file.toPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the row of a username by probing the hash table and comparing the stored bytes
+     * @param username username to look for
+     * @return row index, or -1 if the user is not in the table
+     */
+    @Override
+    protected int findRow(String username) {
+        byte[] key = username.getBytes(StandardCharsets.UTF_8);
+        int mask = slotCount - 1;
+        for (int slot = spread(username.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots.getInt(slot * Integer.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            if (usernameEquals(entry - 1, key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Stores the username of a new row and adds it to the hash table, growing the buffers when they are full
+     * @param row index of the new row
+     * @param username username of the new row
+     */
+    @Override
+    protected void appendRow(int row, String username) {
+        byte[] bytes = username.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("username is too long to store");
+        }
+        if (row == capacity) {
+            growRows();
+        }
+        if (usernameBytes + Short.BYTES + bytes.length > usernames.capacity()) {
+            long needed = (long) usernameBytes + Short.BYTES + bytes.length;
+            usernames = allocate("usernames", usernames, Math.max(needed, (long) usernames.capacity() * 2));
+        }
+        usernameOffsets.putInt(row * Integer.BYTES, usernameBytes);
+        usernames.putShort(usernameBytes, (short) bytes.length);
+        usernames.put(usernameBytes + Short.BYTES, bytes);
+        usernameBytes += Short.BYTES + bytes.length;
+        insertSlot(username.hashCode(), row);
+    }
+
+    /**
+     * Decodes the username of a row
+     * @param row row index
+     * @return username
+     */
+    @Override
+    protected String usernameAt(int row) {
+        int offset = usernameOffsets.getInt(row * Integer.BYTES);
+        byte[] bytes = new byte[usernames.getShort(offset)];
+        usernames.get(offset + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads one score
+     * @param column score column
+     * @param row row index
+     * @return score
+     */
+    @Override
+    protected int scoreAt(int column, int row) {
+        return scores[column].getInt(row * Integer.BYTES);
+    }
+
+    /**
+     * Writes one score
+     * @param column score column
+     * @param row row index
+     * @param score score to write
+     */
+    @Override
+    protected void setScore(int column, int row, int score) {
+        scores[column].putInt(row * Integer.BYTES, score);
+    }
+
+    /**
+     * Reads the permission code of a row
+     * @param row row index
+     * @return permission code
+     */
+    @Override
+    protected int permissionCodeAt(int row) {
+        return permissionCodes.get(row) & 0xFF;
+    }
+
+    /**
+     * Writes the permission code of a row
+     * @param row row index
+     * @param code permission code, below 256
+     */
+    @Override
+    protected void setPermissionCode(int row, int code) {
+        if (code > 0xFF) {
+            throw new IllegalStateException("too many distinct permissions");
+        }
+        permissionCodes.put(row, (byte) code);
+    }
+
+    /**
+     * Reads the group code of a row
+     * @param row row index
+     * @return group code
+     */
+    @Override
+    protected int groupCodeAt(int row) {
+        return groupCodes.getInt(row * Integer.BYTES);
+    }
+
+    /**
+     * Writes the group code of a row
+     * @param row row index
+     * @param code group code
+     */
+    @Override
+    protected void setGroupCode(int row, int code) {
+        groupCodes.putInt(row * Integer.BYTES, code);
+    }
+
+    /**
+     * Compares the stored username of a row with the bytes of a username
+     * @param row row index
+     * @param key UTF-8 bytes of the username
+     * @return true if they are the same
+     */
+    private boolean usernameEquals(int row, byte[] key) {
+        int offset = usernameOffsets.getInt(row * Integer.BYTES);
+        if (usernames.getShort(offset) != key.length) {
+            return false;
+        }
+        offset += Short.BYTES;
+        for (int i = 0; i < key.length; i++) {
+            if (usernames.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Puts a row in the first free slot after its hash
+     * @param hash hash code of the username
+     * @param row row index
+     */
+    private void insertSlot(int hash, int row) {
+        int mask = slotCount - 1;
+        int slot = spread(hash) & mask;
+        while (slots.getInt(slot * Integer.BYTES) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots.putInt(slot * Integer.BYTES, row + 1);
+    }
+
+    /**
+     * Doubles the row capacity of every column and rebuilds the hash table at twice its size
+     */
+    private void growRows() {
+        int rowCount = capacity;
+        capacity *= 2;
+        for (int column = 0; column < scores.length; column++) {
+            scores[column] = allocate("scores-" + column, scores[column], (long) capacity * Integer.BYTES);
+        }
+        permissionCodes = allocate("permissions", permissionCodes, capacity);
+        groupCodes = allocate("groups", groupCodes, (long) capacity * Integer.BYTES);
+        usernameOffsets = allocate("username-offsets", usernameOffsets, (long) capacity * Integer.BYTES);
+
+        slotCount *= 2;
+        slots = allocate("slots", null, (long) slotCount * Integer.BYTES);
+        for (int row = 0; row < rowCount; row++) {
+            insertSlot(usernameAt(row).hashCode(), row);
+        }
+    }
+
+    /**
+     * Allocates a buffer, keeping the contents of the buffer it replaces
+     * @param name name of the column, used for the mapped file
+     * @param old buffer being replaced, or null for a new column
+     * @param bytes size of the new buffer
+     * @return direct or mapped buffer in native byte order
+     */
+    private ByteBuffer allocate(String name, ByteBuffer old, long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("user table column " + name + " is larger than 2 GB");
+        }
+        if (folder == null) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+            if (old != null) {
+                buffer.put(0, old, 0, old.capacity());
+            }
+            return buffer;
+        }
+        // mapping a larger region of the same file keeps what was written through the old mapping,
+        // a new column starts from an empty file. The mapping stays valid after the channel is closed.
+        folder.mkdirs();
+        StandardOpenOption start = old == null ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.READ;
+        try (FileChannel channel = FileChannel.open(new File(folder, name + ".col").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, start)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes).order(ByteOrder.nativeOrder());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
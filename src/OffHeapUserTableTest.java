@@ -0,0 +1,114 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the {@link OffHeapUserTable} class.
+ */
+public class OffHeapUserTableTest {
+    /** temporary folders of the test */
+    private final TestUserFiles files = new TestUserFiles();
+
+    /**
+     * Deletes the temporary folders of the test
+     */
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        files.deleteAll();
+    }
+
+    /**
+     * Creates students with scores derived from their number
+     * @param students number of students
+     * @return the students
+     */
+    private static List<UserProfile> createStudents(int students) {
+        List<UserProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < students; i++) {
+            profiles.add(new UserProfile("student" + i, "pw" + i, i % 10 == 0 ? "Teacher" : "Student", i, i % 50, 2, 0));
+        }
+        return profiles;
+    }
+
+    /**
+     * Fills a small table so every buffer grows, then checks it answers like the heap table.
+     * @param table empty table to fill
+     */
+    private static void assertSameAsHeapTable(OffHeapUserTable table) {
+        List<UserProfile> students = createStudents(3000);
+        table.putAll(students);
+        UserTable heapTable = UserTable.of(students);
+
+        assertEquals(3000, table.size());
+        for (int i = 0; i < 3000; i += 7) {
+            UserTable.Row row = table.find("student" + i);
+            assertEquals("student" + i, row.getUsername());
+            assertEquals(i, row.getTotalScore());
+            assertEquals(i % 10 == 0 ? "Teacher" : "Student", row.getPermission());
+        }
+        assertNull(table.find("student3000"));
+        assertArrayEquals(heapTable.topRows(ScoreCategory.MIDDLESEX, 10), table.topRows(ScoreCategory.MIDDLESEX, 10));
+        assertEquals(heapTable.sum(ScoreCategory.TOTAL), table.sum(ScoreCategory.TOTAL));
+        assertEquals(heapTable.average(ScoreCategory.TOTAL, "Teacher"), table.average(ScoreCategory.TOTAL, "Teacher"));
+
+        // updating a user keeps its row
+        int row = table.find("student5").getRow();
+        assertEquals(row, table.put(new UserProfile("student5", "pw", "Student", 9000, 0, 0, 0)));
+        assertEquals("student5", table.getUsername(table.topRows(ScoreCategory.TOTAL, 1)[0]));
+    }
+
+    /**
+     * Direct buffers grow and answer like the heap table.
+     */
+    @Test
+    public void testDirectBuffers() {
+        OffHeapUserTable table = new OffHeapUserTable(16);
+        assertSameAsHeapTable(table);
+        assertTrue(table.getOffHeapBytes() > 3000 * 4 * Integer.BYTES);
+    }
+
+    /**
+     * Mapped files grow and answer like the heap table, and are deleted when the table is closed.
+     */
+    @Test
+    public void testMappedFiles() throws IOException {
+        File folder = files.createFolder("user-table");
+        OffHeapUserTable table = new OffHeapUserTable(16, folder);
+        assertSameAsHeapTable(table);
+        table.close();
+        assertEquals(0, folder.listFiles().length);
+    }
+
+    /**
+     * A database with a mapped user table removes the scratch folder and its files when it is closed.
+     */
+    @Test
+    public void testDatabaseRemovesScratchFiles() throws IOException {
+        File tempFolder = new File(System.getProperty("java.io.tmpdir"));
+        int before = countScratchFolders(tempFolder);
+        System.setProperty("honk.userTable", "mapped");
+        try {
+            Database database = new Database(new InMemoryUserStore(new File("json_files/users.json")), false);
+            assertTrue(database.getUserTable() instanceof OffHeapUserTable);
+            assertEquals(before + 1, countScratchFolders(tempFolder));
+            database.close();
+        } finally {
+            System.clearProperty("honk.userTable");
+        }
+        assertEquals(before, countScratchFolders(tempFolder));
+    }
+
+    /**
+     * Counts the scratch folders of mapped user tables
+     * @param tempFolder temporary folder of the system
+     * @return number of scratch folders
+     */
+    private static int countScratchFolders(File tempFolder) {
+        File[] folders = tempFolder.listFiles((dir, name) -> name.startsWith("honk-user-table"));
+        return folders == null ? 0 : folders.length;
+    }
+}
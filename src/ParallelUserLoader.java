@@ -0,0 +1,294 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads a large users.json on every core of the machine.
+ * <p>
+ *     The file is memory mapped and scanned once for the byte range of every profile object in the top level array,
+ *     which only has to track strings and nesting depth. The ranges are grouped into chunks of roughly equal size
+ *     and a fork/join task parses each chunk with a {@link StreamingUserLoader}. The parsed chunks are then merged
+ *     in file order, so a user listed twice keeps its last entry like the sequential loader.
+ * </p>
+ */
+public final class ParallelUserLoader {
+    /** default size of one chunk of profiles parsed by a single task */
+    public static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+    /** rough size of one pretty printed profile in users.json, used to pre-size the map and range arrays */
+    private static final int AVERAGE_PROFILE_BYTES = 170;
+
+    /** pool running the parse tasks */
+    private final ForkJoinPool pool;
+    /** size of one chunk of profiles */
+    private final int chunkBytes;
+
+    /**
+     * Constructor for ParallelUserLoader using the common pool
+     */
+    public ParallelUserLoader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Constructor for ParallelUserLoader
+     * @param pool pool running the parse tasks, its parallelism is the number of cores used
+     * @param chunkBytes size of one chunk of profiles parsed by a single task
+     */
+    public ParallelUserLoader(ForkJoinPool pool, int chunkBytes) {
+        this.pool = pool;
+        this.chunkBytes = Math.max(1, chunkBytes);
+    }
+
+    /**
+     * Loads every profile of a users.json file
+     * @param file users.json file
+     * @return map of username to profile
+     * @throws IOException when the file cannot be read or is not valid json
+     */
+    public Map<String, UserProfile> load(File file) throws IOException {
+        if (file.length() > Integer.MAX_VALUE) {
+            // a single mapping cannot hold the file
+            return new StreamingUserLoader(true).load(file);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int first = skipWhitespace(buffer, 0);
+            if (first == buffer.limit() || buffer.get(first) != '[') {
+                // null or an empty file, let the sequential loader handle it or report the error
+                return new StreamingUserLoader(true).load(file);
+            }
+
+            int[][] ranges = findObjects(buffer, first, (int) (file.length() / AVERAGE_PROFILE_BYTES + 16));
+            int[] chunks = groupChunks(ranges[0], ranges[1], ranges[2][0]);
+            List<UserProfile> profiles = pool.invoke(new ParseTask(buffer, ranges[0], ranges[1], chunks, 0, chunks.length - 1));
+
+            Map<String, UserProfile> userProfileMap = new ConcurrentHashMap<>(profiles.size() * 4 / 3 + 16);
+            for (UserProfile userProfile : profiles) {
+                userProfileMap.put(userProfile.getUsername(), userProfile);
+            }
+            return userProfileMap;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Scans the array for the start and end of every object directly inside it
+     * @param buffer mapped file
+     * @param arrayStart position of the opening bracket
+     * @param expectedObjects initial size of the range arrays
+     * @return starts, ends (exclusive) and a one element array holding the number of objects
+     * @throws IOException when the array or an object is not closed
+     */
+    private static int[][] findObjects(ByteBuffer buffer, int arrayStart, int expectedObjects) throws IOException {
+        int[] starts = new int[expectedObjects];
+        int[] ends = new int[expectedObjects];
+        int count = 0;
+        int depth = 0;
+        boolean inString = false;
+        int limit = buffer.limit();
+        for (int i = arrayStart; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (inString) {
+                if (b == '\\') {
+                    i++;
+                } else if (b == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (b) {
+                case '"':
+                    inString = true;
+                    break;
+                case '{':
+                case '[':
+                    if (depth == 1) {
+                        if (count == starts.length) {
+                            starts = Arrays.copyOf(starts, count * 2);
+                            ends = Arrays.copyOf(ends, count * 2);
+                        }
+                        starts[count] = i;
+                    }
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    depth--;
+                    if (depth == 1) {
+                        ends[count++] = i + 1;
+                    } else if (depth == 0) {
+                        return new int[][]{starts, ends, {count}};
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        throw new IOException("users.json ends before the array is closed");
+    }
+
+    /**
+     * Groups consecutive objects into chunks of at least the chunk size
+     * @param starts start of every object
+     * @param ends end of every object
+     * @param count number of objects
+     * @return index of the first object of every chunk, followed by count
+     */
+    private int[] groupChunks(int[] starts, int[] ends, int count) {
+        int[] chunks = new int[count + 1];
+        int chunkCount = 0;
+        int i = 0;
+        while (i < count) {
+            chunks[chunkCount++] = i;
+            int chunkStart = starts[i];
+            while (i < count && ends[i] - chunkStart < chunkBytes) {
+                i++;
+            }
+            // a single object larger than a chunk still makes progress
+            if (i < count && chunks[chunkCount - 1] == i) {
+                i++;
+            }
+        }
+        chunks[chunkCount++] = count;
+        return Arrays.copyOf(chunks, chunkCount);
+    }
+
+    /**
+     * Gets the first position that is not whitespace
+     * @param buffer mapped file
+     * @param position position to start at
+     * @return first position holding something else than whitespace, or the limit
+     */
+    private static int skipWhitespace(ByteBuffer buffer, int position) {
+        while (position < buffer.limit() && Character.isWhitespace(buffer.get(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Parses a run of chunks, splitting it in half until a single chunk is left
+     */
+    private static final class ParseTask extends RecursiveTask<List<UserProfile>> {
+        /** mapped file, shared by every task */
+        private final ByteBuffer buffer;
+        /** start of every object */
+        private final int[] starts;
+        /** end of every object */
+        private final int[] ends;
+        /** index of the first object of every chunk */
+        private final int[] chunks;
+        /** first chunk parsed by this task */
+        private final int fromChunk;
+        /** chunk after the last one parsed by this task */
+        private final int toChunk;
+
+        /**
+         * Constructor for ParseTask
+         * @param buffer mapped file
+         * @param starts start of every object
+         * @param ends end of every object
+         * @param chunks index of the first object of every chunk
+         * @param fromChunk first chunk to parse
+         * @param toChunk chunk after the last one to parse
+         */
+        ParseTask(ByteBuffer buffer, int[] starts, int[] ends, int[] chunks, int fromChunk, int toChunk) {
+            this.buffer = buffer;
+            this.starts = starts;
+            this.ends = ends;
+            this.chunks = chunks;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        /**
+         * Parses the chunks, forking half of them when there is more than one
+         * @return parsed profiles in file order
+         */
+        @Override
+        protected List<UserProfile> compute() {
+            if (toChunk - fromChunk <= 1) {
+                return fromChunk < toChunk ? parseChunk() : new ArrayList<>();
+            }
+            int middle = (fromChunk + toChunk) >>> 1;
+            ParseTask left = new ParseTask(buffer, starts, ends, chunks, fromChunk, middle);
+            left.fork();
+            List<UserProfile> right = new ParseTask(buffer, starts, ends, chunks, middle, toChunk).compute();
+            List<UserProfile> profiles = left.join();
+            profiles.addAll(right);
+            return profiles;
+        }
+
+        /**
+         * Parses the objects of one chunk as if they were a json array of their own
+         * @return parsed profiles in file order
+         */
+        private List<UserProfile> parseChunk() {
+            int firstObject = chunks[fromChunk];
+            int lastObject = chunks[fromChunk + 1] - 1;
+            ByteBuffer slice = buffer.slice(starts[firstObject], ends[lastObject] - starts[firstObject]);
+            InputStream input = new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                    new ByteArrayInputStream(new byte[]{'['}),
+                    new ByteBufferInputStream(slice),
+                    new ByteArrayInputStream(new byte[]{']'}))));
+
+            List<UserProfile> profiles = new ArrayList<>(lastObject - firstObject + 1);
+            try (Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16)) {
+                new StreamingUserLoader(true).read(reader, profiles::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return profiles;
+        }
+    }
+
+    /**
+     * Input stream reading the remaining bytes of a buffer
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        /** buffer to read */
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructor for ByteBufferInputStream
+         * @param buffer buffer to read from its position to its limit
+         */
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads one byte
+         * @return the byte, or -1 at the end of the buffer
+         */
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        /**
+         * Reads bytes into an array
+         * @param bytes array to fill
+         * @param offset first index to fill
+         * @param length most number of bytes to read
+         * @return number of bytes read, or -1 at the end of the buffer
+         */
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+    }
+}
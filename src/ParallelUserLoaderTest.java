@@ -0,0 +1,54 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for the {@link ParallelUserLoader} class.
+ */
+public class ParallelUserLoaderTest {
+
+    /**
+     * Loading users.json in many small chunks gives the same users as the sequential loader.
+     */
+    @Test
+    public void testMatchesStreamingLoader() throws IOException {
+        File usersJson = new File("json_files/users.json");
+        Map<String, UserProfile> expected = new StreamingUserLoader(false).load(usersJson);
+        Map<String, UserProfile> loaded = new ParallelUserLoader(new ForkJoinPool(4), 256).load(usersJson);
+
+        assertEquals(expected.keySet(), loaded.keySet());
+        for (UserProfile userProfile : expected.values()) {
+            UserProfile parallel = loaded.get(userProfile.getUsername());
+            assertEquals(userProfile.getPassword(), parallel.getPassword());
+            assertEquals(userProfile.getTotalScore(), parallel.getTotalScore());
+            assertEquals(userProfile.getMiddlesexScore(), parallel.getMiddlesexScore());
+        }
+    }
+
+    /**
+     * Braces, brackets and escaped quotes inside strings, nested values and duplicate users
+     * do not confuse the chunk boundaries.
+     */
+    @Test
+    public void testTrickyJson() throws IOException {
+        File jsonFile = Files.createTempFile("users", ".json").toFile();
+        jsonFile.deleteOnExit();
+        Files.write(jsonFile.toPath(), ("[{\"username\":\"a}{\",\"password\":\"p\\\"]\",\"totalScore\":1},"
+                + "{\"username\":\"b\",\"extra\":{\"nested\":[1,{\"x\":\"}\"}]},\"totalScore\":2},"
+                + "{\"username\":\"a}{\",\"password\":\"second\",\"totalScore\":3}]").getBytes(StandardCharsets.UTF_8));
+
+        Map<String, UserProfile> loaded = new ParallelUserLoader(new ForkJoinPool(2), 1).load(jsonFile);
+        assertEquals(2, loaded.size());
+        assertEquals("second", loaded.get("a}{").getPassword());
+        assertEquals(3, loaded.get("a}{").getTotalScore());
+        assertEquals(2, loaded.get("b").getTotalScore());
+
+        Files.write(jsonFile.toPath(), " [ ] ".getBytes(StandardCharsets.UTF_8));
+        assertTrue(new ParallelUserLoader().load(jsonFile).isEmpty());
+    }
+}
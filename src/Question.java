@@ -43,6 +43,12 @@ public class Question {
         this.difficulty = difficulty;
     }
 
+    /**
+     * getter method for id
+     * @return the question id, unique within the question bank
+     */
+    public int getId() { return this.id;}
+
     /**
      * getter method for question
      * @return the question text.
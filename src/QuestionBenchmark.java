@@ -0,0 +1,101 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark comparing random question selection by filtering the whole bank and through the {@link QuestionIndex}.
+ * <p>
+ *     Generates a question bank spread over a few mini-games and the three difficulties, then serves questions
+ *     for random scores, once by copying and filtering every question for each one like
+ *     {@link QuestionDatabase#getRandomQuestion(int, String)} used to, and once through the index.
+ * </p>
+ * <pre>
+ *     java QuestionBenchmark [number of questions] [questions served]
+ * </pre>
+ */
+public class QuestionBenchmark {
+    /** mini-games the generated questions belong to */
+    private static final String[] MINI_GAMES = {"middlesex", "naturalSciences", "talbot"};
+
+    /**
+     * Runs the benchmark
+     * @param args number of questions and number of questions served
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int served = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        List<Question> bank = generateBank(size);
+        QuestionDatabase questionDatabase = new QuestionDatabase(bank, new SplittableRandom(42));
+        System.out.printf("%,d questions, %,d served%n", size, served);
+
+        long filterNanos = Long.MAX_VALUE;
+        long indexNanos = Long.MAX_VALUE;
+        for (int repetition = 0; repetition < 3; repetition++) {
+            Random scores = new Random(7);
+            long start = System.nanoTime();
+            int filterHits = 0;
+            for (int i = 0; i < served; i++) {
+                filterHits += filterRandomQuestion(bank, scores.nextInt(1500), "middlesex") != null ? 1 : 0;
+            }
+            filterNanos = Math.min(filterNanos, System.nanoTime() - start);
+
+            scores = new Random(7);
+            start = System.nanoTime();
+            int indexHits = 0;
+            // the index is fast enough that the same number of questions barely registers, serve a hundred times as many
+            for (int i = 0; i < served * 100; i++) {
+                indexHits += questionDatabase.getRandomQuestion(scores.nextInt(1500), "middlesex") != null ? 1 : 0;
+            }
+            indexNanos = Math.min(indexNanos, (System.nanoTime() - start) / 100);
+            if (filterHits * 100 != indexHits) {
+                throw new IllegalStateException("questions served differ: " + filterHits + " and " + indexHits);
+            }
+        }
+        System.out.printf("filter %,14.0f questions/s%n", served * 1e9 / filterNanos);
+        System.out.printf("index  %,14.0f questions/s%n", served * 1e9 / indexNanos);
+    }
+
+    /**
+     * Picks a random question the way the question database did before the index,
+     * copying and filtering the whole bank
+     * @param bank every question
+     * @param score of user
+     * @param miniGame currently playing
+     * @return random question, or null if there is none of that difficulty
+     */
+    private static Question filterRandomQuestion(List<Question> bank, int score, String miniGame) {
+        List<Question> allQuestions = new ArrayList<>(bank);
+        int difficulty = QuestionDatabase.difficultyFor(score);
+        List<Question> filteredQuestions = new ArrayList<>();
+        for (Question question : allQuestions) {
+            if (question.getDifficulty() == difficulty && question.getMinigame().equals(miniGame)) {
+                filteredQuestions.add(question);
+            }
+        }
+        if (filteredQuestions.isEmpty()) {
+            return null;
+        }
+        return filteredQuestions.get(new Random().nextInt(filteredQuestions.size()));
+    }
+
+    /**
+     * Generates a bank of written sum questions
+     * @param size number of questions
+     * @return generated questions
+     */
+    static List<Question> generateBank(int size) {
+        Random random = new Random(2212);
+        List<Question> bank = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int a = random.nextInt(1000);
+            int b = random.nextInt(1000);
+            List<String> answer = new ArrayList<>();
+            answer.add(Integer.toString(a + b));
+            bank.add(new Question(i + 1, MINI_GAMES[i % MINI_GAMES.length], a + "+" + b + " #" + i, "written",
+                    new ArrayList<>(), answer, 1 + random.nextInt(3)));
+        }
+        return bank;
+    }
+}
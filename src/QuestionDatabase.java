@@ -11,10 +11,14 @@ import java.util.*;
  * @author Marissa Wang
  */
 public class QuestionDatabase {
-    /** Map of questions */
-    private Map<String, Question> questionMap;
+    /** List of questions, in the order of the json file */
+    private List<Question> questionList;
     /** file path of question json file */
     private String jsonFilePath = "json_files/question.json";
+    /** questions by mini-game and difficulty, built once the questions are loaded */
+    private QuestionIndex questionIndex;
+    /** random number generator picking the questions */
+    private SplittableRandom random;
 
     /**
      * Question database constructor.
@@ -26,24 +30,54 @@ public class QuestionDatabase {
         // work with GSON's Library
         Gson gson = new Gson();
         Type type = new TypeToken<List<Question>>() {}.getType();
+        List<Question> questionList = new ArrayList<>();
 
         // Create file reader
         try (FileReader reader = new FileReader(jsonFilePath)) {
             // make it a list of user profiles from json file
-            List<Question> questionList = gson.fromJson(reader, type);
-
-            // create the Map
-            questionMap = new HashMap<>();
-
-            // populate the Map
-            for (Question question : questionList) {
-                questionMap.put(question.getQuestion(), question);
-            }
+            questionList = gson.fromJson(reader, type);
 
         } catch (Exception e) {
             // Handle any exceptions
             e.printStackTrace();
         }
+        // an empty file reads as null
+        load(questionList == null ? new ArrayList<>() : questionList);
+        random = new SplittableRandom();
+    }
+
+    /**
+     * Question database constructor for a question bank already in memory, such as a generated one
+     * @param questionList questions of the bank
+     * @param random random number generator picking the questions, seeded to repeat a session
+     * @throws IllegalArgumentException when a question id is not positive or is used twice
+     */
+    public QuestionDatabase(List<Question> questionList, SplittableRandom random) {
+        load(questionList);
+        this.random = random;
+    }
+
+    /**
+     * Keeps the questions and builds the index of the question bank.
+     * Questions with the same text are kept apart, they are told apart by id.
+     * @param questionList questions of the bank
+     * @throws IllegalArgumentException when a question id is not positive or is used twice
+     */
+    private void load(List<Question> questionList) {
+        this.questionList = new ArrayList<>(questionList);
+        questionIndex = new QuestionIndex(this.questionList);
+    }
+
+    /**
+     * Gives the question difficulty for a score
+     * @param score of user
+     * @return difficulty from 1 to 3
+     */
+    public static int difficultyFor(int score) {
+        // Checks user score to determine difficulty of questions
+        if (score >= 1000) {return 3;}
+        else if (score >= 500) {return 2;}
+        else {return 1;}
     }
 
     /**
@@ -51,38 +85,50 @@ public class QuestionDatabase {
      * returns random question, appropriate for users current mini-game and current score
      * @param score of user
      * @param miniGame currently playing
-     * @return random question from question json file
+     * @return random question from question json file, or null if there is none of that difficulty
      */
     public Question getRandomQuestion(int score, String miniGame) {
-        // Get all questions from the questionMap
-        List<Question> allQuestions = new ArrayList<>(questionMap.values());
-
-        int difficulty = 0;
+        return questionIndex.randomQuestion(miniGame, difficultyFor(score), random);
+    }
 
-        // Checks user score to determine difficulty of questions
-        if (score >= 1000) {difficulty = 3;}
-        else if (score >= 500) {difficulty = 2;}
-        else {difficulty = 1;}
-
-        // Filter questions by the specified difficulty and mini game
-        List<Question> filteredQuestions = new ArrayList<>();
-        for (Question question : allQuestions) {
-            if (question.getDifficulty() == difficulty && question.getMinigame().equals(miniGame)) {
-                filteredQuestions.add(question);
-            }
-        }
+    /**
+     * get random question method for a student.
+     * returns random question the student has not answered correctly before, appropriate for their current
+     * mini-game and current score, or any such question once every one is mastered
+     * @param score of user
+     * @param miniGame currently playing
+     * @param mastered ids of the questions the student already answered correctly
+     * @return random question from question json file, or null if there is none of that difficulty
+     */
+    public Question getRandomQuestion(int score, String miniGame, MasteryBitmap mastered) {
+        return questionIndex.randomQuestion(miniGame, difficultyFor(score), random, mastered);
+    }
 
-        // If no questions of the specified difficulty are found, return null
-        if (filteredQuestions.isEmpty()) {
-            return null;
-        }
+    /**
+     * Starts a deck for a play session, so its questions do not repeat until every one has been asked.
+     * The deck gets its own random number generator split from this one.
+     * @return new deck
+     */
+    public QuestionDeck newDeck() {
+        return newDeck(new MasteryBitmap());
+    }
 
-        // Generate a random index for the filtered questions
-        Random random = new Random();
-        int randomIndex = random.nextInt(filteredQuestions.size());
+    /**
+     * Starts a deck for a student's play session, leaving out the questions they answered correctly before.
+     * Questions mastered during the session are left out from the deck's next round.
+     * @param mastered ids of the questions the student answered correctly, the bitmap of their profile
+     * @return new deck
+     */
+    public QuestionDeck newDeck(MasteryBitmap mastered) {
+        return new QuestionDeck(questionIndex, random.split(), mastered);
+    }
 
-        // Return the question at the random index from the filtered questions
-        return filteredQuestions.get(randomIndex);
+    /**
+     * Gets the index of the question bank by mini-game and difficulty
+     * @return question index
+     */
+    public QuestionIndex getQuestionIndex() {
+        return questionIndex;
     }
 
 
@@ -107,12 +153,22 @@ public class QuestionDatabase {
     }
 
     /**
-     * returns question object given questions String text
+     * returns question object given its id
+     * @param id id of the question
+     * @return question object with the id, or null if there is none
+     */
+    public Question getQuestion(int id) {
+        return questionIndex.getQuestion(id);
+    }
+
+    /**
+     * returns question object given questions String text.
+     * Looks through every question, games keep the question they asked or its id instead
      * @param questionText String text of question
      * @return question object corresponding to the text
      */
     public Question getQuestion(String questionText) {
-        for (Question question : questionMap.values()) {
+        for (Question question : questionList) {
             if (question.getQuestion().equalsIgnoreCase(questionText)) {
                 return question;
             }
@@ -63,4 +63,13 @@ public class QuestionDatabaseTest {
         }
     }
 
+    @Test
+    public void testGetQuestionById() throws FileNotFoundException {
+        // ids in question.json are unique, so every question is found by its own id
+        QuestionDatabase databaseQuestion = new QuestionDatabase();
+        Question byText = databaseQuestion.getQuestion("4*9");
+        Assertions.assertSame(byText, databaseQuestion.getQuestion(byText.getId()));
+        Assertions.assertNull(databaseQuestion.getQuestion(-1));
+    }
+
 }
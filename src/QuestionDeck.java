@@ -0,0 +1,170 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deck of questions for one play session, dealing every question once before any question repeats.
+ * <p>
+ *     Each mini-game and difficulty has its own pile over the {@link QuestionIndex} arrays, shuffled one card at a
+ *     time with Fisher-Yates: dealing swaps a random undealt card to the front of the undealt part, so a deal is O(1)
+ *     and nothing is shuffled up front. When a pile runs out it is dealt again in a new random order, and the
+ *     question dealt last is never the first of the next round. A pile is only created the first time its difficulty
+ *     is asked for, and keeps its place while the player's score moves to another difficulty and back.
+ * </p>
+ * <p>
+ *     Questions the student has mastered, in earlier sessions or earlier rounds of this one, are moved out of a pile
+ *     when a round starts, one pass over the pile per round. Once every question of a pile is mastered the pile
+ *     deals all of them again rather than none.
+ * </p>
+ */
+public class QuestionDeck {
+    /** index the piles deal from */
+    private final QuestionIndex questionIndex;
+    /** random number generator of the session */
+    private final SplittableRandom random;
+    /** ids of the questions the student has mastered */
+    private final MasteryBitmap mastered;
+    /** piles by mini-game, then by difficulty, created when first dealt from */
+    private final Map<String, Pile[]> piles = new HashMap<>();
+
+    /**
+     * Constructor for QuestionDeck dealing every question
+     * @param questionIndex index the questions are dealt from
+     * @param random random number generator of the session
+     */
+    public QuestionDeck(QuestionIndex questionIndex, SplittableRandom random) {
+        this(questionIndex, random, new MasteryBitmap());
+    }
+
+    /**
+     * Constructor for QuestionDeck leaving out the questions a student has mastered
+     * @param questionIndex index the questions are dealt from
+     * @param random random number generator of the session
+     * @param mastered ids of the questions the student has mastered, read again at the start of every round
+     */
+    public QuestionDeck(QuestionIndex questionIndex, SplittableRandom random, MasteryBitmap mastered) {
+        this.questionIndex = questionIndex;
+        this.random = random;
+        this.mastered = mastered;
+    }
+
+    /**
+     * Deals the next question of a mini-game and difficulty
+     * @param miniGame mini-game the question belongs to
+     * @param difficulty difficulty of the question
+     * @return question not dealt since its pile was last used up, or null if there are no such questions
+     */
+    public Question deal(String miniGame, int difficulty) {
+        if (difficulty < 0) {
+            return null;
+        }
+        Pile[] byDifficulty = piles.get(miniGame);
+        if (byDifficulty == null || difficulty >= byDifficulty.length) {
+            Pile[] grown = new Pile[difficulty + 1];
+            if (byDifficulty != null) {
+                System.arraycopy(byDifficulty, 0, grown, 0, byDifficulty.length);
+            }
+            byDifficulty = grown;
+            piles.put(miniGame, byDifficulty);
+        }
+        if (byDifficulty[difficulty] == null) {
+            byDifficulty[difficulty] = new Pile(questionIndex.getQuestions(miniGame, difficulty));
+        }
+        return byDifficulty[difficulty].deal(random, mastered);
+    }
+
+    /**
+     * Cards of one mini-game and difficulty, in the order they are being dealt
+     */
+    private static final class Pile {
+        /** questions of the pile, shared with the index */
+        private final Question[] questions;
+        /** positions in {@link #questions}, the first {@link #live} are dealt, the rest are mastered */
+        private final int[] order;
+        /** number of questions dealt each round */
+        private int live;
+        /** number of questions dealt this round */
+        private int dealt;
+        /** position in {@link #questions} of the question dealt last, -1 before the first deal */
+        private int lastCard = -1;
+        /** true once every question of the pile was mastered, they are all dealt again */
+        private boolean allMastered;
+
+        /**
+         * Constructor for Pile
+         * @param questions questions of the pile
+         */
+        Pile(Question[] questions) {
+            this.questions = questions;
+            order = new int[questions.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            // the first deal starts a round, which leaves out the mastered questions
+            live = order.length;
+            dealt = live;
+        }
+
+        /**
+         * Deals the next question
+         * @param random random number generator of the session
+         * @param mastered ids of the questions the student has mastered
+         * @return the question, or null if the pile is empty
+         */
+        Question deal(SplittableRandom random, MasteryBitmap mastered) {
+            if (order.length == 0) {
+                return null;
+            }
+            if (dealt == live) {
+                startRound(mastered);
+            }
+            // the last card of a round is at the end, so it cannot be dealt again straight away
+            int end = dealt == 0 && live > 1 && order[live - 1] == lastCard ? live - 1 : live;
+            int pick = dealt + random.nextInt(end - dealt);
+            int card = order[pick];
+            order[pick] = order[dealt];
+            order[dealt] = card;
+            dealt++;
+            lastCard = card;
+            return questions[card];
+        }
+
+        /**
+         * Starts a new round, moving the mastered questions behind the ones to deal
+         * @param mastered ids of the questions the student has mastered
+         */
+        private void startRound(MasteryBitmap mastered) {
+            dealt = 0;
+            if (!allMastered) {
+                int kept = 0;
+                for (int i = 0; i < live; i++) {
+                    if (!mastered.contains(questions[order[i]].getId())) {
+                        swap(kept++, i);
+                    }
+                }
+                if (kept == 0) {
+                    allMastered = true;
+                    kept = order.length;
+                }
+                live = kept;
+            }
+            for (int i = 0; i < live; i++) {
+                if (order[i] == lastCard) {
+                    swap(i, live - 1);
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Swaps two positions of the order
+         * @param i first position
+         * @param j second position
+         */
+        private void swap(int i, int j) {
+            int card = order[i];
+            order[i] = order[j];
+            order[j] = card;
+        }
+    }
+}
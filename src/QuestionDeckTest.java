@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Unit tests for the {@link QuestionDeck} class.
+ */
+public class QuestionDeckTest {
+
+    /**
+     * Every question of a difficulty is dealt once before any repeats, round after round,
+     * and the last question of a round is never the first of the next.
+     */
+    @Test
+    public void testNoRepeatsWithinRound() {
+        QuestionIndex index = new QuestionIndex(QuestionBenchmark.generateBank(600));
+        QuestionDeck deck = new QuestionDeck(index, new SplittableRandom(4));
+        int size = index.count("middlesex", 1);
+
+        Question last = null;
+        for (int round = 0; round < 20; round++) {
+            Set<Question> dealt = new HashSet<>();
+            for (int i = 0; i < size; i++) {
+                Question question = deck.deal("middlesex", 1);
+                assertEquals(1, question.getDifficulty());
+                assertTrue(dealt.add(question), "repeated in round " + round);
+                if (i == 0) {
+                    assertNotSame(last, question);
+                }
+                last = question;
+            }
+        }
+    }
+
+    /**
+     * Moving to another difficulty and back carries on the round that was being dealt.
+     */
+    @Test
+    public void testDifficultyChangeKeepsRound() {
+        List<Question> bank = QuestionBenchmark.generateBank(300);
+        QuestionIndex index = new QuestionIndex(bank);
+        QuestionDeck deck = new QuestionDeck(index, new SplittableRandom(8));
+        int size = index.count("middlesex", 2);
+
+        Set<Question> dealt = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            assertTrue(dealt.add(deck.deal("middlesex", 2)));
+            if (i % 3 == 0) {
+                assertEquals(3, deck.deal("middlesex", 3).getDifficulty());
+            }
+        }
+        assertEquals(size, dealt.size());
+        assertNull(deck.deal("middlesex", 7));
+        assertNull(deck.deal("unknown", 1));
+    }
+
+    /**
+     * A pile of one question keeps dealing it.
+     */
+    @Test
+    public void testSingleQuestion() {
+        List<Question> bank = QuestionBenchmark.generateBank(1);
+        QuestionDeck deck = new QuestionDeck(new QuestionIndex(bank), new SplittableRandom(1));
+        for (int i = 0; i < 3; i++) {
+            assertSame(bank.get(0), deck.deal(bank.get(0).getMinigame(), bank.get(0).getDifficulty()));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Immutable index of the question bank by id, and by mini-game and difficulty for picking a random question.
+ * <p>
+ *     Built once when the questions are loaded. Each mini-game maps to one array of questions per difficulty,
+ *     so picking a question is a map lookup, an array lookup and one random number, and allocates nothing.
+ *     The random number generator is passed in, so each game session can use its own seeded
+ *     {@link SplittableRandom} and a seeded session always asks the same questions.
+ * </p>
+ * <p>
+ *     Question ids must be positive and unique, the bank is rejected otherwise. They are kept in an open addressing
+ *     table of int keys, so finding a question by id never boxes the id and takes the same time however large
+ *     the bank is.
+ * </p>
+ */
+public class QuestionIndex {
+    /** shared empty result */
+    private static final Question[] NO_QUESTIONS = new Question[0];
+
+    /** questions by mini-game, then by difficulty */
+    private final Map<String, Question[][]> questions;
+    /** question id per slot of the id table, 0 for an empty slot */
+    private final int[] idSlots;
+    /** question per slot of the id table */
+    private final Question[] questionSlots;
+
+    /**
+     * Constructor for QuestionIndex, indexes a question bank
+     * @param questionBank questions to index, those without a mini-game or with a negative difficulty
+     *                     can only be found by id
+     * @throws IllegalArgumentException when a question id is not positive or is used twice
+     */
+    public QuestionIndex(Collection<Question> questionBank) {
+        // at most half the slots are used, so probes stay short
+        int slotCount = Integer.highestOneBit(Math.max(1, questionBank.size()) * 2 - 1) << 1;
+        idSlots = new int[slotCount];
+        questionSlots = new Question[slotCount];
+        for (Question question : questionBank) {
+            if (question.getId() <= 0) {
+                throw new IllegalArgumentException("question id must be positive: " + question.getId()
+                        + " for " + question.getQuestion());
+            }
+            int slot = findSlot(question.getId());
+            if (idSlots[slot] != 0) {
+                throw new IllegalArgumentException("question id " + question.getId() + " is used by both "
+                        + questionSlots[slot].getQuestion() + " and " + question.getQuestion());
+            }
+            idSlots[slot] = question.getId();
+            questionSlots[slot] = question;
+        }
+
+        // gather the questions in lists first, the arrays are sized once every question is known
+        Map<String, List<List<Question>>> grouped = new HashMap<>();
+        for (Question question : questionBank) {
+            if (question.getMinigame() == null || question.getDifficulty() < 0) {
+                continue;
+            }
+            List<List<Question>> byDifficulty = grouped.computeIfAbsent(question.getMinigame(), k -> new ArrayList<>());
+            while (byDifficulty.size() <= question.getDifficulty()) {
+                byDifficulty.add(new ArrayList<>());
+            }
+            byDifficulty.get(question.getDifficulty()).add(question);
+        }
+
+        questions = new HashMap<>();
+        for (Map.Entry<String, List<List<Question>>> entry : grouped.entrySet()) {
+            List<List<Question>> byDifficulty = entry.getValue();
+            Question[][] arrays = new Question[byDifficulty.size()][];
+            for (int difficulty = 0; difficulty < arrays.length; difficulty++) {
+                arrays[difficulty] = byDifficulty.get(difficulty).toArray(new Question[0]);
+            }
+            questions.put(entry.getKey(), arrays);
+        }
+    }
+
+    /**
+     * Picks a random question of a mini-game and difficulty
+     * @param miniGame mini-game the question belongs to
+     * @param difficulty difficulty of the question
+     * @param random random number generator of the game session
+     * @return random question, or null if the mini-game has no question of that difficulty
+     */
+    public Question randomQuestion(String miniGame, int difficulty, SplittableRandom random) {
+        Question[] matching = getQuestions(miniGame, difficulty);
+        if (matching.length == 0) {
+            return null;
+        }
+        return matching[random.nextInt(matching.length)];
+    }
+
+    /**
+     * Picks a random question of a mini-game and difficulty the student has not mastered yet.
+     * A few random picks find one quickly while most questions are new, after that the questions are
+     * looked through from a random place, and once every question is mastered any of them is picked.
+     * @param miniGame mini-game the question belongs to
+     * @param difficulty difficulty of the question
+     * @param random random number generator of the game session
+     * @param mastered ids of the questions the student already answered correctly
+     * @return random question, or null if the mini-game has no question of that difficulty
+     */
+    public Question randomQuestion(String miniGame, int difficulty, SplittableRandom random, MasteryBitmap mastered) {
+        Question[] matching = getQuestions(miniGame, difficulty);
+        if (matching.length == 0) {
+            return null;
+        }
+        for (int attempt = 0; attempt < 8; attempt++) {
+            Question question = matching[random.nextInt(matching.length)];
+            if (!mastered.contains(question.getId())) {
+                return question;
+            }
+        }
+        int start = random.nextInt(matching.length);
+        for (int i = 0; i < matching.length; i++) {
+            Question question = matching[(start + i) % matching.length];
+            if (!mastered.contains(question.getId())) {
+                return question;
+            }
+        }
+        return matching[start];
+    }
+
+    /**
+     * Finds a question by id
+     * @param id question id
+     * @return the question, or null if no question has that id
+     */
+    public Question getQuestion(int id) {
+        return id <= 0 ? null : questionSlots[findSlot(id)];
+    }
+
+    /**
+     * Gets the number of questions of a mini-game and difficulty
+     * @param miniGame mini-game the questions belong to
+     * @param difficulty difficulty of the questions
+     * @return number of questions
+     */
+    public int count(String miniGame, int difficulty) {
+        return getQuestions(miniGame, difficulty).length;
+    }
+
+    /**
+     * Gets the questions of a mini-game and difficulty
+     * @param miniGame mini-game the questions belong to
+     * @param difficulty difficulty of the questions
+     * @return the indexed array, empty if there are none, must not be changed
+     */
+    Question[] getQuestions(String miniGame, int difficulty) {
+        Question[][] byDifficulty = questions.get(miniGame);
+        if (byDifficulty == null || difficulty < 0 || difficulty >= byDifficulty.length) {
+            return NO_QUESTIONS;
+        }
+        return byDifficulty[difficulty];
+    }
+
+    /**
+     * Finds the slot of an id in the id table
+     * @param id question id, positive
+     * @return the slot holding the id, or the empty slot where it would go
+     */
+    private int findSlot(int id) {
+        int mask = idSlots.length - 1;
+        // ids are usually consecutive, mixing the bits keeps them from filling runs of neighbouring slots
+        int hash = id * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (idSlots[slot] != 0 && idSlots[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,106 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Unit tests for the {@link QuestionIndex} class.
+ */
+public class QuestionIndexTest {
+
+    /**
+     * Picked questions match the mini-game and difficulty, and every matching question can be picked.
+     */
+    @Test
+    public void testPicksEveryMatchingQuestion() {
+        List<Question> bank = QuestionBenchmark.generateBank(3_000);
+        QuestionIndex index = new QuestionIndex(bank);
+
+        int expected = 0;
+        for (Question question : bank) {
+            if (question.getMinigame().equals("middlesex") && question.getDifficulty() == 2) {
+                expected++;
+            }
+        }
+        assertEquals(expected, index.count("middlesex", 2));
+
+        SplittableRandom random = new SplittableRandom(1);
+        Set<Question> picked = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            Question question = index.randomQuestion("middlesex", 2, random);
+            assertEquals("middlesex", question.getMinigame());
+            assertEquals(2, question.getDifficulty());
+            picked.add(question);
+        }
+        assertEquals(expected, picked.size());
+    }
+
+    /**
+     * A mini-game or difficulty without questions gives null.
+     */
+    @Test
+    public void testMissingQuestions() {
+        List<String> answer = new ArrayList<>();
+        answer.add("12");
+        List<Question> bank = new ArrayList<>();
+        bank.add(new Question(1, "middlesex", "5+7", "written", new ArrayList<>(), answer, 1));
+        QuestionIndex index = new QuestionIndex(bank);
+        SplittableRandom random = new SplittableRandom(1);
+
+        assertSame(bank.get(0), index.randomQuestion("middlesex", 1, random));
+        assertNull(index.randomQuestion("middlesex", 3, random));
+        assertNull(index.randomQuestion("talbot", 1, random));
+        assertEquals(0, index.count("middlesex", -1));
+    }
+
+    /**
+     * Two sessions seeded the same are asked the same questions.
+     */
+    @Test
+    public void testSeededSessionsRepeat() {
+        List<Question> bank = QuestionBenchmark.generateBank(1_000);
+        QuestionDatabase first = new QuestionDatabase(bank, new SplittableRandom(99));
+        QuestionDatabase second = new QuestionDatabase(bank, new SplittableRandom(99));
+        for (int score = 0; score < 1500; score += 10) {
+            assertSame(first.getRandomQuestion(score, "middlesex"), second.getRandomQuestion(score, "middlesex"));
+        }
+    }
+
+    /**
+     * Every question is found by its id, also questions with the same text.
+     */
+    @Test
+    public void testFindById() {
+        List<Question> bank = QuestionBenchmark.generateBank(10_000);
+        List<String> answer = new ArrayList<>();
+        answer.add("12");
+        Question twin = new Question(20_000, "middlesex", bank.get(0).getQuestion(), "written", new ArrayList<>(), answer, 1);
+        bank.add(twin);
+        QuestionIndex index = new QuestionIndex(bank);
+
+        for (Question question : bank) {
+            assertSame(question, index.getQuestion(question.getId()));
+        }
+        assertNotSame(index.getQuestion(1), index.getQuestion(20_000));
+        assertNull(index.getQuestion(15_000));
+        assertNull(index.getQuestion(0));
+    }
+
+    /**
+     * A bank using an id twice, or a non-positive id, is rejected.
+     */
+    @Test
+    public void testRejectsBadIds() {
+        List<Question> bank = QuestionBenchmark.generateBank(100);
+        List<String> answer = new ArrayList<>();
+        answer.add("12");
+        bank.add(new Question(7, "middlesex", "5+7", "written", new ArrayList<>(), answer, 1));
+        assertThrows(IllegalArgumentException.class, () -> new QuestionIndex(bank));
+
+        bank.set(bank.size() - 1, new Question(0, "middlesex", "5+7", "written", new ArrayList<>(), answer, 1));
+        assertThrows(IllegalArgumentException.class, () -> new QuestionIndex(bank));
+    }
+}
@@ -0,0 +1,38 @@
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * User store that can read one profile at a time, so the {@link Database} does not have to load every user.
+ * <p>
+ *     Used by {@link LazyUserProfileMap} to keep only the usernames resident and read full profiles on demand.
+ * </p>
+ */
+public interface RandomAccessUserStore extends UserStore {
+
+    /**
+     * Reads one profile
+     * @param username username of the profile
+     * @return the profile, or null if there is no such user
+     * @throws IOException when the store cannot be read
+     */
+    UserProfile load(String username) throws IOException;
+
+    /**
+     * Checks whether a user is stored without reading the profile
+     * @param username username to look for
+     * @return true if the user is stored
+     */
+    boolean contains(String username);
+
+    /**
+     * Gets the number of stored users
+     * @return number of users
+     */
+    int size();
+
+    /**
+     * Gets every stored username
+     * @return copy of the usernames
+     */
+    List<String> usernames();
+}
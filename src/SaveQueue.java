@@ -0,0 +1,178 @@
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Write-behind queue that saves user profiles on a single background writer thread.
+ * <p>
+ *     Screens hand changed profiles to the queue and return immediately, so the Event Dispatch Thread
+ *     never waits for serialization or the disk. Requests that arrive close together are merged,
+ *     only the latest version of each profile is written, and any number of snapshot requests become one write.
+ * </p>
+ */
+public class SaveQueue {
+    /** how long the writer waits for more requests before writing a batch */
+    private static final long COALESCE_DELAY_MILLIS = 100;
+    /** how long the shutdown hook waits for pending saves */
+    private static final long SHUTDOWN_FLUSH_SECONDS = 10;
+
+    /**
+     * Performs the actual write of a merged batch, always called on the writer thread.
+     */
+    public interface BatchWriter {
+        /**
+         * Writes one merged batch
+         * @param changed latest version of every profile changed since the previous batch
+         * @param snapshot true if a full snapshot was requested
+         * @throws IOException when the batch cannot be written
+         */
+        void write(Collection<UserProfile> changed, boolean snapshot) throws IOException;
+    }
+
+    /** writes the merged batches */
+    private final BatchWriter batchWriter;
+    /** the single writer thread */
+    private final ScheduledExecutorService writer;
+    /** profiles waiting to be written, keyed by username so repeated saves merge */
+    private final Map<String, UserProfile> pending = new LinkedHashMap<>();
+    /** true if a snapshot was requested since the last batch */
+    private boolean snapshotPending;
+    /** true if a batch is already scheduled on the writer thread */
+    private boolean drainScheduled;
+    /** time the oldest pending request was queued */
+    private long oldestRequestNanos;
+    /** time from queueing to finishing the last batch */
+    private volatile long lastSaveLatencyMillis;
+    /** number of batches written */
+    private volatile long batchesWritten;
+
+    /**
+     * Constructor for SaveQueue, starts the writer thread and registers a shutdown hook
+     * that flushes pending saves when the game exits
+     * @param name name of the writer thread
+     * @param batchWriter writes the merged batches
+     */
+    public SaveQueue(String name, BatchWriter batchWriter) {
+        this.batchWriter = batchWriter;
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(SHUTDOWN_FLUSH_SECONDS), name + "-shutdown"));
+    }
+
+    /**
+     * Queues a changed profile to be saved, a newer request for the same user replaces the older one
+     * @param userProfile profile to save
+     */
+    public synchronized void submit(UserProfile userProfile) {
+        pending.put(userProfile.getUsername(), userProfile);
+        scheduleDrain();
+    }
+
+    /**
+     * Queues a full snapshot write
+     */
+    public synchronized void requestSnapshot() {
+        snapshotPending = true;
+        scheduleDrain();
+    }
+
+    /**
+     * Writes everything queued so far and waits until it is on disk.
+     * Used before the game exits.
+     */
+    public void flush() {
+        flush(Long.MAX_VALUE);
+    }
+
+    /**
+     * Writes everything queued so far and waits until it is on disk or the timeout passes
+     * @param timeoutSeconds longest time to wait
+     */
+    private void flush(long timeoutSeconds) {
+        try {
+            writer.submit(this::drain).get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Checks whether a profile is waiting to be written
+     * @param username username of the profile
+     * @return true if a save of the user is pending
+     */
+    public synchronized boolean isPending(String username) {
+        return pending.containsKey(username);
+    }
+
+    /**
+     * Gets the number of saves waiting for the writer
+     * @return number of pending profiles, plus one if a snapshot is pending
+     */
+    public synchronized int getQueueDepth() {
+        return pending.size() + (snapshotPending ? 1 : 0);
+    }
+
+    /**
+     * Gets the time between the oldest request of the last batch being queued and the batch being written
+     * @return latency of the last save in milliseconds
+     */
+    public long getLastSaveLatencyMillis() {
+        return lastSaveLatencyMillis;
+    }
+
+    /**
+     * Gets the number of batches written, each one may hold many merged requests
+     * @return number of batches written
+     */
+    public long getBatchesWritten() {
+        return batchesWritten;
+    }
+
+    /**
+     * Schedules a batch on the writer thread unless one is already waiting
+     */
+    private void scheduleDrain() {
+        if (oldestRequestNanos == 0) {
+            oldestRequestNanos = System.nanoTime();
+        }
+        if (!drainScheduled) {
+            drainScheduled = true;
+            writer.schedule(this::drain, COALESCE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Takes every pending request and writes them as one batch, runs on the writer thread
+     */
+    private void drain() {
+        List<UserProfile> changed;
+        boolean snapshot;
+        long queuedNanos;
+        synchronized (this) {
+            drainScheduled = false;
+            if (pending.isEmpty() && !snapshotPending) {
+                return;
+            }
+            changed = new ArrayList<>(pending.values());
+            snapshot = snapshotPending;
+            queuedNanos = oldestRequestNanos;
+            pending.clear();
+            snapshotPending = false;
+            oldestRequestNanos = 0;
+        }
+
+        try {
+            batchWriter.write(changed, snapshot);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        batchesWritten++;
+        lastSaveLatencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedNanos);
+    }
+}
@@ -0,0 +1,47 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the {@link SaveQueue} class.
+ */
+public class SaveQueueTest {
+
+    /**
+     * A burst of saves for the same users is merged into one batch holding the latest profile of each user.
+     */
+    @Test
+    public void testBurstIsMerged() {
+        List<List<UserProfile>> batches = new ArrayList<>();
+        SaveQueue saveQueue = new SaveQueue("test-save-writer", (changed, snapshot) -> batches.add(new ArrayList<>(changed)));
+
+        for (int score = 0; score < 100; score++) {
+            saveQueue.submit(new UserProfile("bingo", "goose", "Student", score, score, 0, 0));
+            saveQueue.submit(new UserProfile("bongo", "goose", "Student", score, score, 0, 0));
+        }
+        assertEquals(2, saveQueue.getQueueDepth());
+
+        saveQueue.flush();
+        assertEquals(0, saveQueue.getQueueDepth());
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertEquals(99, batches.get(0).get(0).getMiddlesexScore());
+    }
+
+    /**
+     * Snapshot requests are merged too and reported to the writer.
+     */
+    @Test
+    public void testSnapshotRequest() {
+        List<Boolean> snapshots = new ArrayList<>();
+        SaveQueue saveQueue = new SaveQueue("test-save-writer", (changed, snapshot) -> snapshots.add(snapshot));
+
+        saveQueue.requestSnapshot();
+        saveQueue.requestSnapshot();
+        saveQueue.flush();
+
+        assertEquals(List.of(true), snapshots);
+        assertEquals(1, saveQueue.getBatchesWritten());
+    }
+}
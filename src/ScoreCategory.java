@@ -0,0 +1,69 @@
+/**
+ * Score categories a user is ranked by.
+ * <p>
+ *     Replaces looking up the getter by name with reflection. {@link #fromName(String)} still accepts
+ *     the names screens used before, such as "TotalScore" or "MiddlesexScore".
+ * </p>
+ */
+public enum ScoreCategory {
+    /** total score over every game */
+    TOTAL("TotalScore"),
+    /** score in the Middlesex game */
+    MIDDLESEX("MiddlesexScore"),
+    /** score in the Natural Sciences game */
+    NATURAL_SCIENCES("NaturalSciencesScore"),
+    /** score in the Talbot game */
+    TALBOT("TalbotScore");
+
+    /** name of the category in getter names, e.g. TotalScore for getTotalScore */
+    private final String propertyName;
+
+    /**
+     * Constructor for ScoreCategory
+     * @param propertyName name of the category in getter names
+     */
+    ScoreCategory(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    /**
+     * Gets the name of the category in getter names
+     * @return property name, e.g. TotalScore
+     */
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    /**
+     * Gets the score of a user in this category
+     * @param userScores user to read
+     * @return score in this category
+     */
+    public int scoreOf(UserScores userScores) {
+        switch (this) {
+            case MIDDLESEX:
+                return userScores.getMiddlesexScore();
+            case NATURAL_SCIENCES:
+                return userScores.getNaturalSciencesScore();
+            case TALBOT:
+                return userScores.getTalbotScore();
+            default:
+                return userScores.getTotalScore();
+        }
+    }
+
+    /**
+     * Finds the category with the given property name
+     * @param propertyName property name such as TotalScore, or the constant name such as TOTAL
+     * @return the category
+     * @throws IllegalArgumentException when no category has that name
+     */
+    public static ScoreCategory fromName(String propertyName) {
+        for (ScoreCategory category : values()) {
+            if (category.propertyName.equals(propertyName) || category.name().equals(propertyName)) {
+                return category;
+            }
+        }
+        throw new IllegalArgumentException("unknown score category " + propertyName);
+    }
+}
@@ -0,0 +1,115 @@
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Bar chart of a {@link ScoreHistogram}, with the median, 90th and 99th percentile, for the teacher view.
+ * <p>
+ *     The histogram buckets are grouped into a fixed number of equal width bars from 0 to the 90th percentile,
+ *     so painting costs the same however many students are counted, and the last bar also holds the
+ *     scores above it so a few very high scores do not squash every other bar. A selector above the bars picks the
+ *     score category to show.
+ * </p>
+ */
+public class ScoreDistributionChart extends JPanel {
+    /** number of bars drawn */
+    private static final int BARS = 24;
+    /** colour of the bars */
+    private static final Color BAR_COLOR = new Color(246, 195, 42);
+
+    /** database the distributions are read from */
+    private final Database database;
+    /** font of the labels */
+    private final Font font;
+    /** category shown */
+    private ScoreCategory category = ScoreCategory.TOTAL;
+    /** distribution shown */
+    private ScoreHistogram histogram;
+
+    /**
+     * Constructor for ScoreDistributionChart
+     * @param database database the distributions are read from
+     * @param font font of the labels
+     */
+    public ScoreDistributionChart(Database database, Font font) {
+        this.database = database;
+        this.font = font;
+        setLayout(null);
+        setOpaque(false);
+
+        // "MiddlesexScore" is shown as "Middlesex Score"
+        JComboBox<String> selector = new JComboBox<>();
+        for (ScoreCategory scoreCategory : ScoreCategory.values()) {
+            selector.addItem(scoreCategory.getPropertyName().replaceAll("(?<=[a-z])(?=[A-Z])", " "));
+        }
+        selector.setFont(font.deriveFont(0, 20));
+        selector.setBounds(540, 4, 230, 34);
+        selector.addActionListener(e -> {
+            category = ScoreCategory.values()[selector.getSelectedIndex()];
+            refresh();
+        });
+        add(selector);
+        refresh();
+    }
+
+    /**
+     * Reads the distribution of the shown category again and repaints
+     */
+    public void refresh() {
+        histogram = database.scoreDistribution(category);
+        repaint();
+    }
+
+    /**
+     * Paints the percentiles and the bars
+     * @param g the <code>Graphics</code> object to paint with
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setColor(Color.WHITE);
+        g2.setFont(font.deriveFont(0, 22));
+        g2.drawString("p50 " + histogram.percentile(50) + "   p90 " + histogram.percentile(90)
+                + "   p99 " + histogram.percentile(99), 10, 28);
+
+        int highestBucket = histogram.highestBucket();
+        if (highestBucket < 0) {
+            g2.dispose();
+            return;
+        }
+        long maxScore = ScoreHistogram.highestValue(ScoreHistogram.bucketOf(histogram.percentile(90)));
+        long[] bars = new long[BARS];
+        for (int bucket = 0; bucket <= highestBucket; bucket++) {
+            long count = histogram.getCount(bucket);
+            if (count > 0) {
+                // a bucket goes to the bar holding its middle score
+                long middle = ((long) ScoreHistogram.lowestValue(bucket) + ScoreHistogram.highestValue(bucket)) / 2;
+                bars[(int) Math.min(BARS - 1, middle * BARS / (maxScore + 1))] += count;
+            }
+        }
+        long tallest = 1;
+        for (long bar : bars) {
+            tallest = Math.max(tallest, bar);
+        }
+
+        int left = 10;
+        int bottom = getHeight() - 30;
+        int chartHeight = bottom - 50;
+        int barWidth = (getWidth() - 2 * left) / BARS;
+        g2.setColor(BAR_COLOR);
+        for (int i = 0; i < BARS; i++) {
+            int height = (int) (bars[i] * chartHeight / tallest);
+            g2.fillRect(left + i * barWidth + 1, bottom - height, barWidth - 2, height);
+        }
+        g2.setColor(Color.WHITE);
+        g2.drawLine(left, bottom, left + BARS * barWidth, bottom);
+        g2.setFont(font.deriveFont(0, 18));
+        g2.drawString("0", left, bottom + 22);
+        String players = histogram.getTotal() + " players";
+        g2.drawString(players, left + (BARS * barWidth - g2.getFontMetrics().stringWidth(players)) / 2, bottom + 22);
+        String maxLabel = maxScore + (ScoreHistogram.highestValue(highestBucket) > maxScore ? "+" : "");
+        g2.drawString(maxLabel, left + BARS * barWidth - g2.getFontMetrics().stringWidth(maxLabel), bottom + 22);
+        g2.dispose();
+    }
+}
@@ -0,0 +1,211 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Streaming histogram of scores with log-linear buckets, for score distributions and percentiles.
+ * <p>
+ *     Scores below 32 each have their own bucket. Above that every power of two range is split into
+ *     32 equal buckets, so a bucket is never wider than 1/32 of the scores it holds and any percentile is
+ *     within about 3% of the exact one. 864 buckets cover every int, so the histogram has the same size for
+ *     ten students or ten million. A score change removes the old score and adds the new one in O(1),
+ *     the user list is never sorted.
+ * </p>
+ * <p>
+ *     Two histograms are merged by adding their counts, so histograms built on several machines can be
+ *     sent with {@link #write(DataOutput)} and combined into one. Negative scores count as 0.
+ * </p>
+ */
+public class ScoreHistogram {
+    /** number of buckets per power of two, and number of exact buckets below it */
+    private static final int SUB_BUCKETS = 32;
+    /** log2 of {@link #SUB_BUCKETS} */
+    private static final int SUB_BUCKET_BITS = 5;
+    /** number of buckets needed for every non-negative int */
+    public static final int BUCKET_COUNT = SUB_BUCKETS + (31 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /** number of scores in each bucket */
+    private final long[] counts = new long[BUCKET_COUNT];
+    /** number of scores counted */
+    private long total;
+
+    /**
+     * Constructor for an empty ScoreHistogram
+     */
+    public ScoreHistogram() {
+    }
+
+    /**
+     * Constructor for a copy of a ScoreHistogram
+     * @param other histogram to copy
+     */
+    public ScoreHistogram(ScoreHistogram other) {
+        System.arraycopy(other.counts, 0, counts, 0, BUCKET_COUNT);
+        total = other.total;
+    }
+
+    /**
+     * Counts a score
+     * @param score score to count
+     */
+    public void add(int score) {
+        counts[bucketOf(score)]++;
+        total++;
+    }
+
+    /**
+     * Stops counting a score, used when a player's score changes
+     * @param score score that was counted
+     */
+    public void remove(int score) {
+        int bucket = bucketOf(score);
+        if (counts[bucket] > 0) {
+            counts[bucket]--;
+            total--;
+        }
+    }
+
+    /**
+     * Adds the counts of another histogram to this one
+     * @param other histogram to merge in
+     */
+    public void merge(ScoreHistogram other) {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        total += other.total;
+    }
+
+    /**
+     * Gets the number of scores counted
+     * @return number of scores
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the number of scores in a bucket
+     * @param bucket bucket index, from 0 to {@link #BUCKET_COUNT} - 1
+     * @return number of scores
+     */
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Estimates a percentile
+     * @param percentile percentile from 0 to 100, such as 50 for the median
+     * @return middle of the bucket holding the percentile, 0 when no score is counted
+     */
+    public int percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        // rank of the score at the percentile, counting from 1
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return lowestValue(bucket) + (highestValue(bucket) - lowestValue(bucket)) / 2;
+            }
+        }
+        return highestValue(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Gets the highest bucket holding a score
+     * @return bucket index, or -1 when no score is counted
+     */
+    public int highestBucket() {
+        for (int bucket = BUCKET_COUNT - 1; bucket >= 0; bucket--) {
+            if (counts[bucket] > 0) {
+                return bucket;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the bucket of a score
+     * @param score score to place
+     * @return bucket index
+     */
+    public static int bucketOf(int score) {
+        if (score < SUB_BUCKETS) {
+            return Math.max(0, score);
+        }
+        int exponent = 31 - Integer.numberOfLeadingZeros(score);
+        int shift = exponent - SUB_BUCKET_BITS;
+        // the top SUB_BUCKET_BITS + 1 bits of the score pick the bucket within its power of two
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (score >> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Gets the lowest score a bucket holds
+     * @param bucket bucket index
+     * @return lowest score of the bucket
+     */
+    public static int lowestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        int mantissa = (bucket - SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return mantissa << shift;
+    }
+
+    /**
+     * Gets the highest score a bucket holds
+     * @param bucket bucket index
+     * @return highest score of the bucket
+     */
+    public static int highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        return lowestValue(bucket) + ((1 << shift) - 1);
+    }
+
+    /**
+     * Writes the non-empty buckets, to merge the histogram on another machine
+     * @param output stream to write to
+     * @throws IOException when the stream cannot be written
+     */
+    public void write(DataOutput output) throws IOException {
+        int used = 0;
+        for (long count : counts) {
+            used += count > 0 ? 1 : 0;
+        }
+        output.writeInt(used);
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            if (counts[bucket] > 0) {
+                output.writeShort(bucket);
+                output.writeLong(counts[bucket]);
+            }
+        }
+    }
+
+    /**
+     * Reads a histogram written by {@link #write(DataOutput)}
+     * @param input stream to read from
+     * @return the histogram
+     * @throws IOException when the stream cannot be read or holds an unknown bucket
+     */
+    public static ScoreHistogram read(DataInput input) throws IOException {
+        ScoreHistogram histogram = new ScoreHistogram();
+        int used = input.readInt();
+        for (int i = 0; i < used; i++) {
+            int bucket = input.readShort();
+            long count = input.readLong();
+            if (bucket < 0 || bucket >= BUCKET_COUNT || count < 0) {
+                throw new IOException("invalid histogram bucket " + bucket);
+            }
+            histogram.counts[bucket] += count;
+            histogram.total += count;
+        }
+        return histogram;
+    }
+}
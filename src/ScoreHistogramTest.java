@@ -0,0 +1,111 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for the {@link ScoreHistogram} class.
+ */
+public class ScoreHistogramTest {
+
+    /**
+     * Every score falls between the lowest and highest value of its bucket, and buckets follow each other.
+     */
+    @Test
+    public void testBucketBounds() {
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            int score = i < 5_000 ? i : random.nextInt(Integer.MAX_VALUE);
+            int bucket = ScoreHistogram.bucketOf(score);
+            assertTrue(ScoreHistogram.lowestValue(bucket) <= score && score <= ScoreHistogram.highestValue(bucket));
+        }
+        for (int bucket = 1; bucket < ScoreHistogram.BUCKET_COUNT; bucket++) {
+            assertEquals(ScoreHistogram.highestValue(bucket - 1) + 1, ScoreHistogram.lowestValue(bucket));
+        }
+        assertEquals(Integer.MAX_VALUE, ScoreHistogram.highestValue(ScoreHistogram.BUCKET_COUNT - 1));
+        assertEquals(0, ScoreHistogram.bucketOf(-5));
+    }
+
+    /**
+     * Percentiles are within 2% of the exact ones, also after scores change.
+     */
+    @Test
+    public void testPercentilesMatchSort() {
+        Random random = new Random(11);
+        ScoreHistogram histogram = new ScoreHistogram();
+        int[] scores = new int[50_000];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = (int) Math.abs(random.nextGaussian() * 2_000 + 3_000);
+            histogram.add(scores[i]);
+        }
+        for (int i = 0; i < 5_000; i++) {
+            histogram.remove(scores[i]);
+            scores[i] += 1_000;
+            histogram.add(scores[i]);
+        }
+
+        int[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        for (double percentile : new double[]{1, 25, 50, 90, 99, 100}) {
+            int exact = sorted[(int) Math.ceil(percentile / 100 * sorted.length) - 1];
+            assertEquals(exact, histogram.percentile(percentile), Math.max(1, exact * 0.02), "p" + percentile);
+        }
+        assertEquals(scores.length, histogram.getTotal());
+        assertEquals(0, new ScoreHistogram().percentile(50));
+    }
+
+    /**
+     * Histograms written on two machines merge into the histogram of every score.
+     */
+    @Test
+    public void testMergeAcrossMachines() throws IOException {
+        Random random = new Random(5);
+        ScoreHistogram whole = new ScoreHistogram();
+        List<ScoreHistogram> parts = new ArrayList<>();
+        parts.add(new ScoreHistogram());
+        parts.add(new ScoreHistogram());
+        for (int i = 0; i < 20_000; i++) {
+            int score = random.nextInt(100_000);
+            whole.add(score);
+            parts.get(i % 2).add(score);
+        }
+
+        ScoreHistogram merged = new ScoreHistogram();
+        for (ScoreHistogram part : parts) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            part.write(new DataOutputStream(bytes));
+            merged.merge(ScoreHistogram.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        }
+        assertEquals(whole.getTotal(), merged.getTotal());
+        for (int bucket = 0; bucket < ScoreHistogram.BUCKET_COUNT; bucket++) {
+            assertEquals(whole.getCount(bucket), merged.getCount(bucket));
+        }
+    }
+
+    /**
+     * The user table keeps its histograms up to date as scores are put.
+     */
+    @Test
+    public void testUserTableHistogram() {
+        List<UserProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            profiles.add(new UserProfile("student" + i, "pw", "Student", i, 0, 0, 0));
+        }
+        UserTable table = UserTable.of(profiles);
+        assertEquals(100, table.histogram(ScoreCategory.TOTAL).getTotal());
+        assertEquals(100, table.histogram(ScoreCategory.MIDDLESEX).getCount(0));
+
+        table.put(new UserProfile("student0", "pw", "Student", 0, 5, 0, 0));
+        ScoreHistogram middlesex = table.histogram(ScoreCategory.MIDDLESEX);
+        assertEquals(99, middlesex.getCount(0));
+        assertEquals(1, middlesex.getCount(5));
+        assertEquals(100, middlesex.getTotal());
+    }
+}
@@ -0,0 +1,220 @@
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+
+/**
+ * Append-only journal of user profile changes stored next to users.json.
+ * <p>
+ *     Every score change or account creation is written as one line containing the changed profile,
+ *     so saving costs the size of the change instead of the size of the whole user list.
+ *     The {@link Database} compactor folds the journal back into the users.json snapshot.
+ * </p>
+ * <p>
+ *     Records carry the profile version, and replay keeps the highest version of each user, so records
+ *     appended by several game instances sharing the journal replay to the latest saves.
+ * </p>
+ */
+public class ScoreJournal implements Closeable {
+    /** journal file that new records are appended to */
+    private final File journalFile;
+    /** journal file that is being folded into the snapshot by the compactor */
+    private final File rotatedFile;
+    /** gson used to write and read single line records */
+    private static final Gson GSON = new Gson();
+    /** writer for the journal file */
+    private Writer writer;
+    /** identity of the file the writer appends to, null when the file system has none */
+    private Object writerFileKey;
+    /** number of records appended since the last rotation */
+    private int recordCount;
+
+    /**
+     * Constructor for ScoreJournal, opens the journal file for appending
+     * @param journalFilePath path of the journal file
+     * @throws IOException when the journal file cannot be opened
+     */
+    public ScoreJournal(String journalFilePath) throws IOException {
+        this.journalFile = new File(journalFilePath);
+        this.rotatedFile = new File(journalFilePath + ".old");
+        this.recordCount = countRecords(journalFile);
+        this.writer = openWriter();
+    }
+
+    /**
+     * Appends one profile record to the journal and flushes it to disk
+     * @param userProfile profile that was created or changed
+     * @throws IOException when the record cannot be written
+     */
+    public synchronized void append(UserProfile userProfile) throws IOException {
+        reopenIfReplaced();
+        writer.write(GSON.toJson(userProfile));
+        writer.write('\n');
+        writer.flush();
+        recordCount++;
+    }
+
+    /**
+     * Gets the number of records appended since the last rotation
+     * @return number of records in the journal
+     */
+    public synchronized int size() {
+        return recordCount;
+    }
+
+    /**
+     * Moves the current journal aside so the compactor can fold it into the snapshot,
+     * new records go to a fresh journal file afterwards.
+     * @throws IOException when the journal cannot be moved
+     */
+    public synchronized void rotate() throws IOException {
+        writer.close();
+        Files.move(journalFile.toPath(), rotatedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        writer = openWriter();
+        recordCount = 0;
+    }
+
+    /**
+     * Deletes the rotated journal once the snapshot containing its records has been written
+     * @throws IOException when the file cannot be deleted
+     */
+    public void deleteRotated() throws IOException {
+        Files.deleteIfExists(rotatedFile.toPath());
+    }
+
+    /**
+     * Replays the rotated journal left over by an interrupted compaction, then the current journal.
+     * Records are whole profiles, so replaying one twice is harmless.
+     * @param userProfileMap map loaded from the snapshot, updated in place
+     * @return number of records replayed
+     * @throws IOException when a journal cannot be read
+     */
+    public int replay(Map<String, UserProfile> userProfileMap) throws IOException {
+        return replayFile(rotatedFile, userProfileMap) + replayFile(journalFile, userProfileMap);
+    }
+
+    /**
+     * Replays a journal left behind by a journaled game without opening it for appending,
+     * used by stores that rewrite the snapshot on every save
+     * @param journalFilePath path of the journal file
+     * @param userProfileMap map loaded from the snapshot, updated in place
+     * @return number of records replayed, 0 when there is no journal
+     * @throws IOException when a journal cannot be read
+     */
+    public static int replayLeftover(String journalFilePath, Map<String, UserProfile> userProfileMap) throws IOException {
+        return replayFile(new File(journalFilePath + ".old"), userProfileMap) + replayFile(new File(journalFilePath), userProfileMap);
+    }
+
+    /**
+     * Deletes a journal and its rotated file once a snapshot holding their records has been written
+     * @param journalFilePath path of the journal file
+     * @throws IOException when a file cannot be deleted
+     */
+    public static void deleteLeftover(String journalFilePath) throws IOException {
+        Files.deleteIfExists(Paths.get(journalFilePath + ".old"));
+        Files.deleteIfExists(Paths.get(journalFilePath));
+    }
+
+    /**
+     * Closes the journal writer
+     * @throws IOException when the writer cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Replays every record of one journal file into the map
+     * @param file journal file to read
+     * @param userProfileMap map to update
+     * @return number of records replayed
+     * @throws IOException when the file cannot be read
+     */
+    private static int replayFile(File file, Map<String, UserProfile> userProfileMap) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    UserProfile userProfile = GSON.fromJson(line, UserProfile.class);
+                    UserProfile existing = userProfileMap.get(userProfile.getUsername());
+                    if (existing == null || userProfile.getVersion() >= existing.getVersion()) {
+                        userProfileMap.put(userProfile.getUsername(), userProfile);
+                    }
+                    replayed++;
+                } catch (JsonParseException e) {
+                    // a record cut off by a crash, everything before it is still valid
+                    System.out.println("Skipping damaged journal record in " + file);
+                }
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Counts the records already in a journal file so compaction triggers correctly after a restart
+     * @param file journal file to count
+     * @return number of lines in the file
+     * @throws IOException when the file cannot be read
+     */
+    private static int countRecords(File file) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            while (reader.readLine() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Opens a writer that appends to the journal file
+     * @return buffered writer for the journal
+     * @throws IOException when the file cannot be opened
+     */
+    private Writer openWriter() throws IOException {
+        Writer journalWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journalFile, true), StandardCharsets.UTF_8));
+        writerFileKey = fileKey();
+        return journalWriter;
+    }
+
+    /**
+     * Opens the journal again when another game instance rotated it since the writer was opened,
+     * otherwise new records would go to the rotated file that the other instance deletes
+     * @throws IOException when the journal cannot be opened
+     */
+    private void reopenIfReplaced() throws IOException {
+        Object currentKey = fileKey();
+        if (currentKey != null && currentKey.equals(writerFileKey)) {
+            return;
+        }
+        writer.close();
+        recordCount = countRecords(journalFile);
+        writer = openWriter();
+    }
+
+    /**
+     * Gets the identity of the journal file, such as its inode
+     * @return file key, or null if the file does not exist or the file system has no keys
+     */
+    private Object fileKey() {
+        try {
+            return Files.readAttributes(journalFile.toPath(), BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit tests for the {@link ScoreJournal} class.
+ */
+public class ScoreJournalTest {
+
+    /**
+     * Appended records are replayed in order, so the latest record for a user wins.
+     */
+    @Test
+    public void testAppendAndReplay() throws IOException {
+        File journalFile = Files.createTempFile("users", ".journal").toFile();
+        journalFile.deleteOnExit();
+
+        try (ScoreJournal journal = new ScoreJournal(journalFile.getPath())) {
+            journal.append(new UserProfile("bingo", "goose", "Student", 10, 10, 0, 0));
+            journal.append(new UserProfile("bingo", "goose", "Student", 40, 40, 0, 0));
+            journal.append(new UserProfile("bongo", "goose", "Teacher", 0, 0, 0, 0));
+            assertEquals(3, journal.size());
+        }
+
+        Map<String, UserProfile> userProfileMap = new HashMap<>();
+        ScoreJournal reopened = new ScoreJournal(journalFile.getPath());
+        assertEquals(3, reopened.replay(userProfileMap));
+        reopened.close();
+
+        assertEquals(2, userProfileMap.size());
+        assertEquals(40, userProfileMap.get("bingo").getMiddlesexScore());
+    }
+
+    /**
+     * Records appended after a rotation go to a fresh journal,
+     * while the rotated records are still replayed until the compactor deletes them.
+     */
+    @Test
+    public void testRotate() throws IOException {
+        File journalFile = Files.createTempFile("users", ".journal").toFile();
+        journalFile.deleteOnExit();
+        new File(journalFile.getPath() + ".old").deleteOnExit();
+
+        ScoreJournal journal = new ScoreJournal(journalFile.getPath());
+        journal.append(new UserProfile("bingo", "goose", "Student", 10, 10, 0, 0));
+        journal.rotate();
+        journal.append(new UserProfile("bongo", "goose", "Student", 20, 20, 0, 0));
+        assertEquals(1, journal.size());
+
+        Map<String, UserProfile> userProfileMap = new HashMap<>();
+        assertEquals(2, journal.replay(userProfileMap));
+
+        journal.deleteRotated();
+        userProfileMap.clear();
+        assertEquals(1, journal.replay(userProfileMap));
+        assertTrue(userProfileMap.containsKey("bongo"));
+        journal.close();
+    }
+}
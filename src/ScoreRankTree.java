@@ -0,0 +1,140 @@
+import java.util.Arrays;
+
+/**
+ * Fenwick tree counting how many players have each score, for rank and percentile queries in O(log n).
+ * <p>
+ *     Position s + 1 of the tree counts the players with score s, and every node holds the sum of a
+ *     power of two run of positions ending at it, so counting the players at or below a score and
+ *     moving one player to another score both touch at most log2 of the capacity nodes.
+ * </p>
+ * <p>
+ *     The tree starts small and doubles when a higher score is added. With a power of two capacity
+ *     the existing nodes keep their meaning after doubling, only the new root has to hold the total.
+ *     Negative scores count as 0, and scores beyond {@link #MAX_CAPACITY} share the highest position.
+ * </p>
+ */
+public class ScoreRankTree {
+    /** highest number of distinct scores, the tree then takes 4 MB */
+    public static final int MAX_CAPACITY = 1 << 20;
+
+    /** tree nodes, 1-based, tree[capacity] counts every player */
+    private int[] tree;
+    /** number of distinct scores the tree holds, a power of two */
+    private int capacity;
+    /** number of players counted */
+    private int total;
+
+    /**
+     * Constructor for an empty ScoreRankTree
+     */
+    public ScoreRankTree() {
+        capacity = 1024;
+        tree = new int[capacity + 1];
+    }
+
+    /**
+     * Counts a player with a score
+     * @param score score of the player
+     */
+    public void add(int score) {
+        change(score, 1);
+    }
+
+    /**
+     * Stops counting a player with a score
+     * @param score score the player was counted with
+     */
+    public void remove(int score) {
+        change(score, -1);
+    }
+
+    /**
+     * Gets the number of players counted
+     * @return number of players
+     */
+    public int size() {
+        return total;
+    }
+
+    /**
+     * Gets the position a score is counted at, negative scores count as 0
+     * and scores beyond the highest capacity share the highest position
+     * @param score score to count
+     * @return position of the score, from 0 to {@link #MAX_CAPACITY} - 1
+     */
+    public static int positionOf(int score) {
+        return Math.min(Math.max(0, score), MAX_CAPACITY - 1);
+    }
+
+    /**
+     * Counts the players with at most the given score
+     * @param score score to compare with
+     * @return number of players with that score or less
+     */
+    public int countAtOrBelow(int score) {
+        if (score < 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = Math.min(score, capacity - 1) + 1; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * Counts the players with a higher score
+     * @param score score to compare with
+     * @return number of players with a higher score
+     */
+    public int countAbove(int score) {
+        return total - countAtOrBelow(score);
+    }
+
+    /**
+     * Finds the score of the k-th lowest player by walking down the tree, O(log n)
+     * @param k position from the lowest score, starting at 1
+     * @return lowest score with at least k players at or below it, or -1 if fewer than k players are counted
+     */
+    public int select(int k) {
+        if (k < 1 || k > total) {
+            return -1;
+        }
+        int position = 0;
+        for (int step = capacity; step > 0; step >>= 1) {
+            if (position + step <= capacity && tree[position + step] < k) {
+                position += step;
+                k -= tree[position];
+            }
+        }
+        // position is the number of scores below the answer
+        return position;
+    }
+
+    /**
+     * Adds to the count of one score, growing the tree when the score is beyond its capacity
+     * @param score score to count
+     * @param delta +1 to add a player, -1 to remove one
+     */
+    private void change(int score, int delta) {
+        int position = positionOf(score);
+        while (position >= capacity) {
+            grow();
+        }
+        for (int i = position + 1; i <= capacity; i += i & -i) {
+            tree[i] += delta;
+        }
+        total += delta;
+    }
+
+    /**
+     * Doubles the capacity. Nodes up to the old capacity cover the same runs as before,
+     * the new nodes above it are empty apart from the new root which covers every position.
+     */
+    private void grow() {
+        int newCapacity = capacity * 2;
+        tree = Arrays.copyOf(tree, newCapacity + 1);
+        tree[newCapacity] = total;
+        capacity = newCapacity;
+    }
+}
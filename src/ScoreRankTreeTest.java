@@ -0,0 +1,62 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for the {@link ScoreRankTree} class.
+ */
+public class ScoreRankTreeTest {
+
+    /**
+     * Counts match a scan of the scores after adds, removes and growing past the initial capacity.
+     */
+    @Test
+    public void testCountsMatchScan() {
+        ScoreRankTree tree = new ScoreRankTree();
+        List<Integer> scores = new ArrayList<>();
+        Random random = new Random(16);
+        for (int i = 0; i < 3000; i++) {
+            int score = random.nextInt(i < 1500 ? 1000 : 5000);
+            tree.add(score);
+            scores.add(score);
+        }
+        for (int i = 0; i < 500; i++) {
+            tree.remove(scores.remove(random.nextInt(scores.size())));
+        }
+
+        assertEquals(scores.size(), tree.size());
+        for (int probe = -1; probe < 5200; probe += 37) {
+            int atOrBelow = 0;
+            for (int score : scores) {
+                if (score <= probe) {
+                    atOrBelow++;
+                }
+            }
+            assertEquals(atOrBelow, tree.countAtOrBelow(probe));
+            assertEquals(scores.size() - atOrBelow, tree.countAbove(probe));
+        }
+    }
+
+    /**
+     * Ranks are shared on ties and percentiles count the players below.
+     */
+    @Test
+    public void testRankAndPercentile() {
+        LeaderboardIndex leaderboard = new LeaderboardIndex(ScoreCategory.TOTAL);
+        int[] scores = {10, 50, 50, 80, 0};
+        for (int row = 0; row < scores.length; row++) {
+            leaderboard.add(row, scores[row]);
+        }
+        assertEquals(1, leaderboard.rankOf(80));
+        assertEquals(2, leaderboard.rankOf(50));
+        assertEquals(5, leaderboard.rankOf(0));
+        assertEquals(40.0, leaderboard.percentileOf(50));
+
+        leaderboard.update(4, 0, 100);
+        assertEquals(1, leaderboard.rankOf(100));
+        assertEquals(3, leaderboard.rankOf(50));
+        assertEquals(5, leaderboard.size());
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Time windows a leaderboard can cover.
+ */
+public enum ScoreWindow {
+    /** points earned since midnight */
+    TODAY("today", 1),
+    /** points earned over the last seven days, today included */
+    THIS_WEEK("this week", 7),
+    /** cumulative scores */
+    ALL_TIME("all time", 0);
+
+    /** label shown on the leaderboard tab */
+    private final String label;
+    /** number of days covered, 0 for every day */
+    private final int days;
+
+    /**
+     * Constructor for ScoreWindow
+     * @param label label shown on the leaderboard tab
+     * @param days number of days covered, 0 for every day
+     */
+    ScoreWindow(String label, int days) {
+        this.label = label;
+        this.days = days;
+    }
+
+    /**
+     * Gets the label shown on the leaderboard tab
+     * @return label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets the number of days the window covers
+     * @return number of days, 0 for all time
+     */
+    public int getDays() {
+        return days;
+    }
+}
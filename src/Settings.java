@@ -4,7 +4,6 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
 import javax.swing.event.*;
-import java.util.Map;
 import javax.imageio.ImageIO;
 
 /**
@@ -20,9 +19,7 @@ public class Settings extends JPanel {
     /** display object */
     private Display display;
     /** database object */
-    private Database database = new Database();
-    /** map of user profiles */
-    private Map userProfileMap = database.getUserProfileMap();
+    private Database database = Database.getInstance();
     /** background image for settings screen */
     private Image settingspng;
     /** custom font */
@@ -257,7 +254,6 @@ public class Settings extends JPanel {
      */
     private void saveData(){
         database.saveDataToJson();
-        update();
 
         CustomDialog popup = new CustomDialog();
         popup.createPopup("Your progress has been saved!","media/yippeee.png","Saving Game Data", JOptionPane.INFORMATION_MESSAGE, new Color(181, 206, 255));
@@ -269,8 +265,9 @@ public class Settings extends JPanel {
      * @throws IOException when database throws exception
      */
     private void saveAndExit() throws IOException {
-        //save data
-        update();
+        //save data and wait for it to reach the disk
+        database.saveDataToJson();
+        database.flush();
 
         // Create a JOptionPane with custom options
         Object[] options = {"Yes", "No"};
@@ -310,10 +307,8 @@ public class Settings extends JPanel {
             userProfile.setTalbotScore(0);
             userProfile.setTotalScore(0);
 
-            // Saving wiped stats to map
-            userProfileMap.put(userProfile.getUsername(),userProfile);
-            database.saveDataToJson();
-            update();
+            // Saving wiped stats, leaderboard and teacher view refresh themselves
+            database.updateUser(userProfile);
 
             // Create a popup to let users know their data has been saved
             CustomDialog popup = new CustomDialog();
@@ -331,26 +326,6 @@ public class Settings extends JPanel {
         repaint();
     }
 
-    /**
-     * Update's teacher view and leaderboard with current score
-     */
-    private void update() {
-        // this way we only grab settings ONCE it was created
-        TeacherView teacherView = display.getTeacher();
-        try {
-            teacherView.updateView();
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
-
-        Leaderboard leaderboard = display.getLeaderboard();
-        try {
-            leaderboard.updateTopTotalScore();
-        } catch (FileNotFoundException e) {
-//                    throw new RuntimeException(e);
-        }
-    }
-
     /**
      * Methodo to create custom option panes (popup messages)
      * @param options array of message options
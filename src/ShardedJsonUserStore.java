@@ -0,0 +1,246 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * User store that spreads the users of a large school over several json files.
+ * <p>
+ *     A user lives in shard users-NN.json where NN is the hash of the username modulo the number of shards.
+ *     The shards are loaded in parallel, and saving a changed user rewrites only its own shard,
+ *     which holds a fraction of the roster, instead of the whole users.json.
+ * </p>
+ * <p>
+ *     Each shard has its own {@link UserFileLock}, so game instances saving users of different shards never wait
+ *     for each other. A shard is written by merging this instance's users into the latest shard file with {@link UserMerge}.
+ * </p>
+ */
+public class ShardedJsonUserStore implements UserStore {
+    /** number of shards created when a single users.json is split */
+    public static final int DEFAULT_SHARDS = 16;
+
+    /** folder holding the shard files */
+    private final File folder;
+    /** stamp of every shard file when this store last read or wrote it, so reloads skip its own writes */
+    private final long[] stamps;
+    /** lock of every shard */
+    private final List<UserFileLock> locks;
+    /** number of users changed by this and another game instance at the same time */
+    private int conflicts;
+    /** number of records written to the shards */
+    private long recordsWritten;
+
+    /**
+     * Constructor for ShardedJsonUserStore
+     * @param folder folder holding the shard files
+     * @param shardCount number of shards
+     */
+    public ShardedJsonUserStore(File folder, int shardCount) {
+        this.folder = folder;
+        this.stamps = new long[shardCount];
+        this.locks = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            locks.add(new UserFileLock(new File(shardFile(folder, shard).getPath() + ".lock")));
+        }
+    }
+
+    /**
+     * Counts the shard files in a folder
+     * @param folder folder to look in
+     * @return number of consecutive shard files starting at users-00.json, 0 if there are none
+     */
+    public static int countShards(File folder) {
+        int shardCount = 0;
+        while (shardFile(folder, shardCount).exists()) {
+            shardCount++;
+        }
+        return shardCount;
+    }
+
+    /**
+     * Gets the file of a shard
+     * @param folder folder holding the shard files
+     * @param shard shard number
+     * @return the shard file
+     */
+    public static File shardFile(File folder, int shard) {
+        return new File(folder, String.format("users-%02d.json", shard));
+    }
+
+    /**
+     * Gets the shard a user belongs to. String hash codes are the same on every JVM,
+     * so a user always maps to the same file.
+     * @param username username
+     * @param shardCount number of shards
+     * @return shard number
+     */
+    public static int shardOf(String username, int shardCount) {
+        return Math.floorMod(username.hashCode(), shardCount);
+    }
+
+    /**
+     * Gets the number of shards
+     * @return number of shards
+     */
+    public int getShardCount() {
+        return locks.size();
+    }
+
+    /**
+     * Loads every shard in parallel, a missing shard file is an empty shard
+     * @return map of username to profile
+     * @throws IOException when a shard cannot be read
+     */
+    @Override
+    public synchronized Map<String, UserProfile> loadAll() throws IOException {
+        List<Callable<Map<String, UserProfile>>> loads = new ArrayList<>();
+        for (int shard = 0; shard < stamps.length; shard++) {
+            File shardFile = shardFile(folder, shard);
+            stamps[shard] = JsonUserStore.stamp(shardFile);
+            loads.add(() -> shardFile.exists() ? new StreamingUserLoader(true).load(shardFile) : new HashMap<>());
+        }
+
+        Map<String, UserProfile> userProfileMap = new ConcurrentHashMap<>();
+        for (Future<Map<String, UserProfile>> loaded : ForkJoinPool.commonPool().invokeAll(loads)) {
+            userProfileMap.putAll(get(loaded));
+        }
+        return userProfileMap;
+    }
+
+    /**
+     * Gets every shard file
+     * @return shard files
+     */
+    @Override
+    public List<Path> watchedFiles() {
+        List<Path> shardFiles = new ArrayList<>();
+        for (int shard = 0; shard < stamps.length; shard++) {
+            shardFiles.add(shardFile(folder, shard).toPath());
+        }
+        return shardFiles;
+    }
+
+    /**
+     * Reads only the shards that other game instances rewrote. A shard this store wrote last is skipped.
+     * @param changedFiles watched files that changed
+     * @return map of username to profile for the users in the changed shards
+     * @throws IOException when a shard cannot be read
+     */
+    @Override
+    public synchronized Map<String, UserProfile> reload(Collection<Path> changedFiles) throws IOException {
+        Map<String, UserProfile> userProfileMap = new HashMap<>();
+        for (int shard = 0; shard < stamps.length; shard++) {
+            File shardFile = shardFile(folder, shard);
+            long stamp = JsonUserStore.stamp(shardFile);
+            if (changedFiles.contains(shardFile.toPath().toAbsolutePath().normalize()) && shardFile.exists() && stamp != stamps[shard]) {
+                stamps[shard] = stamp;
+                userProfileMap.putAll(new StreamingUserLoader(true).load(shardFile));
+            }
+        }
+        return userProfileMap;
+    }
+
+    /**
+     * Saves changed profiles by rewriting only the shards they belong to
+     * @param changed profiles to save
+     * @throws IOException when a shard cannot be written
+     */
+    @Override
+    public synchronized void save(Collection<UserProfile> changed) throws IOException {
+        Map<Integer, List<UserProfile>> changedShards = new TreeMap<>();
+        for (UserProfile userProfile : changed) {
+            changedShards.computeIfAbsent(shardOf(userProfile.getUsername(), stamps.length), shard -> new ArrayList<>()).add(userProfile);
+        }
+        writeShards(changedShards, true);
+    }
+
+    /**
+     * Replaces every shard with the given profiles
+     * @param all every profile
+     * @throws IOException when a shard cannot be written
+     */
+    @Override
+    public synchronized void saveAll(Collection<UserProfile> all) throws IOException {
+        Map<Integer, List<UserProfile>> allShards = new TreeMap<>();
+        for (int shard = 0; shard < stamps.length; shard++) {
+            allShards.put(shard, new ArrayList<>());
+        }
+        for (UserProfile userProfile : all) {
+            allShards.get(shardOf(userProfile.getUsername(), stamps.length)).add(userProfile);
+        }
+        writeShards(allShards, false);
+    }
+
+    /**
+     * Gets the number of users that this and another game instance changed at the same time,
+     * the save of this instance won each of them
+     * @return number of conflicting saves
+     */
+    public synchronized int getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Gets the number of records written to the shards, each shard write counts every user in the shard
+     * @return number of records written
+     */
+    @Override
+    public synchronized long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * Writes shards in parallel. Each shard is locked, read again, merged with the given users
+     * and written through a temporary file.
+     * @param shardProfiles users to save by shard number
+     * @param changed true if every user was changed by this game instance
+     * @throws IOException when a shard cannot be locked, read or written
+     */
+    private void writeShards(Map<Integer, List<UserProfile>> shardProfiles, boolean changed) throws IOException {
+        // each write returns its conflicts and the number of records written
+        List<Callable<int[]>> writes = new ArrayList<>();
+        for (Map.Entry<Integer, List<UserProfile>> entry : shardProfiles.entrySet()) {
+            int shard = entry.getKey();
+            File shardFile = shardFile(folder, shard);
+            writes.add(() -> {
+                UserFileLock.Held held = locks.get(shard).acquire();
+                try {
+                    Map<String, UserProfile> latest = shardFile.exists() ? new StreamingUserLoader(true).load(shardFile) : new HashMap<>();
+                    int shardConflicts = UserMerge.merge(latest, entry.getValue(), changed);
+                    JsonUserStore.writeJson(shardFile.getPath(), latest.values());
+                    stamps[shard] = JsonUserStore.stamp(shardFile);
+                    return new int[]{shardConflicts, latest.size()};
+                } finally {
+                    held.close();
+                }
+            });
+        }
+        for (Future<int[]> write : ForkJoinPool.commonPool().invokeAll(writes)) {
+            int[] result = get(write);
+            conflicts += result[0];
+            recordsWritten += result[1];
+        }
+    }
+
+    /**
+     * Waits for a shard task and unwraps its failure
+     * @param future shard task
+     * @param <T> result type
+     * @return result of the task
+     * @throws IOException when the task failed to read or write its shard
+     */
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for a shard", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
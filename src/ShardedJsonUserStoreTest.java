@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Unit tests for the {@link ShardedJsonUserStore} class.
+ */
+public class ShardedJsonUserStoreTest {
+    /** temporary folders of the test */
+    private final TestUserFiles files = new TestUserFiles();
+
+    /**
+     * Deletes the temporary folders of the test
+     */
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        files.deleteAll();
+    }
+
+    /**
+     * Resharding users.json and loading the shards gives back every user, and verify finds no difference.
+     */
+    @Test
+    public void testReshardRoundTrip() throws IOException {
+        File folder = files.createFolder("shards");
+        File usersJson = new File("json_files/users.json");
+
+        int written = UserStoreTool.reshard(usersJson, folder, 4);
+        assertEquals(4, ShardedJsonUserStore.countShards(folder));
+        assertTrue(UserStoreTool.verify(usersJson, folder).isEmpty());
+
+        Map<String, UserProfile> userProfileMap = new ShardedJsonUserStore(folder, 4).loadAll();
+        assertEquals(written, userProfileMap.size());
+        assertEquals("goose", userProfileMap.get("goose").getPassword());
+
+        // splitting the shards again into fewer shards removes the leftover files
+        File other = files.createFolder("shards");
+        UserStoreTool.reshard(folder, other, 2);
+        assertEquals(2, ShardedJsonUserStore.countShards(other));
+        assertTrue(UserStoreTool.verify(usersJson, other).isEmpty());
+        assertFalse(UserStoreTool.verify(usersJson, files.createFolder("shards")).isEmpty());
+    }
+
+    /**
+     * Saving a changed user rewrites only the shard the user belongs to.
+     */
+    @Test
+    public void testSaveRewritesOneShard() throws IOException {
+        File folder = files.createFolder("shards");
+        UserStoreTool.reshard(new File("json_files/users.json"), folder, 4);
+
+        ShardedJsonUserStore store = new ShardedJsonUserStore(folder, 4);
+        UserProfile goose = store.loadAll().get("goose");
+        int gooseShard = ShardedJsonUserStore.shardOf("goose", 4);
+        byte[][] before = new byte[4][];
+        for (int shard = 0; shard < 4; shard++) {
+            before[shard] = Files.readAllBytes(ShardedJsonUserStore.shardFile(folder, shard).toPath());
+        }
+
+        goose.setMiddlesexScore(goose.getMiddlesexScore() + 10);
+        store.save(Collections.singletonList(goose));
+
+        for (int shard = 0; shard < 4; shard++) {
+            byte[] after = Files.readAllBytes(ShardedJsonUserStore.shardFile(folder, shard).toPath());
+            assertEquals(shard != gooseShard, Arrays.equals(before[shard], after));
+        }
+        assertEquals(goose.getMiddlesexScore(), new ShardedJsonUserStore(folder, 4).loadAll().get("goose").getMiddlesexScore());
+
+        // a reload skips the shard this store wrote itself, and reads one written by another store
+        assertTrue(store.reload(store.watchedFiles()).isEmpty());
+        ShardedJsonUserStore other = new ShardedJsonUserStore(folder, 4);
+        other.save(Collections.singletonList(new UserProfile("gosling", "goose", "Student", 3, 3, 0, 0)));
+        Map<String, UserProfile> reloaded = store.reload(store.watchedFiles());
+        assertEquals(3, reloaded.get("gosling").getTotalScore());
+        assertTrue(reloaded.values().stream().allMatch(userProfile ->
+                ShardedJsonUserStore.shardOf(userProfile.getUsername(), 4) == ShardedJsonUserStore.shardOf("gosling", 4)));
+    }
+}
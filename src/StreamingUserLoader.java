@@ -0,0 +1,150 @@
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Loads users.json one profile at a time with GSON's streaming JsonReader.
+ * <p>
+ *     Unlike reading the file into an intermediate list, only the profile being parsed is held
+ *     besides the result map, and the map is sized from the file length so it never rehashes while loading.
+ *     Repeated strings such as permission can be shared between profiles.
+ * </p>
+ */
+public final class StreamingUserLoader {
+    /** rough size of one pretty printed profile in users.json, used to pre-size the map */
+    private static final int AVERAGE_PROFILE_BYTES = 170;
+
+    /** true to share one instance of each permission string between profiles */
+    private final boolean internStrings;
+    /** shared string instances when interning */
+    private final Map<String, String> internedStrings = new HashMap<>();
+
+    /**
+     * Constructor for StreamingUserLoader
+     * @param internStrings true to share one instance of repeated strings such as permission
+     */
+    public StreamingUserLoader(boolean internStrings) {
+        this.internStrings = internStrings;
+    }
+
+    /**
+     * Loads every profile of a users.json file into a map pre-sized from the file length
+     * @param file users.json file
+     * @return map of username to profile
+     * @throws IOException when the file cannot be read or is not valid json
+     */
+    public Map<String, UserProfile> load(File file) throws IOException {
+        int expectedUsers = (int) Math.min(Integer.MAX_VALUE / 2, file.length() / AVERAGE_PROFILE_BYTES + 16);
+        Map<String, UserProfile> userProfileMap = new ConcurrentHashMap<>(expectedUsers);
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            read(reader, userProfile -> userProfileMap.put(userProfile.getUsername(), userProfile));
+        }
+        return userProfileMap;
+    }
+
+    /**
+     * Reads a json array of profiles and hands each one to the consumer as soon as it is parsed
+     * @param reader reader positioned at the start of the array
+     * @param consumer receives each profile
+     * @throws IOException when the json is not valid
+     */
+    public void read(Reader reader, Consumer<UserProfile> consumer) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return;
+        }
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            consumer.accept(readProfile(jsonReader));
+        }
+        jsonReader.endArray();
+    }
+
+    /**
+     * Reads one profile object, fields that are not part of a profile are skipped
+     * @param jsonReader reader positioned at the start of the object
+     * @return parsed profile
+     * @throws IOException when the json is not valid
+     */
+    public UserProfile readProfile(JsonReader jsonReader) throws IOException {
+        String username = null;
+        String password = null;
+        String permission = null;
+        String group = null;
+        int totalScore = 0;
+        int middlesexScore = 0;
+        int naturalSciencesScore = 0;
+        int talbotScore = 0;
+        int version = 0;
+        MasteryBitmap mastered = null;
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            if (jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "username":
+                    username = jsonReader.nextString();
+                    break;
+                case "password":
+                    password = jsonReader.nextString();
+                    break;
+                case "permission":
+                    permission = intern(jsonReader.nextString());
+                    break;
+                case "group":
+                    group = intern(jsonReader.nextString());
+                    break;
+                case "totalScore":
+                    totalScore = jsonReader.nextInt();
+                    break;
+                case "middlesexScore":
+                    middlesexScore = jsonReader.nextInt();
+                    break;
+                case "naturalSciencesScore":
+                    naturalSciencesScore = jsonReader.nextInt();
+                    break;
+                case "talbotScore":
+                    talbotScore = jsonReader.nextInt();
+                    break;
+                case "version":
+                    version = jsonReader.nextInt();
+                    break;
+                case "mastered":
+                    mastered = MasteryBitmap.parse(jsonReader.nextString());
+                    break;
+                default:
+                    jsonReader.skipValue();
+                    break;
+            }
+        }
+        jsonReader.endObject();
+
+        UserProfile userProfile = new UserProfile(username, password, permission, group, totalScore, middlesexScore, naturalSciencesScore, talbotScore);
+        userProfile.setVersion(version);
+        userProfile.setMastered(mastered);
+        return userProfile;
+    }
+
+    /**
+     * Returns the shared instance of a string when interning is enabled
+     * @param value string read from the file
+     * @return shared instance, or the value itself when interning is disabled
+     */
+    private String intern(String value) {
+        if (!internStrings) {
+            return value;
+        }
+        String shared = internedStrings.putIfAbsent(value, value);
+        return shared == null ? value : shared;
+    }
+}
@@ -0,0 +1,43 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the {@link StreamingUserLoader} class.
+ */
+public class StreamingUserLoaderTest {
+
+    /**
+     * Profiles are read in order, unknown fields are skipped and repeated permissions share one instance.
+     */
+    @Test
+    public void testReadInternsPermission() throws IOException {
+        String json = "[{\"username\":\"bingo\",\"password\":\"goose\",\"permission\":\"Student\",\"totalScore\":40,"
+                + "\"middlesexScore\":40,\"naturalSciencesScore\":0,\"talbotScore\":0,\"favouriteColour\":\"green\"},"
+                + "{\"username\":\"bongo\",\"password\":\"goose\",\"permission\":\"Student\",\"totalScore\":7}]";
+
+        List<UserProfile> profiles = new ArrayList<>();
+        new StreamingUserLoader(true).read(new StringReader(json), profiles::add);
+
+        assertEquals(2, profiles.size());
+        assertEquals("bingo", profiles.get(0).getUsername());
+        assertEquals(40, profiles.get(0).getMiddlesexScore());
+        assertEquals(7, profiles.get(1).getTotalScore());
+        assertSame(profiles.get(0).getPermission(), profiles.get(1).getPermission());
+    }
+
+    /**
+     * Loading users.json finds the same users as the old list based loader.
+     */
+    @Test
+    public void testLoadUsersJson() throws IOException {
+        Map<String, UserProfile> userProfileMap = new StreamingUserLoader(false).load(new File("json_files/users.json"));
+        assertEquals("goose", userProfileMap.get("goose").getPassword());
+        assertEquals("Teacher", userProfileMap.get("goose").getPermission());
+    }
+}
@@ -22,15 +22,33 @@ public class TeacherView extends JPanel {
     /** display object */
     private Display display;
     /** database object */
-    private Database database = new Database();
+    private Database database = Database.getInstance();
     /** background image for teacher view */
     private Image teacherpng;
     /** custom font */
     private Font pixelFont;
-    /** sorted list of user profiles */
-    private java.util.List<UserProfile> sortedList;
+    /** users in alphabetical order, rows of the database's user table */
+    private java.util.List<UserScores> sortedList;
     /** main table of the UI */
     private JTable table;
+    /** rows of the table */
+    private DefaultTableModel studentTable;
+    /** text the table is filtered by, empty when every student is shown */
+    private String searchText = "";
+    /** class or section the table is filtered by, null when every student is shown */
+    private String group;
+    /** selector of the class the table shows */
+    private JComboBox<String> groupSelector;
+    /** top students of the selected class */
+    private JLabel groupTop;
+    /** scroll pane holding the student table */
+    private JScrollPane tableScroll;
+    /** score distribution chart, shown in place of the table */
+    private ScoreDistributionChart chart;
+    /** true while the chart is shown instead of the table */
+    private boolean showChart;
+    /** selector entry standing for every student */
+    private static final String ALL_GROUPS = "all classes";
 
     /**
      * teacher view constructor.
@@ -63,6 +81,8 @@ public class TeacherView extends JPanel {
         // create UI elements
         createActionButtons();
         createSearch();
+        createGroupSelector();
+        createChart();
         createLabels();
 
         // make the escape key exit (same as back to game button)
@@ -75,6 +95,16 @@ public class TeacherView extends JPanel {
                 showScreen("MainMap");
             }
         });
+
+        // refresh only the row of the user that changed, in this game or in another one sharing json_files
+        database.addUserChangeListener(userProfile -> SwingUtilities.invokeLater(() -> {
+            updateStudent(userProfile);
+            showGroups();
+            showGroupTop();
+            if (showChart) {
+                chart.refresh();
+            }
+        }));
     }
 
     /**
@@ -83,13 +113,10 @@ public class TeacherView extends JPanel {
      */
     private void createSearch() {
 
-        sortedList = sortAlphabetically(database.getUserProfileMap());
-        DefaultTableModel studentTable = new DefaultTableModel(new Object[]{"Username", "Total Score", "Middlesex Progress"}, 0);
+        sortedList = database.usersAlphabetically();
+        studentTable = new DefaultTableModel(new Object[]{"Username", "Total Score", "Middlesex Progress"}, 0);
 
-        for (UserProfile student : sortedList) {
-            Object[] rowData = {student.getUsername(), student.getTotalScore(), returnDifficulty(student.getMiddlesexScore())};
-            studentTable.addRow(rowData);
-        }
+        showMatchingStudents("");
 
         table = new JTable(studentTable);
 
@@ -122,6 +149,7 @@ public class TeacherView extends JPanel {
 
         scrollPane.setBounds(84, 294, 780, 290);
         scrollPane.setBackground(new Color(1, 98, 195));
+        tableScroll = scrollPane;
 
         JTextField searchField = new JTextField(10);
         searchField.setText("search up a student");
@@ -160,25 +188,7 @@ public class TeacherView extends JPanel {
         searchButton.setIcon(new ImageIcon(scaledIcon));
 
 
-        searchButton.addActionListener(e -> {
-            final String searchText = searchField.getText();
-            studentTable.setRowCount(0); // Clear the table by setting row count to 0
-            if (searchText.isEmpty() || searchText.equalsIgnoreCase( "search up a student")) {
-                // If the search text field is empty, display all values
-                for (UserProfile student : sortedList) {
-                    Object[] rowData = {student.getUsername(), student.getTotalScore(), returnDifficulty(student.getMiddlesexScore())};
-                    studentTable.addRow(rowData);
-                }
-            } else {
-                // Otherwise, only add elements that match the search text
-                for (UserProfile student : sortedList) {
-                    if (student.getUsername().toLowerCase().contains(searchText)) {
-                        Object[] rowData = {student.getUsername(), student.getTotalScore(), returnDifficulty(student.getMiddlesexScore())};
-                        studentTable.addRow(rowData);
-                    }
-                }
-            }
-        });
+        searchButton.addActionListener(e -> showMatchingStudents(searchField.getText()));
 
         // make the enter key mapped to the login in button
         InputMap inputMap = getInputMap(WHEN_IN_FOCUSED_WINDOW);
@@ -187,23 +197,7 @@ public class TeacherView extends JPanel {
         actionMap.put("enterPressed", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                final String searchText = searchField.getText();
-                studentTable.setRowCount(0); // Clear the table by setting row count to 0
-                if (searchText.isEmpty() || searchText.equalsIgnoreCase( "search up a student")) {
-                    // If the search text field is empty, display all values
-                    for (UserProfile student : sortedList) {
-                        Object[] rowData = {student.getUsername(), student.getTotalScore(), returnDifficulty(student.getMiddlesexScore())};
-                        studentTable.addRow(rowData);
-                    }
-                } else {
-                    // Otherwise, only add elements that match the search text
-                    for (UserProfile student : sortedList) {
-                        if (student.getUsername().toLowerCase().contains(searchText)) {
-                            Object[] rowData = {student.getUsername(), student.getTotalScore(), returnDifficulty(student.getMiddlesexScore())};
-                            studentTable.addRow(rowData);
-                        }
-                    }
-                }
+                showMatchingStudents(searchField.getText());
             }
         });
 
@@ -213,22 +207,219 @@ public class TeacherView extends JPanel {
         add(searchField);
     }
 
+    /**
+     * Creates the class selector, the button moving the selected student to a class
+     * and the line showing the top students of the selected class
+     */
+    private void createGroupSelector() {
+        JComboBox<String> selector = new JComboBox<>();
+        groupSelector = selector;
+        selector.addItem(ALL_GROUPS);
+        for (String groupName : database.groups()) {
+            selector.addItem(groupName);
+        }
+        selector.setSelectedItem(group == null ? ALL_GROUPS : group);
+        selector.setFont(pixelFont.deriveFont(0, 22));
+        selector.setBounds(84, 612, 260, 40);
+        selector.addActionListener(e -> {
+            String selected = (String) selector.getSelectedItem();
+            group = ALL_GROUPS.equals(selected) ? null : selected;
+            showMatchingStudents(searchText);
+            showGroupTop();
+        });
+
+        JButton moveButton = createActionButton("set class", 360, 612, 200, 40, Color.WHITE,
+                new Color(0,0,0,0), pixelFont.deriveFont(Font.BOLD, 26));
+        moveButton.addActionListener(e -> moveSelectedStudent());
+
+        groupTop = new JLabel();
+        groupTop.setFont(pixelFont.deriveFont(0, 22));
+        groupTop.setForeground(Color.WHITE);
+        groupTop.setBounds(84, 660, 800, 40);
+        showGroupTop();
+
+        add(selector);
+        add(moveButton);
+        add(groupTop);
+    }
+
+    /**
+     * Creates the score distribution chart, which takes the place of the table,
+     * and the button switching between the two
+     */
+    private void createChart() {
+        chart = new ScoreDistributionChart(database, pixelFont);
+        chart.setBounds(84, 294, 780, 290);
+        chart.setVisible(showChart);
+        tableScroll.setVisible(!showChart);
+
+        JButton chartButton = createActionButton(showChart ? "show table" : "show chart", 640, 612, 224, 40,
+                Color.WHITE, new Color(0,0,0,0), pixelFont.deriveFont(Font.BOLD, 26));
+        chartButton.addActionListener(e -> {
+            showChart = !showChart;
+            chart.refresh();
+            chart.setVisible(showChart);
+            tableScroll.setVisible(!showChart);
+            chartButton.setText(showChart ? "show table" : "show chart");
+        });
+        add(chart);
+        add(chartButton);
+    }
+
+    /**
+     * Shows the three best students of the selected class, read from the class leaderboard
+     */
+    private void showGroupTop() {
+        if (group == null) {
+            groupTop.setText("");
+            return;
+        }
+        StringBuilder text = new StringBuilder("top of " + group + ":");
+        for (LeaderboardEntry entry : database.topUsers(ScoreWindow.ALL_TIME, ScoreCategory.TOTAL, group, 3)) {
+            text.append("  ").append(entry.getPosition()).append(". ").append(entry.getUsername());
+        }
+        groupTop.setText(text.toString());
+    }
+
+    /**
+     * Asks for a class name and moves the student selected in the table to it, an empty name leaves every class
+     */
+    private void moveSelectedStudent() {
+        int row = table.getSelectedRow();
+        if (row < 0) {
+            return;
+        }
+        UserProfile student = database.getUserProfileMap().get((String) studentTable.getValueAt(row, 0));
+        if (student == null) {
+            return;
+        }
+        String newGroup = JOptionPane.showInputDialog(this, "Class of " + student.getUsername() + ":",
+                student.getGroup() == null ? "" : student.getGroup());
+        if (newGroup != null) {
+            student.setGroup(newGroup.trim());
+            database.updateUser(student);
+            // a new class has to appear in the selector, the change listener updates the student's row
+            showGroups();
+            showGroupTop();
+        }
+    }
+
+    /**
+     * Lists the classes that have students in the selector, replacing its model when a class gains its first
+     * student or loses its last one. The selected class is kept, and if it emptied the selector goes back to
+     * every student.
+     */
+    private void showGroups() {
+        List<String> groups = database.groups();
+        // item 0 is every student, the groups follow in the same order as the list
+        boolean unchanged = groupSelector.getItemCount() == groups.size() + 1;
+        for (int i = 0; unchanged && i < groups.size(); i++) {
+            unchanged = groups.get(i).equals(groupSelector.getItemAt(i + 1));
+        }
+        if (unchanged) {
+            return;
+        }
+        boolean kept = group == null || groups.contains(group);
+        DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>();
+        model.addElement(ALL_GROUPS);
+        model.addAll(groups);
+        model.setSelectedItem(kept && group != null ? group : ALL_GROUPS);
+        groupSelector.setModel(model);
+        if (!kept) {
+            // the listener shows every student again
+            groupSelector.setSelectedItem(ALL_GROUPS);
+        }
+    }
+
+    /**
+     * Fills the table with the students whose username contains the search text
+     * @param text search text, empty or the placeholder to show every student
+     */
+    private void showMatchingStudents(String text) {
+        searchText = text.equalsIgnoreCase("search up a student") ? "" : text;
+        studentTable.setRowCount(0); // Clear the table by setting row count to 0
+        for (UserScores student : sortedList) {
+            if (matchesSearch(student)) {
+                studentTable.addRow(createRow(student));
+            }
+        }
+    }
+
+    /**
+     * Updates the row of one student, or inserts it in alphabetical order if the student is new.
+     * The rest of the table is left untouched.
+     * @param userProfile profile that changed
+     */
+    public void updateStudent(UserProfile userProfile) {
+        int index = Collections.binarySearch(sortedList, userProfile,
+                (first, second) -> String.CASE_INSENSITIVE_ORDER.compare(first.getUsername(), second.getUsername()));
+        if (index < 0) {
+            // table rows always read the saved values, so only a new student has to be added
+            UserScores row = database.getUserTable().find(userProfile.getUsername());
+            sortedList.add(-index - 1, row != null ? row : userProfile);
+        }
+
+        // the table holds the matching students in the same order as the sorted list
+        Object[] rowData = createRow(userProfile);
+        int row = 0;
+        while (row < studentTable.getRowCount()
+                && String.CASE_INSENSITIVE_ORDER.compare((String) studentTable.getValueAt(row, 0), userProfile.getUsername()) < 0) {
+            row++;
+        }
+        boolean shown = row < studentTable.getRowCount() && studentTable.getValueAt(row, 0).equals(userProfile.getUsername());
+        if (!matchesSearch(userProfile)) {
+            // the student may have just moved out of the selected class
+            if (shown) {
+                studentTable.removeRow(row);
+            }
+            return;
+        }
+        if (shown) {
+            for (int column = 1; column < rowData.length; column++) {
+                if (!rowData[column].equals(studentTable.getValueAt(row, column))) {
+                    studentTable.setValueAt(rowData[column], row, column);
+                }
+            }
+        } else {
+            studentTable.insertRow(row, rowData);
+        }
+    }
+
+    /**
+     * Checks whether a student is shown with the current search text and class
+     * @param student student to check
+     * @return true if the table shows the student
+     */
+    private boolean matchesSearch(UserScores student) {
+        return (searchText.isEmpty() || student.getUsername().toLowerCase().contains(searchText))
+                && (group == null || group.equals(student.getGroup()));
+    }
+
+    /**
+     * Creates the table row of a student
+     * @param student student to show
+     * @return username, total score and Middlesex progress
+     */
+    private Object[] createRow(UserScores student) {
+        return new Object[]{student.getUsername(), student.getTotalScore(), returnDifficulty(student.getMiddlesexScore())};
+    }
+
     /**
      * method to update the table when scores are updated
-     * @throws FileNotFoundException when database throws exception
      */
-    public void updateView() throws FileNotFoundException {
+    public void updateView() {
 
         // Clear existing components from the panel
         removeAll();
 
-        database = new Database();
         // Recreate the sorted list based on updated data
-        sortedList = sortAlphabetically(database.getUserProfileMap());
+        sortedList = database.usersAlphabetically();
 
         // Recreate and add all components again
         createActionButtons();
         createSearch();
+        createGroupSelector();
+        createChart();
         createLabels();
 
         repaint();
@@ -0,0 +1,76 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Temporary folders for tests that write user files, deleted again by {@link #deleteAll()}.
+ * <p>
+ *     Each test class keeps one instance per test and calls {@link #deleteAll()} from its @AfterEach method,
+ *     so no folder is left behind, also when a test fails.
+ * </p>
+ */
+public class TestUserFiles {
+    /** folders created so far */
+    private final List<File> folders = new ArrayList<>();
+
+    /**
+     * Creates an empty temporary folder
+     * @param prefix prefix of the folder name
+     * @return the folder
+     * @throws IOException when the folder cannot be created
+     */
+    public File createFolder(String prefix) throws IOException {
+        File folder = Files.createTempDirectory(prefix).toFile();
+        folders.add(folder);
+        return folder;
+    }
+
+    /**
+     * Creates a temporary folder holding a copy of users.json
+     * @return the folder
+     * @throws IOException when the folder cannot be created or users.json cannot be copied
+     */
+    public File copyUsers() throws IOException {
+        File folder = createFolder("honk");
+        Files.copy(new File("json_files/users.json").toPath(), new File(folder, "users.json").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return folder;
+    }
+
+    /**
+     * Creates a json store on the users.json in a folder
+     * @param folder folder holding users.json
+     * @param journaled true to journal changes
+     * @return store on the folder's files
+     */
+    public static JsonUserStore createStore(File folder, boolean journaled) {
+        return new JsonUserStore(new File(folder, "users.json").getPath(), new File(folder, "users.journal").getPath(), journaled);
+    }
+
+    /**
+     * Deletes every folder created so far with everything in it
+     * @throws IOException when a file cannot be deleted
+     */
+    public void deleteAll() throws IOException {
+        for (File folder : folders) {
+            if (!folder.exists()) {
+                continue;
+            }
+            List<Path> paths;
+            try (Stream<Path> walk = Files.walk(folder.toPath())) {
+                // children sort after their folder, so deleting in reverse empties each folder first
+                paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            }
+            for (Path path : paths) {
+                Files.deleteIfExists(path);
+            }
+        }
+        folders.clear();
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * Listener notified by the {@link Database} whenever a user profile is created or updated.
+ * <p>
+ *     Screens register one of these instead of creating their own Database,
+ *     so they can refresh when scores change without reading users.json again.
+ * </p>
+ */
+public interface UserChangeListener {
+
+    /**
+     * Called after a user profile has been created or updated.
+     * May be called from a background thread, so Swing screens should use SwingUtilities.invokeLater.
+     * @param userProfile profile that changed
+     */
+    void userChanged(UserProfile userProfile);
+}
@@ -0,0 +1,103 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock shared by every game instance saving to the same user files.
+ * <p>
+ *     A {@link FileLock} on a lock file keeps other processes out, and an in-process lock per lock file keeps
+ *     other threads and stores of the same game out, since a file lock cannot be taken twice by one JVM.
+ *     The lock is only held while a save reads the latest file and writes the merged result.
+ * </p>
+ */
+public final class UserFileLock {
+    /** in-process locks by absolute lock file path */
+    private static final Map<String, ReentrantLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+    /** lock file */
+    private final File lockFile;
+    /** in-process lock of the lock file */
+    private final ReentrantLock localLock;
+    /** total time spent waiting for the lock */
+    private volatile long waitNanos;
+
+    /**
+     * Constructor for UserFileLock
+     * @param lockFile lock file, created when first locked
+     */
+    public UserFileLock(File lockFile) {
+        this.lockFile = lockFile;
+        this.localLock = LOCAL_LOCKS.computeIfAbsent(lockFile.toPath().toAbsolutePath().normalize().toString(), path -> new ReentrantLock());
+    }
+
+    /**
+     * Waits until no other thread or process holds the lock and takes it
+     * @return the held lock, close it to release
+     * @throws IOException when the lock file cannot be locked
+     */
+    public Held acquire() throws IOException {
+        long start = System.nanoTime();
+        localLock.lock();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock fileLock = channel.lock();
+            waitNanos += System.nanoTime() - start;
+            return new Held(channel, fileLock);
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            localLock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the total time spent waiting for the lock
+     * @return waiting time in milliseconds
+     */
+    public long getWaitMillis() {
+        return waitNanos / 1_000_000;
+    }
+
+    /**
+     * A lock that is held until it is closed
+     */
+    public final class Held implements Closeable {
+        /** channel of the lock file */
+        private final FileChannel channel;
+        /** lock held on the lock file */
+        private final FileLock fileLock;
+
+        /**
+         * Constructor for Held
+         * @param channel channel of the lock file
+         * @param fileLock lock held on the lock file
+         */
+        private Held(FileChannel channel, FileLock fileLock) {
+            this.channel = channel;
+            this.fileLock = fileLock;
+        }
+
+        /**
+         * Releases the file lock and the in-process lock
+         * @throws IOException when the lock file cannot be released
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                fileLock.release();
+                channel.close();
+            } finally {
+                localLock.unlock();
+            }
+        }
+    }
+}
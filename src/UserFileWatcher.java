@@ -0,0 +1,115 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the files of a {@link UserStore} for changes made by other game instances sharing the json_files folder.
+ * <p>
+ *     A daemon thread waits on a {@link WatchService}. Events that arrive close together are merged,
+ *     then the {@link Database} reloads the changed files and notifies its listeners of every user whose
+ *     profile differs from the one in memory. Screens therefore see other players' scores as they are saved.
+ * </p>
+ */
+public class UserFileWatcher implements Closeable {
+    /** how long the watcher waits for more events before reloading */
+    private static final long SETTLE_MILLIS = 200;
+
+    /** database that reloads the changed users */
+    private final Database database;
+    /** files to watch */
+    private final Set<Path> watchedFiles = new HashSet<>();
+    /** watch service of the folders holding the files */
+    private final WatchService watchService;
+    /** thread waiting for events */
+    private final Thread thread;
+    /** number of reloads done */
+    private volatile long reloads;
+
+    /**
+     * Constructor for UserFileWatcher, registers the folders of the files and starts the watcher thread
+     * @param database database that reloads the changed users
+     * @param files files holding the users
+     * @throws IOException when a folder cannot be watched
+     */
+    public UserFileWatcher(Database database, Collection<Path> files) throws IOException {
+        this.database = database;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        Set<Path> folders = new HashSet<>();
+        for (Path file : files) {
+            Path absolute = file.toAbsolutePath().normalize();
+            watchedFiles.add(absolute);
+            folders.add(absolute.getParent());
+        }
+        for (Path folder : folders) {
+            // snapshots are moved into place, so creation counts as a change too
+            folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        thread = new Thread(this::run, "user-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets the number of reloads done, each one may cover several file changes
+     * @return number of reloads
+     */
+    public long getReloads() {
+        return reloads;
+    }
+
+    /**
+     * Stops watching
+     * @throws IOException when the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+
+    /**
+     * Waits for events, merges the ones that arrive together and reloads the changed files
+     */
+    private void run() {
+        try {
+            while (true) {
+                Set<Path> changed = new HashSet<>();
+                collect(watchService.take(), changed);
+                // keep collecting until the writer has finished
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+                if (!changed.isEmpty()) {
+                    database.reloadChangedUsers(changed);
+                    reloads++;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+
+    /**
+     * Adds the watched files named by the events of a key
+     * @param key key holding the events
+     * @param changed set of changed files to add to
+     */
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path folder = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, reload everything
+                changed.addAll(watchedFiles);
+                continue;
+            }
+            Path file = folder.resolve((Path) event.context());
+            if (watchedFiles.contains(file)) {
+                changed.add(file);
+            }
+        }
+        key.reset();
+    }
+}
@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the {@link UserFileWatcher} class and the reload it triggers in {@link Database}.
+ */
+public class UserFileWatcherTest {
+
+    /** temporary folders of the test */
+    private final TestUserFiles files = new TestUserFiles();
+
+    /**
+     * Deletes the temporary folders of the test
+     */
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        files.deleteAll();
+    }
+
+    /**
+     * A score saved by another game instance updates the profile in place and notifies the listeners of that user only.
+     */
+    @Test
+    public void testReloadChangedUsers() throws IOException {
+        File folder = files.copyUsers();
+        Database here = new Database(TestUserFiles.createStore(folder, true), false);
+        Database there = new Database(TestUserFiles.createStore(folder, true), false);
+        UserProfile goose = here.getUserProfileMap().get("goose");
+        List<UserProfile> changed = new ArrayList<>();
+        here.addUserChangeListener(changed::add);
+
+        UserProfile otherGoose = there.getUserProfileMap().get("goose");
+        otherGoose.setMiddlesexScore(otherGoose.getMiddlesexScore() + 50);
+        there.updateUser(otherGoose);
+        there.searchUser("gosling", "goose", "Student");
+
+        JsonUserStore store = TestUserFiles.createStore(folder, false);
+        assertEquals(2, here.reloadChangedUsers(store.watchedFiles()));
+        assertEquals(2, changed.size());
+        assertSame(goose, here.getUserProfileMap().get("goose"));
+        assertEquals(otherGoose.getMiddlesexScore(), goose.getMiddlesexScore());
+        assertTrue(here.getUserProfileMap().containsKey("gosling"));
+
+        // nothing changed since, so nothing is reported
+        assertEquals(0, here.reloadChangedUsers(store.watchedFiles()));
+    }
+
+    /**
+     * A profile changed here but not saved yet keeps its change, and a password changed by another game instance
+     * is applied once instead of being reported on every reload.
+     */
+    @Test
+    public void testReloadKeepsUnsavedChangesAndCopiesPassword() throws IOException {
+        File folder = files.copyUsers();
+        Database here = new Database(TestUserFiles.createStore(folder, true), false);
+        Database there = new Database(TestUserFiles.createStore(folder, true), false);
+        JsonUserStore store = TestUserFiles.createStore(folder, false);
+
+        UserProfile goose = here.getUserProfileMap().get("goose");
+        goose.setMiddlesexScore(goose.getMiddlesexScore() + 5);
+        UserProfile otherGoose = there.getUserProfileMap().get("goose");
+        otherGoose.setMiddlesexScore(otherGoose.getMiddlesexScore() + 50);
+        there.updateUser(otherGoose);
+        assertEquals(0, here.reloadChangedUsers(store.watchedFiles()));
+        assertEquals(otherGoose.getMiddlesexScore() - 45, goose.getMiddlesexScore());
+
+        UserProfile otherGosling = new UserProfile("gosling", "goose", "Student", 0, 0, 0, 0);
+        there.updateUser(otherGosling);
+        assertEquals(1, here.reloadChangedUsers(store.watchedFiles()));
+        UserProfile gosling = here.getUserProfileMap().get("gosling");
+        there.updateUser(new UserProfile("gosling", "honk", "Teacher", 0, 0, 0, 0));
+        assertEquals(1, here.reloadChangedUsers(store.watchedFiles()));
+        assertSame(gosling, here.getUserProfileMap().get("gosling"));
+        assertEquals("honk", gosling.getPassword());
+        assertEquals("Teacher", gosling.getPermission());
+        assertEquals(0, here.reloadChangedUsers(store.watchedFiles()));
+    }
+
+    /**
+     * The watcher reports a snapshot rewritten by another game instance without being asked.
+     */
+    @Test
+    public void testWatcherNotifies() throws IOException, InterruptedException {
+        File folder = files.copyUsers();
+        Database here = new Database(TestUserFiles.createStore(folder, false), false);
+        Database there = new Database(TestUserFiles.createStore(folder, false), false);
+        CountDownLatch notified = new CountDownLatch(1);
+        here.addUserChangeListener(userProfile -> {
+            if (userProfile.getUsername().equals("goose")) {
+                notified.countDown();
+            }
+        });
+        here.startWatching();
+
+        UserProfile otherGoose = there.getUserProfileMap().get("goose");
+        otherGoose.setTotalScore(otherGoose.getTotalScore() + 10);
+        there.updateUser(otherGoose);
+
+        assertTrue(notified.await(10, TimeUnit.SECONDS));
+        assertEquals(otherGoose.getTotalScore(), here.getUserProfileMap().get("goose").getTotalScore());
+        here.stopWatching();
+    }
+}
@@ -0,0 +1,174 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmark of heap size and garbage collection through a {@link Database} holding a large roster.
+ * <p>
+ *     Writes the roster to a users.bin in a temporary folder, then opens a Database on it in three setups:
+ *     every profile in memory next to a {@link HeapUserTable}, profiles loaded on demand through a bounded cache
+ *     with the table on the heap, and the same cache with an {@link OffHeapUserTable}. With the cache the table
+ *     is the source of the rankings and is filled from a scan of the store, so only the cached profiles are
+ *     ever objects on the heap.
+ * </p>
+ * <p>
+ *     For each setup it reports the heap in use after a full collection, the time of a full collection, and
+ *     a game workload: looking up profiles through {@link Database#getUserProfileMap()}, ranking users with
+ *     {@link Database#rankOf(String, ScoreCategory)}, saving score changes and reading
+ *     {@link Database#topUsers(ScoreCategory)}, followed by the short lived allocations of a game session.
+ *     Collection counts and times are read from the garbage collector MXBeans.
+ * </p>
+ * <pre>
+ *     java -Xmx3g UserGcBenchmark [number of users] [operations] [full collections]
+ * </pre>
+ */
+public class UserGcBenchmark {
+    /** profiles held by the cache of the setups that load profiles on demand */
+    private static final int CACHE_SIZE = 10_000;
+    /** keeps the churn allocations from being optimised away */
+    private static long sink;
+
+    /**
+     * Runs the benchmark
+     * @param args number of users, workload operations and full collections
+     * @throws IOException when the temporary users.bin cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int collections = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        File folder = Files.createTempDirectory("honk-gc").toFile();
+        File binaryFile = new File(folder, "users.bin");
+        BinaryUserStore.create(binaryFile, UserStoreBenchmark.generateRoster(users));
+        System.out.printf("%,d users, %,d operations, users.bin %,d MB%n", users, operations, binaryFile.length() >> 20);
+
+        try {
+            run("profiles+heap", binaryFile, 0, "heap", users, operations, collections);
+            run("cache+heap", binaryFile, CACHE_SIZE, "heap", users, operations, collections);
+            run("cache+offheap", binaryFile, CACHE_SIZE, "offheap", users, operations, collections);
+        } finally {
+            for (File file : folder.listFiles()) {
+                Files.deleteIfExists(file.toPath());
+            }
+            Files.deleteIfExists(folder.toPath());
+        }
+    }
+
+    /**
+     * Opens a Database on the users.bin and measures it
+     * @param name name printed for the setup
+     * @param binaryFile users.bin holding the roster
+     * @param cacheSize most number of profiles in memory, 0 to load every profile
+     * @param tableKind kind of user table, as the honk.userTable system property
+     * @param users number of users in the file
+     * @param operations number of workload operations
+     * @param collections number of full collections to time
+     * @throws IOException when the store cannot be opened
+     */
+    private static void run(String name, File binaryFile, int cacheSize, String tableKind,
+                            int users, int operations, int collections) throws IOException {
+        System.setProperty("honk.userTable", tableKind);
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            long start = System.nanoTime();
+            Database database = new Database(store, false, cacheSize);
+            // the first ranking builds the table when profiles are loaded on demand
+            database.topUsers(ScoreCategory.TOTAL);
+            long openMillis = (System.nanoTime() - start) / 1_000_000;
+
+            System.gc();
+            long fastest = Long.MAX_VALUE;
+            long slowest = 0;
+            for (int i = 0; i < collections; i++) {
+                start = System.nanoTime();
+                System.gc();
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                fastest = Math.min(fastest, millis);
+                slowest = Math.max(slowest, millis);
+            }
+            long usedHeap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+            long[] gcBefore = collectionStats();
+            start = System.nanoTime();
+            long[] workloadNanos = workload(database, users, operations);
+            churn();
+            long totalMillis = (System.nanoTime() - start) / 1_000_000;
+            long[] gcAfter = collectionStats();
+
+            UserTable table = database.getUserTable();
+            long offHeap = table instanceof OffHeapUserTable ? ((OffHeapUserTable) table).getOffHeapBytes() : 0;
+            System.out.printf("%-14s open %,6d ms   heap %,7.1f MB   off-heap %,5.1f MB   full gc %,4d-%,4d ms   "
+                            + "lookup+rank %,5.1f us   save %,6.1f us   with churn %,6d ms: %,4d collections %,5d ms%n",
+                    name, openMillis, usedHeap / 1048576.0, offHeap / 1048576.0, fastest, slowest,
+                    workloadNanos[0] / 1000.0 / operations, workloadNanos[1] / 1000.0 / Math.max(1, operations / 10),
+                    totalMillis, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+            if (table instanceof OffHeapUserTable) {
+                ((OffHeapUserTable) table).close();
+            }
+        }
+    }
+
+    /**
+     * Runs the reads and writes of a busy game: every operation looks up a profile and ranks a user,
+     * every hundredth reads the top 10 and every tenth saves a score change
+     * @param database database to use
+     * @param users number of users, named student0 onwards
+     * @param operations number of operations
+     * @return nanoseconds spent looking up and ranking, and nanoseconds spent saving
+     */
+    private static long[] workload(Database database, int users, int operations) {
+        Map<String, UserProfile> userProfileMap = database.getUserProfileMap();
+        Random random = new Random(42);
+        long readNanos = 0;
+        long saveNanos = 0;
+        for (int i = 0; i < operations; i++) {
+            long start = System.nanoTime();
+            UserProfile userProfile = userProfileMap.get("student" + random.nextInt(users));
+            sink += database.rankOf("student" + random.nextInt(users), ScoreCategory.TOTAL);
+            if (i % 100 == 0) {
+                List<UserScores> top = database.topUsers(ScoreCategory.TOTAL);
+                sink += top.get(0).getTotalScore();
+            }
+            long read = System.nanoTime();
+            readNanos += read - start;
+            if (i % 10 == 0) {
+                userProfile.setMiddlesexScore(userProfile.getMiddlesexScore() + 10);
+                userProfile.setTotalScore(userProfile.getTotalScore() + 10);
+                database.updateUser(userProfile);
+                saveNanos += System.nanoTime() - read;
+            }
+        }
+        return new long[]{readNanos, saveNanos};
+    }
+
+    /**
+     * Allocates short lived objects the way a game session does, about 2 GB in total
+     */
+    private static void churn() {
+        // the objects escape into a small ring, so the compiler cannot leave them off the heap
+        byte[][] recent = new byte[1024][];
+        for (int i = 0; i < 20_000_000; i++) {
+            recent[i & 1023] = new byte[80];
+            sink += recent[(i + 1) & 1023] == null ? 0 : 1;
+        }
+    }
+
+    /**
+     * Sums the collections of every garbage collector
+     * @return number of collections and milliseconds spent collecting since the JVM started
+     */
+    private static long[] collectionStats() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+}
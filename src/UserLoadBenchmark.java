@@ -0,0 +1,85 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmark measuring how loading a large users.json scales with the number of cores.
+ * <p>
+ *     Generates a roster, writes it as pretty printed json to a temporary file and loads it with the
+ *     sequential {@link StreamingUserLoader} and with the {@link ParallelUserLoader} on 1, 2, 4 and 8 workers,
+ *     also when the machine has fewer cores, so the curve shows what the extra threads cost there.
+ *     Each load is repeated and the fastest run is reported along with the speedup over the sequential loader.
+ * </p>
+ * <pre>
+ *     java UserLoadBenchmark [number of users] [repetitions]
+ * </pre>
+ */
+public class UserLoadBenchmark {
+
+    /**
+     * Interface for one way of loading the file
+     */
+    private interface Loader {
+        /**
+         * Loads the file
+         * @param file users.json file
+         * @return map of username to profile
+         * @throws IOException when the file cannot be read
+         */
+        Map<String, UserProfile> load(File file) throws IOException;
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args number of users and repetitions
+     * @throws IOException when the temporary file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        File jsonFile = Files.createTempFile("users", ".json").toFile();
+        jsonFile.deleteOnExit();
+        new File(jsonFile.getPath() + ".lock").deleteOnExit();
+        // an empty file is not a user list, the store writes the snapshot from scratch
+        Files.delete(jsonFile.toPath());
+        new JsonUserStore(jsonFile.getPath(), jsonFile.getPath() + ".journal", false)
+                .saveAll(UserStoreBenchmark.generateRoster(users));
+        System.out.printf("%,d users, %,d MB%n", users, jsonFile.length() >> 20);
+
+        long sequential = fastest(file -> new StreamingUserLoader(true).load(file), jsonFile, users, repetitions);
+        System.out.printf("sequential   %,6d ms%n", sequential);
+
+        System.out.printf("%d cores available%n", Runtime.getRuntime().availableProcessors());
+        for (int workers = 1; workers <= 8; workers *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            long millis = fastest(file -> new ParallelUserLoader(pool, ParallelUserLoader.DEFAULT_CHUNK_BYTES).load(file), jsonFile, users, repetitions);
+            pool.shutdown();
+            System.out.printf("%d workers    %,6d ms   speedup %.2fx%n", workers, millis, (double) sequential / millis);
+        }
+    }
+
+    /**
+     * Loads the file several times and returns the fastest time
+     * @param loader way of loading the file
+     * @param jsonFile file to load
+     * @param users number of users the file holds
+     * @param repetitions number of loads
+     * @return fastest load in milliseconds
+     * @throws IOException when the file cannot be read
+     */
+    private static long fastest(Loader loader, File jsonFile, int users, int repetitions) throws IOException {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < repetitions; i++) {
+            long start = System.nanoTime();
+            Map<String, UserProfile> userProfileMap = loader.load(jsonFile);
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+            if (userProfileMap.size() != users) {
+                throw new IllegalStateException("loaded " + userProfileMap.size() + " of " + users + " users");
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Merges the profiles of one game instance into the latest saved state, using the profile versions.
+ * <p>
+ *     Every save of a profile increases its version. A saved profile with a higher version than the one in memory
+ *     was saved by another game instance in the meantime, so the users one instance did not change never
+ *     overwrite another instance's newer scores. When both instances changed the same user, the save in progress wins
+ *     and its version moves past the saved one, keeping the questions mastered in both.
+ * </p>
+ */
+public final class UserMerge {
+    /**
+     * Utility class, not instantiated
+     */
+    private UserMerge() {
+    }
+
+    /**
+     * Merges profiles into the saved state. The versions of profiles that are written are updated in place.
+     * @param saved latest saved profiles by username, updated in place
+     * @param profiles profiles of this game instance
+     * @param changed true if every profile was changed by this instance, false if the saved state may be newer
+     * @return number of users changed by this instance and another one at the same time
+     */
+    public static int merge(Map<String, UserProfile> saved, Collection<UserProfile> profiles, boolean changed) {
+        int conflicts = 0;
+        for (UserProfile userProfile : profiles) {
+            UserProfile savedProfile = saved.get(userProfile.getUsername());
+            if (savedProfile == null) {
+                if (changed) {
+                    userProfile.setVersion(userProfile.getVersion() + 1);
+                }
+                saved.put(userProfile.getUsername(), userProfile);
+            } else if (savedProfile.getVersion() > userProfile.getVersion()) {
+                // saved by another game instance since this one read it
+                if (changed) {
+                    conflicts++;
+                    // questions mastered in either instance stay mastered
+                    userProfile.getMastered().addAll(savedProfile.getMastered());
+                    userProfile.setVersion(savedProfile.getVersion() + 1);
+                    saved.put(userProfile.getUsername(), userProfile);
+                }
+            } else if (changed || !savedProfile.sameAs(userProfile)) {
+                // a profile cannot change on disk without a new version, so a difference is a change made here
+                userProfile.setVersion(Math.max(userProfile.getVersion(), savedProfile.getVersion()) + 1);
+                saved.put(userProfile.getUsername(), userProfile);
+            } else {
+                saved.put(userProfile.getUsername(), userProfile);
+            }
+        }
+        return conflicts;
+    }
+}
@@ -0,0 +1,169 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the {@link UserMerge} class and the stores that merge with it.
+ */
+public class UserMergeTest {
+
+    /** temporary folders of the test */
+    private final TestUserFiles files = new TestUserFiles();
+
+    /**
+     * Deletes the temporary folders of the test
+     */
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        files.deleteAll();
+    }
+
+    /**
+     * Newer saved profiles win over unchanged ones, changed profiles win and move past the saved version.
+     */
+    @Test
+    public void testMergeRules() {
+        Map<String, UserProfile> saved = new HashMap<>();
+        UserProfile newer = new UserProfile("bingo", "goose", "Student", 50, 50, 0, 0);
+        newer.setVersion(3);
+        saved.put("bingo", newer);
+
+        UserProfile stale = new UserProfile("bingo", "goose", "Student", 10, 10, 0, 0);
+        stale.setVersion(2);
+        assertEquals(0, UserMerge.merge(saved, Collections.singletonList(stale), false));
+        assertSame(newer, saved.get("bingo"));
+
+        assertEquals(1, UserMerge.merge(saved, Collections.singletonList(stale), true));
+        assertSame(stale, saved.get("bingo"));
+        assertEquals(4, stale.getVersion());
+
+        UserProfile created = new UserProfile("bongo", "goose", "Student", 0, 0, 0, 0);
+        UserMerge.merge(saved, Collections.singletonList(created), true);
+        assertEquals(1, created.getVersion());
+    }
+
+    /**
+     * Two game instances saving different users to the same users.json keep both changes,
+     * even when one of them writes a full snapshot of its stale map.
+     */
+    @Test
+    public void testConcurrentInstancesKeepEachOthersScores() throws IOException {
+        File folder = files.copyUsers();
+        JsonUserStore first = TestUserFiles.createStore(folder, false);
+        JsonUserStore second = TestUserFiles.createStore(folder, false);
+        Map<String, UserProfile> firstUsers = first.loadAll();
+        Map<String, UserProfile> secondUsers = second.loadAll();
+
+        UserProfile goose = firstUsers.get("goose");
+        goose.setMiddlesexScore(goose.getMiddlesexScore() + 100);
+        first.save(Collections.singletonList(goose));
+
+        UserProfile gosling = new UserProfile("gosling", "goose", "Student", 20, 20, 0, 0);
+        secondUsers.put("gosling", gosling);
+        second.save(Collections.singletonList(gosling));
+        second.saveAll(secondUsers.values());
+
+        Map<String, UserProfile> saved = TestUserFiles.createStore(folder, false).loadAll();
+        assertEquals(goose.getMiddlesexScore(), saved.get("goose").getMiddlesexScore());
+        assertEquals(20, saved.get("gosling").getMiddlesexScore());
+        assertEquals(0, second.getConflicts());
+    }
+
+    /**
+     * Journaled instances sharing the journal keep every record when one of them compacts it.
+     */
+    @Test
+    public void testSharedJournalCompaction() throws IOException {
+        File folder = files.copyUsers();
+        JsonUserStore first = TestUserFiles.createStore(folder, true);
+        JsonUserStore second = TestUserFiles.createStore(folder, true);
+        Map<String, UserProfile> firstUsers = first.loadAll();
+        Map<String, UserProfile> secondUsers = second.loadAll();
+
+        first.save(Collections.singletonList(new UserProfile("bingo", "goose", "Student", 5, 5, 0, 0)));
+        first.saveAll(firstUsers.values());
+        // the second instance still holds the journal that the first one rotated away
+        second.save(Collections.singletonList(new UserProfile("bongo", "goose", "Student", 7, 7, 0, 0)));
+        first.close();
+        second.close();
+
+        Map<String, UserProfile> saved = TestUserFiles.createStore(folder, false).loadAll();
+        assertEquals(5, saved.get("bingo").getTotalScore());
+        assertEquals(7, saved.get("bongo").getTotalScore());
+        assertEquals(secondUsers.size() + 2, saved.size());
+    }
+
+    /**
+     * A store without a journal never creates one, and folds a journal left by a journaled game into its next save.
+     */
+    @Test
+    public void testSnapshotStoreLeavesNoJournal() throws IOException {
+        File folder = files.copyUsers();
+        File journalFile = new File(folder, "users.journal");
+        JsonUserStore snapshotStore = TestUserFiles.createStore(folder, false);
+        Map<String, UserProfile> users = snapshotStore.loadAll();
+        snapshotStore.save(Collections.singletonList(new UserProfile("bingo", "goose", "Student", 5, 5, 0, 0)));
+        snapshotStore.close();
+        assertFalse(journalFile.exists());
+
+        JsonUserStore journaledStore = TestUserFiles.createStore(folder, true);
+        journaledStore.loadAll();
+        journaledStore.save(Collections.singletonList(new UserProfile("bongo", "goose", "Student", 7, 7, 0, 0)));
+        journaledStore.close();
+        assertTrue(journalFile.exists());
+
+        snapshotStore = TestUserFiles.createStore(folder, false);
+        assertEquals(7, snapshotStore.loadAll().get("bongo").getTotalScore());
+        snapshotStore.save(Collections.singletonList(new UserProfile("bingo", "goose", "Student", 6, 6, 0, 0)));
+        assertFalse(journalFile.exists());
+        Map<String, UserProfile> saved = TestUserFiles.createStore(folder, false).loadAll();
+        assertEquals(6, saved.get("bingo").getTotalScore());
+        assertEquals(7, saved.get("bongo").getTotalScore());
+        assertEquals(users.size() + 2, saved.size());
+    }
+
+    /**
+     * Threads saving through their own stores at the same time never lose a user.
+     */
+    @Test
+    public void testParallelSaves() throws IOException, InterruptedException {
+        File folder = files.copyUsers();
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < 4; t++) {
+            int instance = t;
+            threads.add(new Thread(() -> {
+                try {
+                    JsonUserStore store = TestUserFiles.createStore(folder, false);
+                    store.loadAll();
+                    for (int i = 0; i < 10; i++) {
+                        store.save(Collections.singletonList(new UserProfile("player" + instance + "-" + i, "goose", "Student", i, i, 0, 0)));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty(), failures.toString());
+
+        Map<String, UserProfile> saved = TestUserFiles.createStore(folder, false).loadAll();
+        for (int t = 0; t < 4; t++) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(saved.containsKey("player" + t + "-" + i));
+            }
+        }
+    }
+}
@@ -1,17 +1,38 @@
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Represents a user profile containing user information and scores.
+ * <p>
+ *     Setters mark the profile dirty and stamp it with the next change sequence number, so saves can write
+ *     only the profiles that changed and screens can ask for the users changed since a sequence number.
+ *     The dirty flag and sequence number are not saved.
+ * </p>
  * @author judy zhou
  */
-public class UserProfile {
+public class UserProfile implements UserScores {
 
     // Set up user's information
     private String username;
     private String password;
     private String permission;
+    // class or section the user belongs to, null if none
+    private String group;
     private int totalScore;
     private int middlesexScore;
     private int naturalSciencesScore;
     private int talbotScore;
+    // number of times the profile was saved, used to merge saves from several game instances
+    private int version;
+    // ids of the questions the user answered correctly, null until the first one
+    private volatile MasteryBitmap mastered;
+
+    // last change sequence number handed out to any profile
+    private static final AtomicLong CHANGE_SEQUENCE = new AtomicLong();
+    // true when the profile changed since it was last saved
+    private transient volatile boolean dirty;
+    // change sequence number of the last change to this profile
+    private transient volatile long changeSequence;
 
     /**
      * Constructs a new UserProfile object.
@@ -25,9 +46,26 @@ public class UserProfile {
      */
     public UserProfile(String username, String password, String permission, int totalScore,
                        int middlesexScore, int naturalSciencesScore, int talbotScore) {
+        this(username, password, permission, null, totalScore, middlesexScore, naturalSciencesScore, talbotScore);
+    }
+
+    /**
+     * Constructs a new UserProfile object in a class or section.
+     * @param username The username of the user
+     * @param password The password of the user
+     * @param permission The permission level of the user (Student, Teacher, Debugger)
+     * @param group The class or section of the user, null if none
+     * @param totalScore The total score of the user
+     * @param middlesexScore The cumulative score of the user in the Middlesex game
+     * @param naturalSciencesScore The cumulative score of the user in the Natural Sciences game
+     * @param talbotScore The cumulative score of the user in the Talbot game
+     */
+    public UserProfile(String username, String password, String permission, String group, int totalScore,
+                       int middlesexScore, int naturalSciencesScore, int talbotScore) {
         this.username = username;
         this.password = password;
         this.permission = permission;
+        this.group = group == null || group.isEmpty() ? null : group;
         this.totalScore = totalScore;
         this.middlesexScore = middlesexScore;
         this.naturalSciencesScore = naturalSciencesScore;
@@ -60,6 +98,26 @@ public class UserProfile {
         return permission;
     }
 
+    /**
+     * Gets the class or section the user belongs to
+     * @return The group of the user, null if the user is in no group
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * Moves the user to another class or section
+     * @param group The group to be set, null or empty to leave every group
+     */
+    public void setGroup(String group) {
+        String newGroup = group == null || group.isEmpty() ? null : group;
+        if (!Objects.equals(this.group, newGroup)) {
+            this.group = newGroup;
+            markChanged();
+        }
+    }
+
     /**
      * Gets the total score of the user
      * @return The total score of the user
@@ -73,7 +131,10 @@ public class UserProfile {
      * @param totalScore The total score to be set
      */
     public void setTotalScore(int totalScore) {
-        this.totalScore = totalScore;
+        if (this.totalScore != totalScore) {
+            this.totalScore = totalScore;
+            markChanged();
+        }
     }
 
     /**
@@ -89,7 +150,10 @@ public class UserProfile {
      * @param middlesexScore The score to be set in the Middlesex game
      */
     public void setMiddlesexScore(int middlesexScore) {
-        this.middlesexScore = middlesexScore;
+        if (this.middlesexScore != middlesexScore) {
+            this.middlesexScore = middlesexScore;
+            markChanged();
+        }
     }
 
     /**
@@ -105,7 +169,10 @@ public class UserProfile {
      * @param naturalSciencesScore The score to be set in the Natural Sciences game
      */
     public void setNaturalSciencesScore(int naturalSciencesScore) {
-        this.naturalSciencesScore = naturalSciencesScore;
+        if (this.naturalSciencesScore != naturalSciencesScore) {
+            this.naturalSciencesScore = naturalSciencesScore;
+            markChanged();
+        }
     }
 
     /**
@@ -121,6 +188,156 @@ public class UserProfile {
      * @param talbotScore The score to be set in the Talbot category
      */
     public void setTalbotScore(int talbotScore) {
-        this.talbotScore = talbotScore;
+        if (this.talbotScore != talbotScore) {
+            this.talbotScore = talbotScore;
+            markChanged();
+        }
+    }
+
+    /**
+     * Gets the ids of the questions the user has answered correctly, in this or earlier sessions
+     * @return The mastered question ids, the same bitmap for the life of the profile
+     */
+    public synchronized MasteryBitmap getMastered() {
+        if (mastered == null) {
+            mastered = new MasteryBitmap();
+        }
+        return mastered;
+    }
+
+    /**
+     * Checks whether the user has answered a question correctly before
+     * @param questionId The id of the question
+     * @return true if the question is mastered
+     */
+    public boolean hasMastered(int questionId) {
+        MasteryBitmap current = mastered;
+        return current != null && current.contains(questionId);
+    }
+
+    /**
+     * Records a question the user answered correctly
+     * @param questionId The id of the question
+     */
+    public void addMastered(int questionId) {
+        if (getMastered().add(questionId)) {
+            markChanged();
+        }
+    }
+
+    /**
+     * Sets the mastered question ids, called by the user store when it loads the profile
+     * @param mastered The mastered question ids, or null if there are none
+     */
+    public synchronized void setMastered(MasteryBitmap mastered) {
+        this.mastered = mastered;
+    }
+
+    /**
+     * Gets the version of the profile, the number of times it was saved
+     * @return The version of the profile
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the profile, called by the user store when it saves the profile
+     * @param version The new version
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Checks whether the profile changed since it was last saved
+     * @return true if a score changed since the last save
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Gets the change sequence number of the last change to this profile
+     * @return change sequence number, 0 if the profile did not change since it was loaded
+     */
+    public long getChangeSequence() {
+        return changeSequence;
+    }
+
+    /**
+     * Gets the last change sequence number handed out to any profile,
+     * pass it to {@link Database#changedSince(long)} later to get the users changed in between
+     * @return current change sequence number
+     */
+    public static long currentChangeSequence() {
+        return CHANGE_SEQUENCE.get();
+    }
+
+    /**
+     * Marks the profile dirty and stamps it with the next change sequence number
+     */
+    public synchronized void markChanged() {
+        changeSequence = CHANGE_SEQUENCE.incrementAndGet();
+        dirty = true;
+    }
+
+    /**
+     * Marks the profile clean after a save, unless it changed again after the save read it
+     * @param savedSequence change sequence number of the profile when the save read it
+     */
+    public synchronized void markSaved(long savedSequence) {
+        if (changeSequence == savedSequence) {
+            dirty = false;
+        }
+    }
+
+    /**
+     * Checks whether another profile holds the same account, scores and mastered questions, the version is not compared
+     * @param other profile to compare with
+     * @return true if every stored field except the version is equal
+     */
+    public boolean sameAs(UserProfile other) {
+        return Objects.equals(username, other.username)
+                && Objects.equals(password, other.password)
+                && Objects.equals(permission, other.permission)
+                && Objects.equals(group, other.group)
+                && totalScore == other.totalScore
+                && middlesexScore == other.middlesexScore
+                && naturalSciencesScore == other.naturalSciencesScore
+                && talbotScore == other.talbotScore
+                && sameMastered(other);
+    }
+
+    /**
+     * Checks whether another profile mastered the same questions, no bitmap counts as an empty one
+     * @param other profile to compare with
+     * @return true if both mastered the same questions
+     */
+    private boolean sameMastered(UserProfile other) {
+        boolean empty = mastered == null || mastered.isEmpty();
+        boolean otherEmpty = other.mastered == null || other.mastered.isEmpty();
+        return empty || otherEmpty ? empty == otherEmpty : mastered.equals(other.mastered);
+    }
+
+    /**
+     * Copies the password, permission, group, scores, mastered questions and version of another profile of the
+     * same user into this one, so screens holding this profile see the new scores. Questions mastered here stay mastered.
+     * @param other profile holding the new scores
+     */
+    public void copyScoresFrom(UserProfile other) {
+        if (other.mastered != null) {
+            getMastered().addAll(other.mastered);
+        }
+        this.password = other.password;
+        this.permission = other.permission;
+        this.group = other.group;
+        this.totalScore = other.totalScore;
+        this.middlesexScore = other.middlesexScore;
+        this.naturalSciencesScore = other.naturalSciencesScore;
+        this.talbotScore = other.talbotScore;
+        this.version = other.version;
+        // the scores are already saved by the other game instance, only screens need to know
+        changeSequence = CHANGE_SEQUENCE.incrementAndGet();
     }
-}
\ No newline at end of file
+}
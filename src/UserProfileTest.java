@@ -38,4 +38,27 @@ public class UserProfileTest {
         Assertions.assertEquals(160, user.getTalbotScore());
     }
 
+    /**
+     * Tests that setters mark the profile dirty only when a score changes,
+     * and that a save clears it unless the profile changed again in the meantime.
+     */
+    @Test
+    public void testDirtyTracking(){
+        Assertions.assertFalse(user.isDirty());
+        user.setTotalScore(400);
+        Assertions.assertFalse(user.isDirty());
+
+        long before = UserProfile.currentChangeSequence();
+        user.setMiddlesexScore(300);
+        Assertions.assertTrue(user.isDirty());
+        Assertions.assertTrue(user.getChangeSequence() > before);
+
+        long saved = user.getChangeSequence();
+        user.setTalbotScore(75);
+        user.markSaved(saved);
+        Assertions.assertTrue(user.isDirty());
+        user.markSaved(user.getChangeSequence());
+        Assertions.assertFalse(user.isDirty());
+    }
+
 }
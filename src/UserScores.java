@@ -0,0 +1,60 @@
+/**
+ * Read-only view of a user's account and scores.
+ * <p>
+ *     Implemented by {@link UserProfile} and by the row handles of a {@link UserTable},
+ *     so leaderboards and teacher screens can read either without caring how the scores are held.
+ * </p>
+ */
+public interface UserScores {
+
+    /**
+     * Gets the username of the user
+     * @return username
+     */
+    String getUsername();
+
+    /**
+     * Gets the permission level of the user
+     * @return permission level (Student, Teacher, Debugger)
+     */
+    String getPermission();
+
+    /**
+     * Gets the class or section the user belongs to
+     * @return group name, null if the user is in no group
+     */
+    String getGroup();
+
+    /**
+     * Gets the total score of the user
+     * @return total score
+     */
+    int getTotalScore();
+
+    /**
+     * Gets the score of the user in the Middlesex game
+     * @return Middlesex score
+     */
+    int getMiddlesexScore();
+
+    /**
+     * Gets the score of the user in the Natural Sciences game
+     * @return Natural Sciences score
+     */
+    int getNaturalSciencesScore();
+
+    /**
+     * Gets the score of the user in the Talbot game
+     * @return Talbot score
+     */
+    int getTalbotScore();
+
+    /**
+     * Gets the score of the user in a category
+     * @param category score category
+     * @return score in the category
+     */
+    default int getScore(ScoreCategory category) {
+        return category.scoreOf(this);
+    }
+}
@@ -0,0 +1,98 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Storage backend behind the {@link Database}.
+ * <p>
+ *     The Database keeps every profile in its own map and only asks the store to load them once
+ *     and to save the ones that changed. Backends are picked at launch with the honk.userStore
+ *     system property: json (default), binary, sharded or memory.
+ * </p>
+ */
+public interface UserStore extends Closeable {
+
+    /**
+     * Loads every stored profile
+     * @return map of username to profile
+     * @throws IOException when the store cannot be read
+     */
+    Map<String, UserProfile> loadAll() throws IOException;
+
+    /**
+     * Reads the saved scores of every user, for building the {@link UserTable} without keeping the profiles.
+     * Stores that can read their records directly hand out one reused view instead of creating a profile per user,
+     * so the consumer has to copy what it needs before it returns.
+     * @param consumer called once per stored user
+     * @throws IOException when the store cannot be read
+     */
+    default void scanScores(Consumer<UserScores> consumer) throws IOException {
+        for (UserProfile userProfile : loadAll().values()) {
+            consumer.accept(userProfile);
+        }
+    }
+
+    /**
+     * Saves profiles that were created or changed
+     * @param changed profiles to save
+     * @throws IOException when the store cannot be written
+     */
+    void save(Collection<UserProfile> changed) throws IOException;
+
+    /**
+     * Replaces the stored profiles with a full snapshot
+     * @param all every profile
+     * @throws IOException when the store cannot be written
+     */
+    void saveAll(Collection<UserProfile> all) throws IOException;
+
+    /**
+     * Tells the Database that the changes saved so far should be followed by a full snapshot,
+     * for example because the json file cannot be updated one user at a time
+     * @return true if {@link #saveAll(Collection)} should be called
+     */
+    default boolean needsSnapshot() {
+        return false;
+    }
+
+    /**
+     * Gets the number of user records written since the store was opened. A snapshot counts every user in it,
+     * so the counter shows how much work each save really did.
+     * @return number of records written
+     */
+    default long getRecordsWritten() {
+        return 0;
+    }
+
+    /**
+     * Gets the files holding the users, watched by {@link UserFileWatcher} for changes made by other game instances
+     * @return files holding the users, empty when the store is not on disk
+     */
+    default List<Path> watchedFiles() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Reads the users again after other game instances changed some of the watched files.
+     * Stores may only read the changed part, so the result can hold just some of the users.
+     * @param changedFiles absolute paths of the watched files that changed
+     * @return map of username to profile for every user in the changed files
+     * @throws IOException when the store cannot be read
+     */
+    default Map<String, UserProfile> reload(Collection<Path> changedFiles) throws IOException {
+        return loadAll();
+    }
+
+    /**
+     * Releases any file held by the store
+     * @throws IOException when the store cannot be closed
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,87 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Benchmark comparing the user storage backends on a generated roster.
+ * <p>
+ *     For each backend it measures loading every user and saving a burst of single score changes.
+ *     Files are written to a temporary folder, users.json is never touched.
+ * </p>
+ * <pre>
+ *     java UserStoreBenchmark [number of users] [number of score changes]
+ * </pre>
+ */
+public class UserStoreBenchmark {
+
+    /**
+     * Runs the benchmark
+     * @param args number of users and number of score changes
+     * @throws IOException when a temporary file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int changes = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        File folder = Files.createTempDirectory("honk-bench").toFile();
+        List<UserProfile> roster = generateRoster(users);
+        File jsonFile = new File(folder, "users.json");
+        new JsonUserStore(jsonFile.getPath(), new File(folder, "users.journal").getPath(), false).saveAll(roster);
+        File binaryFile = new File(folder, "users.bin");
+        BinaryUserStore.create(binaryFile, roster);
+
+        System.out.printf("%,d users, %,d score changes%n", users, changes);
+        run("memory", new InMemoryUserStore(jsonFile), changes);
+        run("json", new JsonUserStore(jsonFile.getPath(), new File(folder, "users.journal").getPath(), false), changes);
+        run("json+journal", new JsonUserStore(jsonFile.getPath(), new File(folder, "users.journal").getPath(), true), changes);
+        run("binary", new BinaryUserStore(binaryFile), changes);
+        File shardFolder = new File(folder, "shards");
+        UserStoreTool.reshard(jsonFile, shardFolder, ShardedJsonUserStore.DEFAULT_SHARDS);
+        run("sharded", new ShardedJsonUserStore(shardFolder, ShardedJsonUserStore.DEFAULT_SHARDS), changes);
+    }
+
+    /**
+     * Times loading every user and saving score changes one at a time through a Database
+     * @param name name printed for the backend
+     * @param store backend to measure
+     * @param changes number of score changes to save
+     * @throws IOException when the store cannot be read or written
+     */
+    private static void run(String name, UserStore store, int changes) throws IOException {
+        long start = System.nanoTime();
+        Database database = new Database(store, false);
+        long loadNanos = System.nanoTime() - start;
+
+        List<UserProfile> profiles = new ArrayList<>(database.getUserProfileMap().values());
+        Random random = new Random(42);
+        start = System.nanoTime();
+        for (int i = 0; i < changes; i++) {
+            UserProfile userProfile = profiles.get(random.nextInt(profiles.size()));
+            userProfile.setMiddlesexScore(userProfile.getMiddlesexScore() + 10);
+            userProfile.setTotalScore(userProfile.getTotalScore() + 10);
+            database.updateUser(userProfile);
+        }
+        long saveNanos = System.nanoTime() - start;
+        store.close();
+
+        System.out.printf("%-14s load %,8d ms   save %,10.1f us/change%n", name, loadNanos / 1_000_000, saveNanos / 1000.0 / changes);
+    }
+
+    /**
+     * Generates a roster of students with random scores
+     * @param users number of students
+     * @return generated profiles
+     */
+    static List<UserProfile> generateRoster(int users) {
+        Random random = new Random(2212);
+        List<UserProfile> roster = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            int middlesex = random.nextInt(1500);
+            int naturalSciences = random.nextInt(500);
+            roster.add(new UserProfile("student" + i, "pw" + random.nextInt(10_000), "Student",
+                    middlesex + naturalSciences, middlesex, naturalSciences, 0));
+        }
+        return roster;
+    }
+}
@@ -0,0 +1,195 @@
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line tool for converting the user file between its json, binary and sharded forms.
+ * <pre>
+ *     java UserStoreTool to-binary json_files/users.json json_files/users.bin
+ *     java UserStoreTool to-json json_files/users.bin json_files/users.json
+ *     java UserStoreTool compact json_files/users.bin json_files/users-compact.bin
+ *     java UserStoreTool reshard json_files/users.json json_files 16
+ *     java UserStoreTool verify json_files/users.json json_files
+ * </pre>
+ * The source of reshard and verify is either a users.json file or a folder of shard files,
+ * so existing shards can be split again into a different number of shards.
+ * Compact rewrites a binary user file without the old passwords and mastery bitmaps left behind by updates,
+ * and should be run while no game has the file open.
+ */
+public class UserStoreTool {
+
+    /**
+     * Runs the conversion named by the first argument
+     * @param args command, source file and target file
+     * @throws IOException when a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            usage();
+            return;
+        }
+        File source = new File(args[1]);
+        File target = new File(args[2]);
+        switch (args[0]) {
+            case "to-binary":
+                System.out.println("Wrote " + jsonToBinary(source, target) + " users to " + target);
+                break;
+            case "to-json":
+                System.out.println("Wrote " + binaryToJson(source, target) + " users to " + target);
+                break;
+            case "compact":
+                System.out.println("Wrote " + compactBinary(source, target) + " users to " + target);
+                break;
+            case "reshard":
+                int shardCount = args.length > 3 ? Integer.parseInt(args[3]) : ShardedJsonUserStore.DEFAULT_SHARDS;
+                System.out.println("Wrote " + reshard(source, target, shardCount) + " users to " + shardCount + " shards in " + target);
+                break;
+            case "verify":
+                List<String> problems = verify(source, target);
+                for (String problem : problems) {
+                    System.out.println(problem);
+                }
+                System.out.println(problems.isEmpty() ? "OK, the shards hold exactly the users of " + source : problems.size() + " problems found");
+                if (!problems.isEmpty()) {
+                    System.exit(1);
+                }
+                break;
+            default:
+                usage();
+                break;
+        }
+    }
+
+    /**
+     * Converts a users.json file to a binary user file
+     * @param jsonFile users.json file to read
+     * @param binaryFile binary user file to write
+     * @return number of users converted
+     * @throws IOException when a file cannot be read or written
+     */
+    public static int jsonToBinary(File jsonFile, File binaryFile) throws IOException {
+        Map<String, UserProfile> userProfileMap = new StreamingUserLoader(true).load(jsonFile);
+        BinaryUserStore.create(binaryFile, userProfileMap.values());
+        return userProfileMap.size();
+    }
+
+    /**
+     * Converts a binary user file to a users.json file
+     * @param binaryFile binary user file to read
+     * @param jsonFile users.json file to write
+     * @return number of users converted
+     * @throws IOException when a file cannot be read or written
+     */
+    public static int binaryToJson(File binaryFile, File jsonFile) throws IOException {
+        Map<String, UserProfile> userProfileMap;
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            userProfileMap = store.loadAll();
+        }
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(jsonFile), StandardCharsets.UTF_8))) {
+            gson.toJson(new ArrayList<>(userProfileMap.values()), writer);
+        }
+        return userProfileMap.size();
+    }
+
+    /**
+     * Rewrites a binary user file holding only the strings its records point at
+     * @param binaryFile binary user file to read
+     * @param compactFile binary user file to write, may be the same file
+     * @return number of users written
+     * @throws IOException when a file cannot be read or written
+     */
+    public static int compactBinary(File binaryFile, File compactFile) throws IOException {
+        Map<String, UserProfile> userProfileMap;
+        try (BinaryUserStore store = new BinaryUserStore(binaryFile)) {
+            userProfileMap = store.loadAll();
+        }
+        BinaryUserStore.create(compactFile, userProfileMap.values());
+        return userProfileMap.size();
+    }
+
+    /**
+     * Splits users into shard files, deleting any shard left over from a larger shard count
+     * @param source users.json file or folder of shard files
+     * @param shardFolder folder to write the shards to
+     * @param shardCount number of shards
+     * @return number of users written
+     * @throws IOException when a file cannot be read or written
+     */
+    public static int reshard(File source, File shardFolder, int shardCount) throws IOException {
+        Map<String, UserProfile> userProfileMap = loadJson(source);
+        shardFolder.mkdirs();
+        new ShardedJsonUserStore(shardFolder, shardCount).saveAll(new ArrayList<>(userProfileMap.values()));
+        for (int shard = shardCount; ShardedJsonUserStore.shardFile(shardFolder, shard).exists(); shard++) {
+            ShardedJsonUserStore.shardFile(shardFolder, shard).delete();
+        }
+        return userProfileMap.size();
+    }
+
+    /**
+     * Checks that shard files hold exactly the users of the source, each in the shard its username maps to
+     * @param source users.json file or folder of shard files
+     * @param shardFolder folder holding the shards to check
+     * @return description of every difference, empty when the shards match
+     * @throws IOException when a file cannot be read
+     */
+    public static List<String> verify(File source, File shardFolder) throws IOException {
+        List<String> problems = new ArrayList<>();
+        Map<String, UserProfile> expected = loadJson(source);
+        int shardCount = ShardedJsonUserStore.countShards(shardFolder);
+        if (shardCount == 0) {
+            problems.add("no shard files in " + shardFolder);
+            return problems;
+        }
+
+        int found = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            Map<String, UserProfile> shardProfiles = new StreamingUserLoader(false).load(ShardedJsonUserStore.shardFile(shardFolder, shard));
+            found += shardProfiles.size();
+            for (UserProfile userProfile : shardProfiles.values()) {
+                if (ShardedJsonUserStore.shardOf(userProfile.getUsername(), shardCount) != shard) {
+                    problems.add(userProfile.getUsername() + " is in shard " + shard + " instead of "
+                            + ShardedJsonUserStore.shardOf(userProfile.getUsername(), shardCount));
+                }
+                UserProfile original = expected.get(userProfile.getUsername());
+                if (original == null) {
+                    problems.add(userProfile.getUsername() + " is not in " + source);
+                } else if (!original.sameAs(userProfile)) {
+                    problems.add(userProfile.getUsername() + " differs from " + source);
+                }
+            }
+        }
+        if (found != expected.size()) {
+            problems.add("shards hold " + found + " users, " + source + " holds " + expected.size());
+        }
+        return problems;
+    }
+
+    /**
+     * Loads users from a users.json file or from every shard in a folder
+     * @param source users.json file or folder of shard files
+     * @return map of username to profile
+     * @throws IOException when a file cannot be read
+     */
+    private static Map<String, UserProfile> loadJson(File source) throws IOException {
+        if (source.isDirectory()) {
+            return new ShardedJsonUserStore(source, ShardedJsonUserStore.countShards(source)).loadAll();
+        }
+        return new StreamingUserLoader(true).load(source);
+    }
+
+    /**
+     * Prints how to use the tool
+     */
+    private static void usage() {
+        System.out.println("usage: UserStoreTool to-binary <users.json> <users.bin>");
+        System.out.println("       UserStoreTool to-json <users.bin> <users.json>");
+        System.out.println("       UserStoreTool compact <users.bin> <users.bin>");
+        System.out.println("       UserStoreTool reshard <users.json or shard folder> <shard folder> [shards]");
+        System.out.println("       UserStoreTool verify <users.json or shard folder> <shard folder>");
+    }
+}
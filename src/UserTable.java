@@ -0,0 +1,699 @@
+import java.util.*;
+
+/**
+ * Column oriented table of every user's scores, for leaderboards and teacher analytics over large rosters.
+ * <p>
+ *     Each score category is a column of ints indexed by row, so ranking or summing a category scans one
+ *     contiguous column instead of following a pointer to every {@link UserProfile}. Usernames are kept once
+ *     with a username to row index, and permissions and groups are dictionary encoded: the table stores a small
+ *     code per row and each distinct permission or group string once.
+ * </p>
+ * <p>
+ *     Besides the ranking of every row, a category can be ranked per group, such as a class or section.
+ *     The group rankings of a category are built together in one scan the first time any of them is asked for,
+ *     then {@link #put(UserScores)} moves a row in its group's ranking in the same pass as in the global one,
+ *     so a group leaderboard costs O(log n) per change however many groups there are.
+ *     A {@link ScoreHistogram} per category is kept up to date the same way, for score distributions.
+ * </p>
+ * <p>
+ *     {@link #row(int)} and {@link #find(String)} hand out lightweight {@link Row} handles that read
+ *     the columns, so callers can treat a row like a profile without one being created.
+ *     Passwords are not copied, the table only holds what rankings and analytics need.
+ * </p>
+ * <p>
+ *     Subclasses decide where the columns live: {@link HeapUserTable} uses int arrays and
+ *     {@link OffHeapUserTable} keeps them outside the Java heap.
+ * </p>
+ */
+public abstract class UserTable {
+    /** distinct permission strings */
+    private final List<String> permissionDictionary = new ArrayList<>();
+    /** distinct group names by group code, code 0 stands for no group */
+    private final List<String> groupDictionary = new ArrayList<>(Collections.singletonList(null));
+    /** group code of every group name */
+    private final Map<String, Integer> groupCodes = new HashMap<>();
+    /** number of rows in each group, by group code */
+    private int[] groupSizes = new int[16];
+    /** number of rows in use */
+    private int size;
+    /** rankings kept up to date by {@link #put(UserScores)}, one per {@link ScoreCategory} ordinal, null until first asked for */
+    private final LeaderboardIndex[] leaderboards = new LeaderboardIndex[ScoreCategory.values().length];
+    /** score distribution of every category, one per {@link ScoreCategory} ordinal */
+    private final ScoreHistogram[] histograms = new ScoreHistogram[ScoreCategory.values().length];
+    /** rankings of every group by group code, one list per {@link ScoreCategory} ordinal, null until first asked for */
+    private final List<List<LeaderboardIndex>> groupLeaderboards =
+            new ArrayList<>(Collections.nCopies(ScoreCategory.values().length, null));
+
+    /**
+     * Constructor for an empty UserTable
+     */
+    protected UserTable() {
+        for (int column = 0; column < histograms.length; column++) {
+            histograms[column] = new ScoreHistogram();
+        }
+    }
+
+    /**
+     * Builds a table on the Java heap holding the given users
+     * @param users users to copy into the table
+     * @return table with a row per user
+     */
+    public static UserTable of(Collection<? extends UserScores> users) {
+        UserTable table = new HeapUserTable(users.size());
+        table.putAll(users);
+        return table;
+    }
+
+    /**
+     * Adds or updates every given user
+     * @param users users to copy into the table
+     */
+    public synchronized void putAll(Collection<? extends UserScores> users) {
+        for (UserScores userScores : users) {
+            put(userScores);
+        }
+    }
+
+    /**
+     * Adds a user, or updates the row of a user already in the table
+     * @param userScores user to copy into the table
+     * @return row of the user
+     */
+    public synchronized int put(UserScores userScores) {
+        int row = findRow(userScores.getUsername());
+        boolean added = row < 0;
+        if (added) {
+            row = size++;
+            appendRow(row, userScores.getUsername());
+        }
+        setPermissionCode(row, encodePermission(userScores.getPermission()));
+        int oldGroup = added ? 0 : groupCodeAt(row);
+        int newGroup = encodeGroup(userScores.getGroup());
+        if (added || oldGroup != newGroup) {
+            groupSizes[oldGroup] -= added ? 0 : 1;
+            groupSizes[newGroup]++;
+            setGroupCode(row, newGroup);
+        }
+        for (ScoreCategory category : ScoreCategory.values()) {
+            int column = category.ordinal();
+            int score = category.scoreOf(userScores);
+            int oldScore = added ? 0 : scoreAt(column, row);
+            if (added || oldScore != score) {
+                if (!added) {
+                    histograms[column].remove(oldScore);
+                }
+                histograms[column].add(score);
+            }
+            LeaderboardIndex leaderboard = leaderboards[column];
+            if (leaderboard != null) {
+                if (added) {
+                    leaderboard.add(row, score);
+                } else {
+                    leaderboard.update(row, oldScore, score);
+                }
+            }
+            List<LeaderboardIndex> byGroup = groupLeaderboards.get(column);
+            if (byGroup != null) {
+                if (!added && oldGroup == newGroup) {
+                    if (newGroup != 0) {
+                        groupLeaderboard(byGroup, category, newGroup).update(row, oldScore, score);
+                    }
+                } else {
+                    if (!added && oldGroup != 0) {
+                        groupLeaderboard(byGroup, category, oldGroup).remove(row, oldScore);
+                    }
+                    if (newGroup != 0) {
+                        groupLeaderboard(byGroup, category, newGroup).add(row, score);
+                    }
+                }
+            }
+            setScore(column, row, score);
+        }
+        return row;
+    }
+
+    /**
+     * Gets the ranking of a category, which {@link #put(UserScores)} keeps up to date from then on.
+     * The first call ranks every row.
+     * @param category category to rank by
+     * @return ranking of the rows
+     */
+    public synchronized LeaderboardIndex leaderboard(ScoreCategory category) {
+        int column = category.ordinal();
+        if (leaderboards[column] == null) {
+            LeaderboardIndex leaderboard = new LeaderboardIndex(category);
+            for (int row = 0; row < size; row++) {
+                leaderboard.add(row, scoreAt(column, row));
+            }
+            leaderboards[column] = leaderboard;
+        }
+        return leaderboards[column];
+    }
+
+    /**
+     * Gets the ranking of a category within one group, which {@link #put(UserScores)} keeps up to date from then on.
+     * The first call for a category ranks every row into its group's ranking.
+     * @param category category to rank by
+     * @param group group to rank, null for every row
+     * @return ranking of the rows in the group, empty if nobody is in it yet
+     */
+    public synchronized LeaderboardIndex leaderboard(ScoreCategory category, String group) {
+        if (group == null) {
+            return leaderboard(category);
+        }
+        int column = category.ordinal();
+        List<LeaderboardIndex> byGroup = groupLeaderboards.get(column);
+        if (byGroup == null) {
+            byGroup = new ArrayList<>();
+            for (int row = 0; row < size; row++) {
+                int code = groupCodeAt(row);
+                if (code != 0) {
+                    groupLeaderboard(byGroup, category, code).add(row, scoreAt(column, row));
+                }
+            }
+            groupLeaderboards.set(column, byGroup);
+        }
+        // an unknown group gets a code, so the ranking handed out fills up once students join it
+        return groupLeaderboard(byGroup, category, encodeGroup(group));
+    }
+
+    /**
+     * Gets the score distribution of a category, which {@link #put(UserScores)} keeps up to date
+     * @param category category to describe
+     * @return copy of the histogram, safe to read while the table changes
+     */
+    public synchronized ScoreHistogram histogram(ScoreCategory category) {
+        return new ScoreHistogram(histograms[category.ordinal()]);
+    }
+
+    /**
+     * Gets the groups that have at least one user
+     * @return group names in alphabetical order
+     */
+    public synchronized List<String> groups() {
+        List<String> groups = new ArrayList<>();
+        for (int code = 1; code < groupDictionary.size(); code++) {
+            if (groupSizes[code] > 0) {
+                groups.add(groupDictionary.get(code));
+            }
+        }
+        groups.sort(String.CASE_INSENSITIVE_ORDER);
+        return groups;
+    }
+
+    /**
+     * Counts the users in a group
+     * @param group group name
+     * @return number of rows in the group
+     */
+    public synchronized int groupSize(String group) {
+        Integer code = groupCodes.get(group);
+        return code == null ? 0 : groupSizes[code];
+    }
+
+    /**
+     * Gets the number of users in the table
+     * @return number of rows
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets a handle on a row
+     * @param row row index, from 0 to size - 1
+     * @return handle reading the row
+     * @throws IndexOutOfBoundsException when there is no such row
+     */
+    public synchronized Row row(int row) {
+        Objects.checkIndex(row, size);
+        return new Row(row);
+    }
+
+    /**
+     * Gets a handle on the row of a user
+     * @param username username to look for
+     * @return handle reading the user's row, or null if the user is not in the table
+     */
+    public synchronized Row find(String username) {
+        int row = findRow(username);
+        return row < 0 ? null : new Row(row);
+    }
+
+    /**
+     * Gets a score of one row
+     * @param row row index
+     * @param category score category
+     * @return score of the row in the category
+     */
+    public synchronized int getScore(int row, ScoreCategory category) {
+        Objects.checkIndex(row, size);
+        return scoreAt(category.ordinal(), row);
+    }
+
+    /**
+     * Gets the username of one row
+     * @param row row index
+     * @return username
+     */
+    public synchronized String getUsername(int row) {
+        Objects.checkIndex(row, size);
+        return usernameAt(row);
+    }
+
+    /**
+     * Gets the permission level of one row
+     * @param row row index
+     * @return permission level
+     */
+    public synchronized String getPermission(int row) {
+        Objects.checkIndex(row, size);
+        return permissionDictionary.get(permissionCodeAt(row));
+    }
+
+    /**
+     * Gets the group of one row
+     * @param row row index
+     * @return group name, null if the row is in no group
+     */
+    public synchronized String getGroup(int row) {
+        Objects.checkIndex(row, size);
+        return groupDictionary.get(groupCodeAt(row));
+    }
+
+    /**
+     * Finds the rows with the highest scores in a category.
+     * Keeps a min-heap of the best rows seen so far, so only the top rows are ever ordered.
+     * Rows with the same score keep the order they were added in.
+     * @param category category to rank by
+     * @param limit most number of rows to return
+     * @return row indexes, highest score first
+     */
+    public synchronized int[] topRows(ScoreCategory category, int limit) {
+        int column = category.ordinal();
+        int count = Math.min(limit, size);
+        if (count <= 0) {
+            return new int[0];
+        }
+        // heap[0] is the worst of the best rows: lowest score, latest row on ties
+        int[] heap = new int[count];
+        int heapSize = 0;
+        for (int row = 0; row < size; row++) {
+            if (heapSize < count) {
+                heap[heapSize] = row;
+                siftUp(heap, heapSize++, column);
+            } else if (scoreAt(column, row) > scoreAt(column, heap[0])) {
+                heap[0] = row;
+                siftDown(heap, heapSize, column);
+            }
+        }
+        // popping the worst row each time fills the result from the back
+        int[] top = new int[count];
+        for (int i = count - 1; i >= 0; i--) {
+            top[i] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, column);
+        }
+        return top;
+    }
+
+    /**
+     * Gets every row ordered by a category, highest score first, rows with the same score in the order they were added
+     * @param category category to sort by
+     * @return row indexes in rank order
+     */
+    public synchronized int[] sortedRows(ScoreCategory category) {
+        int column = category.ordinal();
+        // pack the inverted score and the row into one long, so a primitive sort orders both
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            keys[row] = ((long) ~scoreAt(column, row) << 32) | row;
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = (int) keys[i];
+        }
+        return sorted;
+    }
+
+    /**
+     * Sums a category over every row
+     * @param category category to sum
+     * @return sum of the scores
+     */
+    public synchronized long sum(ScoreCategory category) {
+        int column = category.ordinal();
+        long sum = 0;
+        for (int row = 0; row < size; row++) {
+            sum += scoreAt(column, row);
+        }
+        return sum;
+    }
+
+    /**
+     * Averages a category over the rows with a permission level
+     * @param category category to average
+     * @param permission permission level to include, null for every row
+     * @return average score, 0 when no row matches
+     */
+    public synchronized double average(ScoreCategory category, String permission) {
+        int column = category.ordinal();
+        int code = permission == null ? -1 : permissionDictionary.indexOf(permission);
+        if (permission != null && code < 0) {
+            return 0;
+        }
+        long sum = 0;
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (code < 0 || permissionCodeAt(row) == code) {
+                sum += scoreAt(column, row);
+                count++;
+            }
+        }
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Gets the highest score in a category
+     * @param category category to look at
+     * @return highest score, 0 for an empty table
+     */
+    public synchronized int max(ScoreCategory category) {
+        int column = category.ordinal();
+        int max = size == 0 ? 0 : Integer.MIN_VALUE;
+        for (int row = 0; row < size; row++) {
+            max = Math.max(max, scoreAt(column, row));
+        }
+        return max;
+    }
+
+    /**
+     * Counts the rows with a permission level
+     * @param permission permission level such as Student
+     * @return number of rows with that permission
+     */
+    public synchronized int count(String permission) {
+        int code = permissionDictionary.indexOf(permission);
+        if (code < 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (permissionCodeAt(row) == code) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the dictionary code of a permission, adding it the first time it is seen
+     * @param permission permission level
+     * @return index of the permission in the dictionary
+     */
+    private int encodePermission(String permission) {
+        // only a handful of permissions exist, a linear search beats hashing
+        int code = permissionDictionary.indexOf(permission);
+        if (code < 0) {
+            code = permissionDictionary.size();
+            permissionDictionary.add(permission);
+        }
+        return code;
+    }
+
+    /**
+     * Gets the code of a group, adding it the first time it is seen
+     * @param group group name, null for no group
+     * @return index of the group in the dictionary, 0 for no group
+     */
+    private int encodeGroup(String group) {
+        if (group == null) {
+            return 0;
+        }
+        // hundreds of groups are expected, so unlike permissions they are hashed
+        Integer code = groupCodes.get(group);
+        if (code == null) {
+            code = groupDictionary.size();
+            groupDictionary.add(group);
+            groupCodes.put(group, code);
+            if (code == groupSizes.length) {
+                groupSizes = Arrays.copyOf(groupSizes, code * 2);
+            }
+        }
+        return code;
+    }
+
+    /**
+     * Gets the ranking of one group from a category's group rankings, creating it when the group has none
+     * @param byGroup group rankings of the category, by group code
+     * @param category category ranked
+     * @param code group code
+     * @return ranking of the group
+     */
+    private static LeaderboardIndex groupLeaderboard(List<LeaderboardIndex> byGroup, ScoreCategory category, int code) {
+        while (byGroup.size() <= code) {
+            byGroup.add(null);
+        }
+        LeaderboardIndex leaderboard = byGroup.get(code);
+        if (leaderboard == null) {
+            leaderboard = new LeaderboardIndex(category);
+            byGroup.set(code, leaderboard);
+        }
+        return leaderboard;
+    }
+
+    /**
+     * Finds the row of a username
+     * @param username username to look for
+     * @return row index, or -1 if the user is not in the table
+     */
+    protected abstract int findRow(String username);
+
+    /**
+     * Stores the username of a new row and indexes it, growing the columns when they are full
+     * @param row index of the new row, always the current number of rows
+     * @param username username of the new row
+     */
+    protected abstract void appendRow(int row, String username);
+
+    /**
+     * Reads the username of a row
+     * @param row row index
+     * @return username
+     */
+    protected abstract String usernameAt(int row);
+
+    /**
+     * Reads one score
+     * @param column score column, a {@link ScoreCategory} ordinal
+     * @param row row index
+     * @return score
+     */
+    protected abstract int scoreAt(int column, int row);
+
+    /**
+     * Writes one score
+     * @param column score column, a {@link ScoreCategory} ordinal
+     * @param row row index
+     * @param score score to write
+     */
+    protected abstract void setScore(int column, int row, int score);
+
+    /**
+     * Reads the permission code of a row
+     * @param row row index
+     * @return index into the permission dictionary
+     */
+    protected abstract int permissionCodeAt(int row);
+
+    /**
+     * Writes the permission code of a row
+     * @param row row index
+     * @param code index into the permission dictionary
+     */
+    protected abstract void setPermissionCode(int row, int code);
+
+    /**
+     * Reads the group code of a row
+     * @param row row index
+     * @return index into the group dictionary, 0 for no group
+     */
+    protected abstract int groupCodeAt(int row);
+
+    /**
+     * Writes the group code of a row
+     * @param row row index
+     * @param code index into the group dictionary, 0 for no group
+     */
+    protected abstract void setGroupCode(int row, int code);
+
+    /**
+     * Mixes the bits of a hash code for the username index of a subclass. Usernames like student1, student2
+     * differ only in their low bits and would otherwise fill runs of neighbouring slots.
+     * @param hash hash code of the username
+     * @return mixed hash
+     */
+    protected static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Checks whether a row ranks below another one: lower score, or the same score and added later
+     * @param column score column, a {@link ScoreCategory} ordinal
+     * @param a first row
+     * @param b second row
+     * @return true if row a ranks below row b
+     */
+    private boolean ranksBelow(int column, int a, int b) {
+        int scoreA = scoreAt(column, a);
+        int scoreB = scoreAt(column, b);
+        return scoreA < scoreB || (scoreA == scoreB && a > b);
+    }
+
+    /**
+     * Moves a heap entry up until its parent ranks below it
+     * @param heap heap of rows, the lowest ranked row first
+     * @param index entry to move
+     * @param column score column, a {@link ScoreCategory} ordinal
+     */
+    private void siftUp(int[] heap, int index, int column) {
+        int row = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBelow(column, row, heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = row;
+    }
+
+    /**
+     * Moves the first heap entry down until both children rank above it
+     * @param heap heap of rows, the lowest ranked row first
+     * @param heapSize number of entries in the heap
+     * @param column score column, a {@link ScoreCategory} ordinal
+     */
+    private void siftDown(int[] heap, int heapSize, int column) {
+        if (heapSize == 0) {
+            return;
+        }
+        int row = heap[0];
+        int index = 0;
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && ranksBelow(column, heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!ranksBelow(column, heap[child], row)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = row;
+    }
+
+    /**
+     * Handle reading one row of the table, it always shows the current values of the row
+     */
+    public final class Row implements UserScores {
+        /** row index */
+        private final int row;
+
+        /**
+         * Constructor for Row
+         * @param row row index
+         */
+        private Row(int row) {
+            this.row = row;
+        }
+
+        /**
+         * Gets the row index
+         * @return row index
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * Gets the username of the row
+         * @return username
+         */
+        @Override
+        public String getUsername() {
+            return UserTable.this.getUsername(row);
+        }
+
+        /**
+         * Gets the permission level of the row
+         * @return permission level
+         */
+        @Override
+        public String getPermission() {
+            return UserTable.this.getPermission(row);
+        }
+
+        /**
+         * Gets the group of the row
+         * @return group name, null if the row is in no group
+         */
+        @Override
+        public String getGroup() {
+            return UserTable.this.getGroup(row);
+        }
+
+        /**
+         * Gets the total score of the row
+         * @return total score
+         */
+        @Override
+        public int getTotalScore() {
+            return getScore(ScoreCategory.TOTAL);
+        }
+
+        /**
+         * Gets the Middlesex score of the row
+         * @return Middlesex score
+         */
+        @Override
+        public int getMiddlesexScore() {
+            return getScore(ScoreCategory.MIDDLESEX);
+        }
+
+        /**
+         * Gets the Natural Sciences score of the row
+         * @return Natural Sciences score
+         */
+        @Override
+        public int getNaturalSciencesScore() {
+            return getScore(ScoreCategory.NATURAL_SCIENCES);
+        }
+
+        /**
+         * Gets the Talbot score of the row
+         * @return Talbot score
+         */
+        @Override
+        public int getTalbotScore() {
+            return getScore(ScoreCategory.TALBOT);
+        }
+
+        /**
+         * Gets the score of the row in a category
+         * @param category score category
+         * @return score in the category
+         */
+        @Override
+        public int getScore(ScoreCategory category) {
+            return UserTable.this.getScore(row, category);
+        }
+    }
+}
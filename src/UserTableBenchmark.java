@@ -0,0 +1,87 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Benchmark comparing leaderboard queries over profile objects with the columnar {@link UserTable}.
+ * <p>
+ *     Generates a roster and times the top 10 by total score and the class average, once by sorting
+ *     a copy of the profiles like the leaderboard used to and once on the table's score columns.
+ *     Also reports how much heap each layout uses after a garbage collection. The table shares the username
+ *     strings with the profiles, so its size is what it adds on top of them, and the leaderboard of one
+ *     category is measured separately since it is only built when first asked for.
+ * </p>
+ * <pre>
+ *     java UserTableBenchmark [number of users] [repetitions]
+ * </pre>
+ */
+public class UserTableBenchmark {
+
+    /**
+     * Runs the benchmark
+     * @param args number of users and repetitions
+     */
+    public static void main(String[] args) {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        long heapBefore = usedHeap();
+        List<UserProfile> roster = UserStoreBenchmark.generateRoster(users);
+        long profileBytes = usedHeap() - heapBefore;
+        heapBefore = usedHeap();
+        UserTable table = UserTable.of(roster);
+        long tableBytes = usedHeap() - heapBefore;
+        heapBefore = usedHeap();
+        table.leaderboard(ScoreCategory.TOTAL);
+        long leaderboardBytes = usedHeap() - heapBefore;
+        System.out.printf("%,d users, profiles %.1f MB, table %.1f MB, total score leaderboard %.1f MB%n",
+                users, profileBytes / 1048576.0, tableBytes / 1048576.0, leaderboardBytes / 1048576.0);
+
+        long sortNanos = Long.MAX_VALUE;
+        long topNanos = Long.MAX_VALUE;
+        long objectSumNanos = Long.MAX_VALUE;
+        long columnSumNanos = Long.MAX_VALUE;
+        for (int i = 0; i < repetitions; i++) {
+            long start = System.nanoTime();
+            List<UserProfile> sorted = new ArrayList<>(roster);
+            sorted.sort(Comparator.comparingInt(UserProfile::getTotalScore).reversed());
+            String sortedFirst = sorted.get(0).getUsername();
+            sortNanos = Math.min(sortNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            String topFirst = table.getUsername(table.topRows(ScoreCategory.TOTAL, 10)[0]);
+            topNanos = Math.min(topNanos, System.nanoTime() - start);
+            if (!sortedFirst.equals(topFirst)) {
+                throw new IllegalStateException("top user differs: " + sortedFirst + " and " + topFirst);
+            }
+
+            start = System.nanoTime();
+            long objectSum = 0;
+            for (UserProfile userProfile : roster) {
+                objectSum += userProfile.getTotalScore();
+            }
+            objectSumNanos = Math.min(objectSumNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            long columnSum = table.sum(ScoreCategory.TOTAL);
+            columnSumNanos = Math.min(columnSumNanos, System.nanoTime() - start);
+            if (objectSum != columnSum) {
+                throw new IllegalStateException("sums differ: " + objectSum + " and " + columnSum);
+            }
+        }
+        System.out.printf("top 10   sorted profiles %,8d us   table %,8d us%n", sortNanos / 1000, topNanos / 1000);
+        System.out.printf("sum      profiles        %,8d us   table %,8d us%n", objectSumNanos / 1000, columnSumNanos / 1000);
+    }
+
+    /**
+     * Gets the heap in use after a garbage collection
+     * @return used heap in bytes
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
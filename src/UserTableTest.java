@@ -0,0 +1,138 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for the {@link UserTable} class.
+ */
+public class UserTableTest {
+
+    /**
+     * Creates a table with a teacher and students whose Middlesex scores repeat every 50 users
+     * @param students number of students
+     * @return table holding the users
+     */
+    private static UserTable createTable(int students) {
+        List<UserProfile> profiles = new ArrayList<>();
+        profiles.add(new UserProfile("teacher", "pw", "Teacher", 0, 0, 0, 0));
+        for (int i = 0; i < students; i++) {
+            profiles.add(new UserProfile("student" + i, "pw" + i, "Student", i, i % 50, 2, 0));
+        }
+        return UserTable.of(profiles);
+    }
+
+    /**
+     * Rows read back the profile they were built from, and putting a known user updates its row.
+     */
+    @Test
+    public void testRowsReadColumns() {
+        UserTable table = createTable(200);
+        assertEquals(201, table.size());
+
+        UserTable.Row row = table.find("student7");
+        assertEquals("student7", row.getUsername());
+        assertEquals("Student", row.getPermission());
+        assertEquals(7, row.getTotalScore());
+        assertEquals(2, row.getScore(ScoreCategory.NATURAL_SCIENCES));
+        assertNull(table.find("nobody"));
+
+        UserProfile changed = new UserProfile("student7", "pw7", "Student", 500, 7, 2, 9);
+        assertEquals(row.getRow(), table.put(changed));
+        assertEquals(201, table.size());
+        // the handle always shows the current values
+        assertEquals(500, row.getTotalScore());
+        assertEquals(9, row.getTalbotScore());
+    }
+
+    /**
+     * A heap table that starts with one row finds every user after its username index has grown many times.
+     */
+    @Test
+    public void testHeapIndexGrows() {
+        UserTable table = new HeapUserTable(1);
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals(i, table.put(new UserProfile("student" + i, "pw", "Student", i, 0, 0, 0)));
+        }
+        for (int i = 0; i < 20_000; i += 7) {
+            assertEquals(i, table.find("student" + i).getRow());
+        }
+        assertEquals(19_999, table.put(new UserProfile("student19999", "pw", "Student", 1, 0, 0, 0)));
+        assertEquals(20_000, table.size());
+        assertNull(table.find("student20000"));
+    }
+
+    /**
+     * The top rows match a full sort, with ties in the order the users were added.
+     */
+    @Test
+    public void testTopRowsMatchSort() {
+        UserTable table = createTable(1000);
+
+        int[] sorted = table.sortedRows(ScoreCategory.MIDDLESEX);
+        assertArrayEquals(Arrays.copyOf(sorted, 10), table.topRows(ScoreCategory.MIDDLESEX, 10));
+        // student49 and student99 both score 49, student49 was added first
+        assertEquals("student49", table.getUsername(sorted[0]));
+        assertEquals("student99", table.getUsername(sorted[1]));
+
+        assertEquals("student999", table.row(table.topRows(ScoreCategory.TOTAL, 1)[0]).getUsername());
+        assertEquals(500, table.topRows(ScoreCategory.TOTAL, 500).length);
+    }
+
+    /**
+     * Aggregates scan the columns and filter on the encoded permission.
+     */
+    @Test
+    public void testAggregates() {
+        UserTable table = createTable(100);
+
+        assertEquals(100 * 99 / 2, table.sum(ScoreCategory.TOTAL));
+        assertEquals(99, table.max(ScoreCategory.TOTAL));
+        assertEquals(2.0, table.average(ScoreCategory.NATURAL_SCIENCES, "Student"));
+        assertEquals(0.0, table.average(ScoreCategory.NATURAL_SCIENCES, "Debugger"));
+        assertEquals(100, table.count("Student"));
+        assertEquals(1, table.count("Teacher"));
+    }
+
+    /**
+     * Group rankings match a sort of the group's rows and follow students that move between groups,
+     * on the heap and off it.
+     */
+    @Test
+    public void testGroupLeaderboards() {
+        List<UserProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            profiles.add(new UserProfile("student" + i, "pw", "Student", "class" + (i % 300), (i * 37) % 1_000, 0, 0, 0));
+        }
+        profiles.add(new UserProfile("teacher", "pw", "Teacher", 5_000, 0, 0, 0));
+        for (UserTable table : new UserTable[]{UserTable.of(profiles), OffHeapUserTable.of(profiles, null)}) {
+            assertEquals(300, table.groups().size());
+            assertEquals(10, table.groupSize("class7"));
+            assertNull(table.getGroup(table.find("teacher").getRow()));
+
+            int[] top = table.leaderboard(ScoreCategory.TOTAL, "class7").top(10);
+            assertEquals(10, top.length);
+            for (int i = 1; i < top.length; i++) {
+                assertEquals("class7", table.getGroup(top[i]));
+                assertTrue(table.getScore(top[i - 1], ScoreCategory.TOTAL) >= table.getScore(top[i], ScoreCategory.TOTAL));
+            }
+
+            // moving a student changes both groups, a score change moves it within its group
+            table.put(new UserProfile("student7", "pw", "Student", "class8", 2_000, 0, 0, 0));
+            assertEquals(9, table.leaderboard(ScoreCategory.TOTAL, "class7").size());
+            assertEquals(11, table.leaderboard(ScoreCategory.TOTAL, "class8").size());
+            assertEquals("student7", table.getUsername(table.leaderboard(ScoreCategory.TOTAL, "class8").top(1)[0]));
+            assertEquals(1, table.leaderboard(ScoreCategory.TOTAL, "class8").rankOf(2_000));
+            table.put(new UserProfile("student8", "pw", "Student", "class8", 3_000, 0, 0, 0));
+            assertEquals("student8", table.getUsername(table.leaderboard(ScoreCategory.TOTAL, "class8").top(1)[0]));
+
+            // leaving every group
+            table.put(new UserProfile("student8", "pw", "Student", null, 3_000, 0, 0, 0));
+            assertEquals(10, table.groupSize("class8"));
+            assertEquals("student7", table.getUsername(table.leaderboard(ScoreCategory.TOTAL, "class8").top(1)[0]));
+            assertEquals(0, table.leaderboard(ScoreCategory.TOTAL, "nobody's class").size());
+            assertFalse(table.groups().contains("nobody's class"));
+        }
+    }
+}
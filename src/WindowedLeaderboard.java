@@ -0,0 +1,331 @@
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Daily and weekly leaderboards built from the points players earned in each day.
+ * <p>
+ *     Points are added to one bucket per day, and the buckets form a ring indexed by the day number modulo the
+ *     number of buckets. A bucket only ever holds one total per player and category, however many games they
+ *     play, so memory is bounded by the number of buckets times the players active in them. Expiring a day costs
+ *     O(1): its slot is simply reused by a later day, which replaces the stale bucket the first time it writes.
+ *     A query adds up the buckets of the days in the window and ranks the players found in them.
+ * </p>
+ * <p>
+ *     Points lost, such as a reset from a new game, are not subtracted: a window ranks what was earned in it.
+ * </p>
+ * <p>
+ *     Given a folder, every point earned is also appended to that day's file, points-yyyy-MM-dd.journal, and the
+ *     files of the days still in the ring are read back at startup, so a restart keeps today and this week.
+ *     Only the game that earned the points writes them: points another game instance saved are recorded with
+ *     {@link #recordElsewhere(String, ScoreCategory, int)}, which leaves the file to that instance.
+ *     The file of a day that fell out of the ring is deleted when its slot is reused.
+ * </p>
+ */
+public class WindowedLeaderboard {
+    /** clock giving the current day */
+    private final Clock clock;
+    /** day buckets, bucket i holds the day whose epoch day modulo the length is i */
+    private final Bucket[] buckets;
+    /** folder of the day files, null when points are only kept in memory */
+    private final File folder;
+    /** gson used to write and read single line records */
+    private static final Gson GSON = new Gson();
+    /** writer appending to the file of {@link #writerDay}, null until points are earned */
+    private Writer writer;
+    /** day the writer appends to */
+    private long writerDay;
+
+    /**
+     * Constructor for a WindowedLeaderboard covering a week on the system clock
+     */
+    public WindowedLeaderboard() {
+        this(Clock.systemDefaultZone(), ScoreWindow.THIS_WEEK.getDays());
+    }
+
+    /**
+     * Constructor for WindowedLeaderboard
+     * @param clock clock giving the current day
+     * @param days number of day buckets, the longest window that can be answered
+     */
+    public WindowedLeaderboard(Clock clock, int days) {
+        this.clock = clock;
+        this.buckets = new Bucket[Math.max(1, days)];
+        this.folder = null;
+    }
+
+    /**
+     * Constructor for a WindowedLeaderboard that keeps its points in day files, reading back the days
+     * still in the ring and deleting older ones
+     * @param clock clock giving the current day
+     * @param days number of day buckets, the longest window that can be answered
+     * @param folder folder of the day files, created when the first points are earned
+     * @throws IOException when a day file cannot be read
+     */
+    public WindowedLeaderboard(Clock clock, int days, File folder) throws IOException {
+        this.clock = clock;
+        this.buckets = new Bucket[Math.max(1, days)];
+        this.folder = folder;
+        load();
+    }
+
+    /**
+     * Adds points a player earned today in this game, and appends them to today's file
+     * @param username username of the player
+     * @param category category the points were earned in
+     * @param points points earned, nothing is recorded unless positive
+     */
+    public synchronized void record(String username, ScoreCategory category, int points) {
+        if (points <= 0) {
+            return;
+        }
+        long today = today();
+        add(today, username, category.ordinal(), points);
+        if (folder == null) {
+            return;
+        }
+        try {
+            append(today, new PointsRecord(username, category, points));
+        } catch (IOException e) {
+            // the points still count until the game is closed
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Adds points a player earned today in another game instance, which writes them to the day file itself
+     * @param username username of the player
+     * @param category category the points were earned in
+     * @param points points earned, nothing is recorded unless positive
+     */
+    public synchronized void recordElsewhere(String username, ScoreCategory category, int points) {
+        if (points > 0) {
+            add(today(), username, category.ordinal(), points);
+        }
+    }
+
+    /**
+     * Ranks the players by the points they earned in a window
+     * @param window today or this week
+     * @param category category to rank by
+     * @param limit most number of players to return
+     * @return players with points in the window, most points first and ties by username
+     * @throws IllegalArgumentException when the window is all time or longer than the buckets kept
+     */
+    public List<LeaderboardEntry> top(ScoreWindow window, ScoreCategory category, int limit) {
+        return top(window, category, limit, username -> true);
+    }
+
+    /**
+     * Ranks some of the players by the points they earned in a window, such as the players of one class
+     * @param window today or this week
+     * @param category category to rank by
+     * @param limit most number of players to return
+     * @param include tells which usernames to rank
+     * @return included players with points in the window, most points first and ties by username
+     * @throws IllegalArgumentException when the window is all time or longer than the buckets kept
+     */
+    public synchronized List<LeaderboardEntry> top(ScoreWindow window, ScoreCategory category, int limit,
+                                                   Predicate<String> include) {
+        if (window.getDays() < 1 || window.getDays() > buckets.length) {
+            throw new IllegalArgumentException("cannot rank the window " + window);
+        }
+        Map<String, Integer> totals = new HashMap<>();
+        long today = today();
+        for (Bucket bucket : buckets) {
+            // a slot can still hold an old day that no record has replaced yet
+            if (bucket != null && bucket.day > today - window.getDays() && bucket.day <= today) {
+                for (Map.Entry<String, int[]> entry : bucket.points.entrySet()) {
+                    int points = entry.getValue()[category.ordinal()];
+                    if (points > 0 && include.test(entry.getKey())) {
+                        totals.merge(entry.getKey(), points, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(totals.entrySet());
+        ranked.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<LeaderboardEntry> top = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, ranked.size()); i++) {
+            top.add(new LeaderboardEntry(i + 1, ranked.get(i).getKey(), ranked.get(i).getValue()));
+        }
+        return top;
+    }
+
+    /**
+     * Closes the writer of today's file
+     * @throws IOException when the writer cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * Adds points to the bucket of a day, replacing the stale bucket its slot held
+     * @param day day the points were earned
+     * @param username username of the player
+     * @param ordinal ordinal of the category
+     * @param points points earned
+     */
+    private void add(long day, String username, int ordinal, int points) {
+        int slot = (int) Math.floorMod(day, (long) buckets.length);
+        if (buckets[slot] == null || buckets[slot].day != day) {
+            // the slot held a day that fell out of every window
+            buckets[slot] = new Bucket(day);
+        }
+        buckets[slot].points.computeIfAbsent(username, name -> new int[ScoreCategory.values().length])[ordinal] += points;
+    }
+
+    /**
+     * Reads the day files still in the ring into their buckets and deletes the files of older days
+     * @throws IOException when a day file cannot be read or deleted
+     */
+    private void load() throws IOException {
+        File[] files = folder.listFiles((dir, name) -> name.startsWith("points-") && name.endsWith(".journal"));
+        if (files == null) {
+            return;
+        }
+        long today = today();
+        for (File file : files) {
+            long day = dayOf(file);
+            if (day == Long.MIN_VALUE) {
+                continue;
+            }
+            if (day <= today - buckets.length) {
+                Files.deleteIfExists(file.toPath());
+            } else if (day <= today) {
+                readDay(file, day);
+            }
+        }
+    }
+
+    /**
+     * Adds every record of one day file to the day's bucket
+     * @param file day file to read
+     * @param day day of the file
+     * @throws IOException when the file cannot be read
+     */
+    private void readDay(File file, long day) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    PointsRecord record = GSON.fromJson(line, PointsRecord.class);
+                    if (record.username != null && record.category != null && record.points > 0) {
+                        add(day, record.username, record.category.ordinal(), record.points);
+                    }
+                } catch (JsonParseException e) {
+                    // a record cut off by a crash, everything before it is still valid
+                    System.out.println("Skipping damaged points record in " + file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends a record to the file of a day, moving the writer to a new file when the day changed
+     * and deleting the file of the day whose slot the new day takes over
+     * @param day day the points were earned
+     * @param record points earned
+     * @throws IOException when the record cannot be written
+     */
+    private void append(long day, PointsRecord record) throws IOException {
+        if (writer == null || writerDay != day) {
+            close();
+            Files.deleteIfExists(fileOf(day - buckets.length).toPath());
+            folder.mkdirs();
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileOf(day), true), StandardCharsets.UTF_8));
+            writerDay = day;
+        }
+        // one write per line, so lines appended by several game instances do not interleave
+        writer.write(GSON.toJson(record) + '\n');
+        writer.flush();
+    }
+
+    /**
+     * Gets the file holding the points of a day
+     * @param day days since 1970-01-01
+     * @return day file in the folder
+     */
+    private File fileOf(long day) {
+        return new File(folder, "points-" + LocalDate.ofEpochDay(day) + ".journal");
+    }
+
+    /**
+     * Gets the day a day file holds
+     * @param file day file
+     * @return days since 1970-01-01, or Long.MIN_VALUE when the name holds no date
+     */
+    private static long dayOf(File file) {
+        String name = file.getName();
+        try {
+            return LocalDate.parse(name.substring("points-".length(), name.length() - ".journal".length())).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Gets the current day
+     * @return days since 1970-01-01 in the clock's time zone
+     */
+    private long today() {
+        return LocalDate.now(clock).toEpochDay();
+    }
+
+    /**
+     * One line of a day file: points a player earned in one category
+     */
+    private static final class PointsRecord {
+        /** username of the player */
+        private final String username;
+        /** category the points were earned in */
+        private final ScoreCategory category;
+        /** points earned */
+        private final int points;
+
+        /**
+         * Constructor for PointsRecord
+         * @param username username of the player
+         * @param category category the points were earned in
+         * @param points points earned
+         */
+        PointsRecord(String username, ScoreCategory category, int points) {
+            this.username = username;
+            this.category = category;
+            this.points = points;
+        }
+    }
+
+    /**
+     * Points earned by every active player in one day
+     */
+    private static final class Bucket {
+        /** day of the bucket, days since 1970-01-01 */
+        private final long day;
+        /** points per player, one total per {@link ScoreCategory} ordinal */
+        private final Map<String, int[]> points = new HashMap<>();
+
+        /**
+         * Constructor for Bucket
+         * @param day day of the bucket
+         */
+        Bucket(long day) {
+            this.day = day;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Unit tests for the {@link WindowedLeaderboard} class.
+ */
+public class WindowedLeaderboardTest {
+    /** temporary folders of the tests */
+    private final TestUserFiles files = new TestUserFiles();
+
+    /**
+     * Deletes the temporary folders
+     * @throws IOException when a file cannot be deleted
+     */
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        files.deleteAll();
+    }
+
+    /**
+     * Clock that tests move forward a day at a time
+     */
+    private static final class DayClock extends Clock {
+        /** current instant */
+        private Instant now = Instant.parse("2024-03-04T10:00:00Z");
+
+        /**
+         * Moves the clock forward
+         * @param days number of days to skip
+         */
+        void advance(int days) {
+            now = now.plus(Duration.ofDays(days));
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    /**
+     * Today only counts today's points, the week adds up the buckets of the last seven days.
+     */
+    @Test
+    public void testWeekCombinesDays() {
+        DayClock clock = new DayClock();
+        WindowedLeaderboard leaderboard = new WindowedLeaderboard(clock, 7);
+        leaderboard.record("alice", ScoreCategory.TOTAL, 30);
+        leaderboard.record("bob", ScoreCategory.TOTAL, 20);
+        clock.advance(1);
+        leaderboard.record("bob", ScoreCategory.TOTAL, 25);
+        leaderboard.record("carol", ScoreCategory.TOTAL, 5);
+        leaderboard.record("carol", ScoreCategory.MIDDLESEX, 5);
+
+        List<LeaderboardEntry> today = leaderboard.top(ScoreWindow.TODAY, ScoreCategory.TOTAL, 10);
+        assertEquals(2, today.size());
+        assertEquals("bob", today.get(0).getUsername());
+        assertEquals(25, today.get(0).getScore());
+        assertEquals("carol", today.get(1).getUsername());
+        assertEquals(2, today.get(1).getPosition());
+
+        List<LeaderboardEntry> week = leaderboard.top(ScoreWindow.THIS_WEEK, ScoreCategory.TOTAL, 2);
+        assertEquals(2, week.size());
+        assertEquals("bob", week.get(0).getUsername());
+        assertEquals(45, week.get(0).getScore());
+        assertEquals("alice", week.get(1).getUsername());
+
+        List<LeaderboardEntry> middlesex = leaderboard.top(ScoreWindow.THIS_WEEK, ScoreCategory.MIDDLESEX, 10);
+        assertEquals(1, middlesex.size());
+        assertEquals("carol", middlesex.get(0).getUsername());
+    }
+
+    /**
+     * A day leaves the week after seven days, and its slot is reused by the day that replaces it.
+     */
+    @Test
+    public void testOldDaysExpire() {
+        DayClock clock = new DayClock();
+        WindowedLeaderboard leaderboard = new WindowedLeaderboard(clock, 7);
+        leaderboard.record("alice", ScoreCategory.TOTAL, 30);
+        leaderboard.record("alice", ScoreCategory.TOTAL, 0);
+        leaderboard.record("alice", ScoreCategory.TOTAL, -10);
+        clock.advance(6);
+        leaderboard.record("bob", ScoreCategory.TOTAL, 10);
+        assertEquals(2, leaderboard.top(ScoreWindow.THIS_WEEK, ScoreCategory.TOTAL, 10).size());
+        assertEquals(30, leaderboard.top(ScoreWindow.THIS_WEEK, ScoreCategory.TOTAL, 10).get(0).getScore());
+
+        // alice's day is out of the window before any record replaces its bucket
+        clock.advance(1);
+        List<LeaderboardEntry> week = leaderboard.top(ScoreWindow.THIS_WEEK, ScoreCategory.TOTAL, 10);
+        assertEquals(1, week.size());
+        assertEquals("bob", week.get(0).getUsername());
+
+        leaderboard.record("carol", ScoreCategory.TOTAL, 7);
+        week = leaderboard.top(ScoreWindow.THIS_WEEK, ScoreCategory.TOTAL, 10);
+        assertEquals(2, week.size());
+        assertEquals("bob", week.get(0).getUsername());
+        assertEquals("carol", week.get(1).getUsername());
+
+        clock.advance(30);
+        assertTrue(leaderboard.top(ScoreWindow.THIS_WEEK, ScoreCategory.TOTAL, 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> leaderboard.top(ScoreWindow.ALL_TIME, ScoreCategory.TOTAL, 10));
+    }
+
+    /**
+     * Saving a profile through the database counts the points it gained for the daily leaderboard.
+     * @throws FileNotFoundException when users.json is not found
+     */
+    @Test
+    public void testDatabaseRecordsGains() throws FileNotFoundException {
+        Database database = new Database(new InMemoryUserStore(new File("json_files/users.json")), false);
+        UserProfile userProfile = database.getUserProfileMap().get(database.topUsers(ScoreCategory.TOTAL).get(0).getUsername());
+        assertEquals(0, scoreToday(database, userProfile.getUsername()));
+
+        userProfile.setTotalScore(userProfile.getTotalScore() + 40);
+        database.updateUser(userProfile);
+        userProfile.setTotalScore(userProfile.getTotalScore() + 2);
+        database.updateUser(userProfile);
+        assertEquals(42, scoreToday(database, userProfile.getUsername()));
+        assertEquals(userProfile.getTotalScore(),
+                database.topUsers(ScoreWindow.ALL_TIME, ScoreCategory.TOTAL, 1).get(0).getScore());
+    }
+
+    /**
+     * Points earned in this game are read back from the day files after a restart, points another game
+     * instance saved are left to that instance, and days that fell out of the week are deleted.
+     * @throws IOException when a day file cannot be written or read
+     */
+    @Test
+    public void testPointsSurviveRestart() throws IOException {
+        File folder = files.createFolder("honk");
+        DayClock clock = new DayClock();
+        WindowedLeaderboard leaderboard = new WindowedLeaderboard(clock, 7, folder);
+        leaderboard.record("alice", ScoreCategory.TOTAL, 30);
+        clock.advance(1);
+        leaderboard.record("bob", ScoreCategory.TOTAL, 20);
+        leaderboard.record("bob", ScoreCategory.TALBOT, 20);
+        leaderboard.recordElsewhere("carol", ScoreCategory.TOTAL, 50);
+        leaderboard.close();
+        assertEquals(2, folder.list().length);
+
+        WindowedLeaderboard restarted = new WindowedLeaderboard(clock, 7, folder);
+        List<LeaderboardEntry> week = restarted.top(ScoreWindow.THIS_WEEK, ScoreCategory.TOTAL, 10);
+        assertEquals(2, week.size());
+        assertEquals("alice", week.get(0).getUsername());
+        assertEquals("bob", week.get(1).getUsername());
+        assertEquals(20, week.get(1).getScore());
+        assertEquals(20, restarted.top(ScoreWindow.TODAY, ScoreCategory.TALBOT, 10).get(0).getScore());
+        restarted.record("bob", ScoreCategory.TOTAL, 5);
+        restarted.close();
+        assertEquals(25, new WindowedLeaderboard(clock, 7, folder).top(ScoreWindow.TODAY, ScoreCategory.TOTAL, 10).get(0).getScore());
+
+        clock.advance(7);
+        WindowedLeaderboard nextWeek = new WindowedLeaderboard(clock, 7, folder);
+        assertTrue(nextWeek.top(ScoreWindow.THIS_WEEK, ScoreCategory.TOTAL, 10).isEmpty());
+        assertEquals(0, folder.list().length);
+    }
+
+    /**
+     * A database given a points folder shows today's points again when the game is started again.
+     * @throws IOException when a day file cannot be written or read
+     */
+    @Test
+    public void testDatabaseKeepsPoints() throws IOException {
+        File folder = files.createFolder("honk");
+        InMemoryUserStore store = new InMemoryUserStore(new File("json_files/users.json"));
+        Database database = new Database(store, false, 0, folder);
+        UserProfile userProfile = database.getUserProfileMap().get(database.topUsers(ScoreCategory.TOTAL).get(0).getUsername());
+        userProfile.setTotalScore(userProfile.getTotalScore() + 40);
+        database.updateUser(userProfile);
+
+        Database restarted = new Database(store, false, 0, folder);
+        assertEquals(40, scoreToday(restarted, userProfile.getUsername()));
+    }
+
+    /**
+     * Finds a user's total score today
+     * @param database database to ask
+     * @param username user to find
+     * @return points earned today, 0 if none
+     */
+    private static int scoreToday(Database database, String username) {
+        for (LeaderboardEntry entry : database.topUsers(ScoreWindow.TODAY, ScoreCategory.TOTAL, Integer.MAX_VALUE)) {
+            if (entry.getUsername().equals(username)) {
+                return entry.getScore();
+            }
+        }
+        return 0;
+    }
+}